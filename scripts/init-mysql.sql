@@ -13,6 +13,12 @@ CREATE TABLE IF NOT EXISTS sensor_statistics (
     template_id VARCHAR(50) NOT NULL COMMENT '模板ID',
     device_id VARCHAR(50) NOT NULL COMMENT '设备ID', 
     data_count BIGINT NOT NULL DEFAULT 0 COMMENT '数据条数',
+    value_count BIGINT NOT NULL DEFAULT 0 COMMENT '有效数值条数',
+    sum_value DOUBLE NULL COMMENT '数值和',
+    min_value DOUBLE NULL COMMENT '最小值',
+    max_value DOUBLE NULL COMMENT '最大值',
+    avg_value DOUBLE NULL COMMENT '平均值',
+    variance_value DOUBLE NULL COMMENT '方差（总体方差）',
     window_start DATETIME NOT NULL COMMENT '窗口开始时间',
     window_end DATETIME NOT NULL COMMENT '窗口结束时间',
     created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
@@ -23,6 +29,101 @@ CREATE TABLE IF NOT EXISTS sensor_statistics (
     INDEX idx_created_time (created_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='传感器统计数据表';
 
+-- 开启 database.partitioning 时改用按 window_start 分区的表（替换上面的建表语句）。
+-- 分区表的主键和唯一键必须包含分区列，因此主键为 (id, window_start)；
+-- 初始只有 pmax 分区，作业启动时按天（或月）拆出 pYYYYMMDD 分区，并定时预建未来分区、删除过期分区。
+-- CREATE TABLE IF NOT EXISTS sensor_statistics (
+--     id BIGINT AUTO_INCREMENT COMMENT '主键ID',
+--     template_id VARCHAR(50) NOT NULL COMMENT '模板ID',
+--     device_id VARCHAR(50) NOT NULL COMMENT '设备ID',
+--     data_count BIGINT NOT NULL DEFAULT 0 COMMENT '数据条数',
+--     value_count BIGINT NOT NULL DEFAULT 0 COMMENT '有效数值条数',
+--     sum_value DOUBLE NULL COMMENT '数值和',
+--     min_value DOUBLE NULL COMMENT '最小值',
+--     max_value DOUBLE NULL COMMENT '最大值',
+--     avg_value DOUBLE NULL COMMENT '平均值',
+--     variance_value DOUBLE NULL COMMENT '方差（总体方差）',
+--     window_start DATETIME NOT NULL COMMENT '窗口开始时间',
+--     window_end DATETIME NOT NULL COMMENT '窗口结束时间',
+--     created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+--     updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+--     PRIMARY KEY (id, window_start),
+--     UNIQUE KEY uk_template_device_window (template_id, device_id, window_start, window_end),
+--     INDEX idx_template_device (template_id, device_id),
+--     INDEX idx_window_time (window_start, window_end),
+--     INDEX idx_created_time (created_time)
+-- ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='传感器统计数据表'
+-- PARTITION BY RANGE COLUMNS(window_start) (
+--     PARTITION pmax VALUES LESS THAN (MAXVALUE)
+-- );
+--
+-- 手工维护分区示例：
+-- ALTER TABLE sensor_statistics REORGANIZE PARTITION pmax INTO (
+--     PARTITION p20231201 VALUES LESS THAN ('2023-12-02 00:00:00'),
+--     PARTITION pmax VALUES LESS THAN (MAXVALUE)
+-- );
+-- ALTER TABLE sensor_statistics DROP PARTITION p20231201;
+
+-- 创建逐级汇总表（开启 flink.window.rollup 时使用，结构与统计表相同，不分区）
+CREATE TABLE IF NOT EXISTS sensor_statistics_hourly (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    template_id VARCHAR(50) NOT NULL COMMENT '模板ID',
+    device_id VARCHAR(50) NOT NULL COMMENT '设备ID',
+    data_count BIGINT NOT NULL DEFAULT 0 COMMENT '数据条数',
+    value_count BIGINT NOT NULL DEFAULT 0 COMMENT '有效数值条数',
+    sum_value DOUBLE NULL COMMENT '数值和',
+    min_value DOUBLE NULL COMMENT '最小值',
+    max_value DOUBLE NULL COMMENT '最大值',
+    avg_value DOUBLE NULL COMMENT '平均值',
+    variance_value DOUBLE NULL COMMENT '方差（总体方差）',
+    window_start DATETIME NOT NULL COMMENT '窗口开始时间',
+    window_end DATETIME NOT NULL COMMENT '窗口结束时间',
+    created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_template_device_window (template_id, device_id, window_start, window_end),
+    INDEX idx_template_device (template_id, device_id),
+    INDEX idx_window_time (window_start, window_end),
+    INDEX idx_created_time (created_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='传感器小时汇总表';
+
+CREATE TABLE IF NOT EXISTS sensor_statistics_daily (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    template_id VARCHAR(50) NOT NULL COMMENT '模板ID',
+    device_id VARCHAR(50) NOT NULL COMMENT '设备ID',
+    data_count BIGINT NOT NULL DEFAULT 0 COMMENT '数据条数',
+    value_count BIGINT NOT NULL DEFAULT 0 COMMENT '有效数值条数',
+    sum_value DOUBLE NULL COMMENT '数值和',
+    min_value DOUBLE NULL COMMENT '最小值',
+    max_value DOUBLE NULL COMMENT '最大值',
+    avg_value DOUBLE NULL COMMENT '平均值',
+    variance_value DOUBLE NULL COMMENT '方差（总体方差）',
+    window_start DATETIME NOT NULL COMMENT '窗口开始时间',
+    window_end DATETIME NOT NULL COMMENT '窗口结束时间',
+    created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_template_device_window (template_id, device_id, window_start, window_end),
+    INDEX idx_template_device (template_id, device_id),
+    INDEX idx_window_time (window_start, window_end),
+    INDEX idx_created_time (created_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='传感器天汇总表';
+
+-- 创建Sink事务登记表（flink.sink.mode 为 exactly-once 时使用，与统计数据在同一事务中写入，识别恢复后重复提交的事务）
+CREATE TABLE IF NOT EXISTS sink_transaction_log (
+    transaction_id VARCHAR(64) NOT NULL PRIMARY KEY COMMENT 'Sink事务ID',
+    table_name VARCHAR(64) NOT NULL COMMENT '写入的统计表',
+    committed_time BIGINT NOT NULL COMMENT '提交时间（毫秒时间戳）',
+    INDEX idx_committed_time (committed_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Sink事务登记表';
+
+-- 创建设备注册表（开启 flink.enrichment 时用于补全设备元数据）
+CREATE TABLE IF NOT EXISTS device_registry (
+    device_id VARCHAR(50) NOT NULL PRIMARY KEY COMMENT '设备ID',
+    model VARCHAR(100) NULL COMMENT '设备型号',
+    site VARCHAR(100) NULL COMMENT '安装站点',
+    calibration_offset DOUBLE NULL COMMENT '校准偏移量',
+    updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='设备注册表';
+
 -- 插入示例数据（可选）
 INSERT INTO sensor_statistics (template_id, device_id, data_count, window_start, window_end) 
 VALUES 
@@ -14,6 +14,12 @@ CREATE TABLE IF NOT EXISTS sensor_statistics (
     template_id VARCHAR(50) NOT NULL,
     device_id VARCHAR(50) NOT NULL,
     data_count BIGINT NOT NULL DEFAULT 0,
+    value_count BIGINT NOT NULL DEFAULT 0,
+    sum_value DOUBLE PRECISION,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    avg_value DOUBLE PRECISION,
+    variance_value DOUBLE PRECISION,
     window_start TIMESTAMP NOT NULL,
     window_end TIMESTAMP NOT NULL,
     created_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -21,12 +27,47 @@ CREATE TABLE IF NOT EXISTS sensor_statistics (
     CONSTRAINT uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end)
 );
 
+-- 开启 database.partitioning 时改用按 window_start 声明式分区的表（替换上面的建表语句，需要PostgreSQL 13及以上版本）。
+-- 分区表的主键和唯一键必须包含分区列，因此主键为 (id, window_start)；
+-- DEFAULT分区接收没有对应分区的窗口，作业启动时创建 sensor_statistics_pYYYYMMDD 分区，并定时预建未来分区、删除过期分区。
+-- 下面的注释、索引和触发器在分区表上同样适用。
+-- CREATE TABLE IF NOT EXISTS sensor_statistics (
+--     id BIGSERIAL,
+--     template_id VARCHAR(50) NOT NULL,
+--     device_id VARCHAR(50) NOT NULL,
+--     data_count BIGINT NOT NULL DEFAULT 0,
+--     value_count BIGINT NOT NULL DEFAULT 0,
+--     sum_value DOUBLE PRECISION,
+--     min_value DOUBLE PRECISION,
+--     max_value DOUBLE PRECISION,
+--     avg_value DOUBLE PRECISION,
+--     variance_value DOUBLE PRECISION,
+--     window_start TIMESTAMP NOT NULL,
+--     window_end TIMESTAMP NOT NULL,
+--     created_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     PRIMARY KEY (id, window_start),
+--     CONSTRAINT uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end)
+-- ) PARTITION BY RANGE (window_start);
+-- CREATE TABLE IF NOT EXISTS sensor_statistics_default PARTITION OF sensor_statistics DEFAULT;
+--
+-- 手工维护分区示例：
+-- CREATE TABLE IF NOT EXISTS sensor_statistics_p20231201 PARTITION OF sensor_statistics
+--     FOR VALUES FROM ('2023-12-01 00:00:00') TO ('2023-12-02 00:00:00');
+-- DROP TABLE IF EXISTS sensor_statistics_p20231201;
+
 -- 添加注释
 COMMENT ON TABLE sensor_statistics IS '传感器统计数据表';
 COMMENT ON COLUMN sensor_statistics.id IS '主键ID';
 COMMENT ON COLUMN sensor_statistics.template_id IS '模板ID';
 COMMENT ON COLUMN sensor_statistics.device_id IS '设备ID';
 COMMENT ON COLUMN sensor_statistics.data_count IS '数据条数';
+COMMENT ON COLUMN sensor_statistics.value_count IS '有效数值条数';
+COMMENT ON COLUMN sensor_statistics.sum_value IS '数值和';
+COMMENT ON COLUMN sensor_statistics.min_value IS '最小值';
+COMMENT ON COLUMN sensor_statistics.max_value IS '最大值';
+COMMENT ON COLUMN sensor_statistics.avg_value IS '平均值';
+COMMENT ON COLUMN sensor_statistics.variance_value IS '方差（总体方差）';
 COMMENT ON COLUMN sensor_statistics.window_start IS '窗口开始时间';
 COMMENT ON COLUMN sensor_statistics.window_end IS '窗口结束时间';
 COMMENT ON COLUMN sensor_statistics.created_time IS '创建时间';
@@ -53,6 +94,87 @@ CREATE TRIGGER update_sensor_statistics_updated_time
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_time_column();
 
+-- 创建逐级汇总表（开启 flink.window.rollup 时使用，结构与统计表相同，不分区；索引名在模式内全局唯一，因此加表名前缀）
+CREATE TABLE IF NOT EXISTS sensor_statistics_hourly (
+    id BIGSERIAL PRIMARY KEY,
+    template_id VARCHAR(50) NOT NULL,
+    device_id VARCHAR(50) NOT NULL,
+    data_count BIGINT NOT NULL DEFAULT 0,
+    value_count BIGINT NOT NULL DEFAULT 0,
+    sum_value DOUBLE PRECISION,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    avg_value DOUBLE PRECISION,
+    variance_value DOUBLE PRECISION,
+    window_start TIMESTAMP NOT NULL,
+    window_end TIMESTAMP NOT NULL,
+    created_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT sensor_statistics_hourly_uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end)
+);
+COMMENT ON TABLE sensor_statistics_hourly IS '传感器小时汇总表';
+CREATE INDEX IF NOT EXISTS sensor_statistics_hourly_idx_template_device ON sensor_statistics_hourly (template_id, device_id);
+CREATE INDEX IF NOT EXISTS sensor_statistics_hourly_idx_window_time ON sensor_statistics_hourly (window_start, window_end);
+CREATE INDEX IF NOT EXISTS sensor_statistics_hourly_idx_created_time ON sensor_statistics_hourly (created_time);
+DROP TRIGGER IF EXISTS update_sensor_statistics_hourly_updated_time ON sensor_statistics_hourly;
+CREATE TRIGGER update_sensor_statistics_hourly_updated_time
+    BEFORE UPDATE ON sensor_statistics_hourly
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_time_column();
+
+CREATE TABLE IF NOT EXISTS sensor_statistics_daily (
+    id BIGSERIAL PRIMARY KEY,
+    template_id VARCHAR(50) NOT NULL,
+    device_id VARCHAR(50) NOT NULL,
+    data_count BIGINT NOT NULL DEFAULT 0,
+    value_count BIGINT NOT NULL DEFAULT 0,
+    sum_value DOUBLE PRECISION,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    avg_value DOUBLE PRECISION,
+    variance_value DOUBLE PRECISION,
+    window_start TIMESTAMP NOT NULL,
+    window_end TIMESTAMP NOT NULL,
+    created_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT sensor_statistics_daily_uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end)
+);
+COMMENT ON TABLE sensor_statistics_daily IS '传感器天汇总表';
+CREATE INDEX IF NOT EXISTS sensor_statistics_daily_idx_template_device ON sensor_statistics_daily (template_id, device_id);
+CREATE INDEX IF NOT EXISTS sensor_statistics_daily_idx_window_time ON sensor_statistics_daily (window_start, window_end);
+CREATE INDEX IF NOT EXISTS sensor_statistics_daily_idx_created_time ON sensor_statistics_daily (created_time);
+DROP TRIGGER IF EXISTS update_sensor_statistics_daily_updated_time ON sensor_statistics_daily;
+CREATE TRIGGER update_sensor_statistics_daily_updated_time
+    BEFORE UPDATE ON sensor_statistics_daily
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_time_column();
+
+-- 创建Sink事务登记表（flink.sink.mode 为 exactly-once 时使用，与统计数据在同一事务中写入，识别恢复后重复提交的事务）
+CREATE TABLE IF NOT EXISTS sink_transaction_log (
+    transaction_id VARCHAR(64) NOT NULL PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    committed_time BIGINT NOT NULL
+);
+COMMENT ON TABLE sink_transaction_log IS 'Sink事务登记表';
+COMMENT ON COLUMN sink_transaction_log.committed_time IS '提交时间（毫秒时间戳）';
+CREATE INDEX IF NOT EXISTS sink_transaction_log_idx_committed_time ON sink_transaction_log (committed_time);
+
+-- 创建设备注册表（开启 flink.enrichment 时用于补全设备元数据）
+CREATE TABLE IF NOT EXISTS device_registry (
+    device_id VARCHAR(50) PRIMARY KEY,
+    model VARCHAR(100),
+    site VARCHAR(100),
+    calibration_offset DOUBLE PRECISION,
+    updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE device_registry IS '设备注册表';
+COMMENT ON COLUMN device_registry.device_id IS '设备ID';
+COMMENT ON COLUMN device_registry.model IS '设备型号';
+COMMENT ON COLUMN device_registry.site IS '安装站点';
+COMMENT ON COLUMN device_registry.calibration_offset IS '校准偏移量';
+COMMENT ON COLUMN device_registry.updated_time IS '更新时间';
+
 -- 插入示例数据（可选）
 INSERT INTO sensor_statistics (template_id, device_id, data_count, window_start, window_end) 
 VALUES 
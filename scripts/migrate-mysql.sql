@@ -0,0 +1,15 @@
+-- MySQL数据库升级脚本
+-- 旧版本创建的sensor_statistics只有data_count；应用启动时的CREATE TABLE IF NOT EXISTS不会为已有的表补齐新列，
+-- 升级前执行一次本脚本，为已有的表增加数值统计列。已有行的value_count为0、数值列为空，之后的写入和迟到增量按新列合并。
+-- 每个数据库执行一次，重复执行会因列已存在而报错
+
+-- 使用数据库
+USE flink_db;
+
+ALTER TABLE sensor_statistics
+    ADD COLUMN value_count BIGINT NOT NULL DEFAULT 0 COMMENT '有效数值条数' AFTER data_count,
+    ADD COLUMN sum_value DOUBLE NULL COMMENT '数值和' AFTER value_count,
+    ADD COLUMN min_value DOUBLE NULL COMMENT '最小值' AFTER sum_value,
+    ADD COLUMN max_value DOUBLE NULL COMMENT '最大值' AFTER min_value,
+    ADD COLUMN avg_value DOUBLE NULL COMMENT '平均值' AFTER max_value,
+    ADD COLUMN variance_value DOUBLE NULL COMMENT '方差（总体方差）' AFTER avg_value;
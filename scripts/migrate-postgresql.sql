@@ -0,0 +1,22 @@
+-- PostgreSQL数据库升级脚本
+-- 旧版本创建的sensor_statistics只有data_count；应用启动时的CREATE TABLE IF NOT EXISTS不会为已有的表补齐新列，
+-- 升级前执行一次本脚本，为已有的表增加数值统计列。已有行的value_count为0、数值列为空，之后的写入和迟到增量按新列合并。
+-- 列已存在时跳过，可以重复执行
+
+-- 连接到目标数据库
+\c flink_db;
+
+ALTER TABLE sensor_statistics
+    ADD COLUMN IF NOT EXISTS value_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS sum_value DOUBLE PRECISION,
+    ADD COLUMN IF NOT EXISTS min_value DOUBLE PRECISION,
+    ADD COLUMN IF NOT EXISTS max_value DOUBLE PRECISION,
+    ADD COLUMN IF NOT EXISTS avg_value DOUBLE PRECISION,
+    ADD COLUMN IF NOT EXISTS variance_value DOUBLE PRECISION;
+
+COMMENT ON COLUMN sensor_statistics.value_count IS '有效数值条数';
+COMMENT ON COLUMN sensor_statistics.sum_value IS '数值和';
+COMMENT ON COLUMN sensor_statistics.min_value IS '最小值';
+COMMENT ON COLUMN sensor_statistics.max_value IS '最大值';
+COMMENT ON COLUMN sensor_statistics.avg_value IS '平均值';
+COMMENT ON COLUMN sensor_statistics.variance_value IS '方差（总体方差）';
@@ -0,0 +1,221 @@
+package com.example.flink;
+
+import com.example.flink.benchmark.SinkLatencyProbe;
+import com.example.flink.benchmark.SyntheticSensorSource;
+import com.example.flink.benchmark.SyntheticSourceConfig;
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.WebOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointStatsSnapshot;
+import org.apache.flink.runtime.checkpoint.StatsSummarySnapshot;
+import org.apache.flink.runtime.executiongraph.ArchivedExecutionGraph;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobmaster.JobResult;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.types.Either;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * 端到端基准测试 - 在本地MiniCluster上运行完整的处理管道
+ *
+ * <p>模拟数据源替代Kafka，H2内存库（MySQL兼容模式）替代真实数据库，其余部分与线上作业相同：
+ * 死信路由、水印、窗口聚合和数据库Sink均来自 {@link FlinkStreamingApplication}。
+ * 运行结束后输出吞吐、窗口结束到Sink的延迟分位数和检查点耗时。
+ * H2在多个Sink并发执行 ON DUPLICATE KEY UPDATE 时偶尔报内部错误，由Sink的重试处理，输出中会看到重试日志。
+ *
+ * <p>运行方式：{@code mvn -Pjmh test-compile exec:exec@pipeline -Dpipeline.args="--rate 50000 --duration 120"}
+ *
+ * <p>参数（括号内为默认值）：
+ * <ul>
+ *     <li>--devices (10000) 设备数, --templates (20) 模板数</li>
+ *     <li>--rate (20000) 每秒记录数，0为不限速, --duration (60) 运行秒数</li>
+ *     <li>--skew (0) 设备Zipf指数, --out-of-order (0.05) 乱序比例, --max-delay (5000) 乱序最大延迟毫秒</li>
+ *     <li>--malformed (0.001) 错误消息比例, --seed (42) 随机种子</li>
+ *     <li>--parallelism (2), --window-size (60), --window-slide (30), --window-engine (native)</li>
+ *     <li>--allowed-lateness (0) 窗口允许延迟秒数, --alignment-max-drift (0) 水印对齐最大偏差毫秒</li>
+ *     <li>--sink-mode (buffered), --batch-size (1000), --checkpoint-interval (10000)</li>
+ *     <li>--state-backend (rocksdb) 可选hashmap, --unaligned (false) 非对齐检查点</li>
+ *     <li>--pre-aggregation (false) 两阶段聚合，配合--skew观察热点设备的倾斜缓解效果</li>
+ *     <li>--enrichment (false) 开启设备信息补全，注册表中预置90%的设备</li>
+ * </ul>
+ */
+public class PipelineBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:pipeline_benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+        ParameterTool params = ParameterTool.fromArgs(args);
+        SyntheticSourceConfig sourceConfig = SyntheticSourceConfig.fromParameters(params);
+        FlinkProperties flinkProperties = createProperties(params);
+        int parallelism = flinkProperties.getFlink().getParallelism();
+
+        // 数据库连接在整个运行期间保持打开，H2内存库不会被回收
+        try (HikariDataSource dataSource = DataSourceConfig.createDataSource(flinkProperties)) {
+            new DatabaseService(dataSource, flinkProperties).initializeDatabase();
+            if (flinkProperties.getFlink().getEnrichment().isEnabled()) {
+                createDeviceRegistry(dataSource, sourceConfig.getDeviceCount());
+            }
+
+            StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+            FlinkStreamingApplication.configureFlinkEnvironment(env, flinkProperties);
+
+            DataStream<Either<DeadLetterRecord, SensorData>> parsedStream = env
+                    .addSource(new SyntheticSensorSource(sourceConfig))
+                    .name("Synthetic Source")
+                    .assignTimestampsAndWatermarks(FlinkStreamingApplication.createSourceWatermarkStrategy(
+                            flinkProperties.getFlink().getWatermark()));
+            DataStream<SensorStatistics> statisticsStream =
+                    FlinkStreamingApplication.buildStatisticsStream(parsedStream, flinkProperties);
+            statisticsStream
+                    .map(new SinkLatencyProbe())
+                    .name("Latency Probe")
+                    .addSink(FlinkStreamingApplication.createDatabaseSink(flinkProperties))
+                    .name("Database Sink");
+            JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+            Configuration configuration = new Configuration();
+            configuration.set(WebOptions.CHECKPOINTS_HISTORY_SIZE, 1000);
+            MiniClusterConfiguration clusterConfiguration = new MiniClusterConfiguration.Builder()
+                    .setConfiguration(configuration)
+                    .setNumTaskManagers(1)
+                    .setNumSlotsPerTaskManager(parallelism)
+                    .build();
+
+            try (MiniCluster miniCluster = new MiniCluster(clusterConfiguration)) {
+                miniCluster.start();
+                long start = System.currentTimeMillis();
+                JobID jobId = miniCluster.submitJob(jobGraph).get().getJobID();
+                JobResult jobResult = miniCluster.requestJobResult(jobId).get();
+                long elapsed = System.currentTimeMillis() - start;
+                if (!jobResult.isSuccess()) {
+                    throw new IllegalStateException("基准作业失败",
+                            jobResult.getSerializedThrowable().orElse(null));
+                }
+
+                ArchivedExecutionGraph executionGraph = miniCluster.getArchivedExecutionGraph(jobId).get();
+                printReport(sourceConfig, flinkProperties, elapsed, countRows(dataSource),
+                        executionGraph.getCheckpointStatsSnapshot());
+            }
+        }
+    }
+
+    private static FlinkProperties createProperties(ParameterTool params) {
+        FlinkProperties flinkProperties = new FlinkProperties();
+
+        flinkProperties.getDatabase().setType("mysql");
+        FlinkProperties.Database.MySQL mysql = flinkProperties.getDatabase().getMysql();
+        mysql.setDriverClassName("org.h2.Driver");
+        mysql.setUrl(JDBC_URL);
+        mysql.setUsername("sa");
+        mysql.setPassword("");
+
+        FlinkProperties.Flink flink = flinkProperties.getFlink();
+        flink.setParallelism(params.getInt("parallelism", flink.getParallelism()));
+        flink.getCheckpoint().setInterval(params.getLong("checkpoint-interval", 10_000));
+        flink.getCheckpoint().setUnaligned(params.getBoolean("unaligned", false));
+        flink.getStateBackend().setType(params.get("state-backend", flink.getStateBackend().getType()));
+        flink.getWindow().setSize(params.getInt("window-size", flink.getWindow().getSize()));
+        flink.getWindow().setSlide(params.getInt("window-slide", flink.getWindow().getSlide()));
+        flink.getWindow().setEngine(params.get("window-engine", flink.getWindow().getEngine()));
+        flink.getWatermark().setAlignmentMaxDrift(params.getLong("alignment-max-drift", 0));
+        flink.getWindow().setAllowedLateness(params.getInt("allowed-lateness", flink.getWindow().getAllowedLateness()));
+        flink.getPreAggregation().setEnabled(params.getBoolean("pre-aggregation", false));
+        flink.getSink().setMode(params.get("sink-mode", flink.getSink().getMode()));
+        flink.getSink().setBatchSize(params.getInt("batch-size", flink.getSink().getBatchSize()));
+        flink.getDeadLetter().setMode("log");
+        flink.getEnrichment().setEnabled(params.getBoolean("enrichment", false));
+        return flinkProperties;
+    }
+
+    private static void createDeviceRegistry(HikariDataSource dataSource, int deviceCount) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS device_registry (" +
+                    "device_id VARCHAR(50) NOT NULL PRIMARY KEY, model VARCHAR(100), site VARCHAR(100)," +
+                    "calibration_offset DOUBLE)");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO device_registry (device_id, model, site, calibration_offset) VALUES (?, ?, ?, ?)")) {
+                // 每10个设备中有1个不在注册表中
+                for (int i = 0; i < deviceCount; i++) {
+                    if (i % 10 == 9) {
+                        continue;
+                    }
+                    insert.setString(1, String.format("device_%06d", i + 1));
+                    insert.setString(2, "model_" + (i % 5));
+                    insert.setString(3, "site_" + (i % 50));
+                    insert.setDouble(4, (i % 7) * 0.1);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static long countRows(HikariDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM sensor_statistics")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void printReport(SyntheticSourceConfig sourceConfig, FlinkProperties flinkProperties,
+                                    long elapsedMillis, long databaseRows, CheckpointStatsSnapshot checkpoints) {
+        long emitted = SyntheticSensorSource.getEmittedCount();
+        long[] latencies = SinkLatencyProbe.sortedSamples();
+        FlinkProperties.Flink flink = flinkProperties.getFlink();
+
+        System.out.println();
+        System.out.println("========== 端到端基准测试报告 ==========");
+        System.out.println("数据源: " + sourceConfig);
+        System.out.printf("作业: 并行度 %d, 窗口 %ds/%ds (%s%s), Sink %s, 检查点间隔 %dms%s, 状态后端 %s, 设备信息补全 %s%n",
+                flink.getParallelism(), flink.getWindow().getSize(), flink.getWindow().getSlide(),
+                flink.getWindow().getEngine(), flink.getPreAggregation().isEnabled() ? ", 两阶段聚合" : "",
+                flink.getSink().getMode(), flink.getCheckpoint().getInterval(),
+                flink.getCheckpoint().isUnaligned() ? " (非对齐)" : "", flink.getStateBackend().getType(),
+                flink.getEnrichment().isEnabled() ? "开启" : "关闭");
+        System.out.println();
+        System.out.printf("输入记录: %d (错误消息 %d), 作业耗时: %.1fs%n",
+                emitted, SyntheticSensorSource.getMalformedCount(), elapsedMillis / 1000.0);
+        System.out.printf("吞吐: %.0f records/s (按数据源运行时长 %.0f records/s)%n",
+                emitted * 1000.0 / elapsedMillis, emitted / (double) sourceConfig.getDurationSeconds());
+        System.out.printf("统计结果: 进入Sink %d 条, 数据库 %d 行%n", latencies.length, databaseRows);
+        if (latencies.length > 0) {
+            System.out.printf("窗口结束到Sink延迟(ms): p50 %d, p99 %d, max %d%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1]);
+        }
+
+        StatsSummarySnapshot duration = checkpoints.getSummaryStats().getEndToEndDurationStats();
+        StatsSummarySnapshot stateSize = checkpoints.getSummaryStats().getStateSizeStats();
+        System.out.printf("检查点: 完成 %d, 失败 %d%n",
+                checkpoints.getCounts().getNumberOfCompletedCheckpoints(),
+                checkpoints.getCounts().getNumberOfFailedCheckpoints());
+        if (duration.getCount() > 0) {
+            System.out.printf("检查点耗时(ms): min %d, avg %d, p99 %.0f, max %d; 平均状态大小 %d bytes%n",
+                    duration.getMinimum(), duration.getAverage(), duration.getQuantile(0.99),
+                    duration.getMaximum(), stateSize.getAverage());
+        }
+        System.out.println("========================================");
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
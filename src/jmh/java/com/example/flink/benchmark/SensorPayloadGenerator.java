@@ -0,0 +1,91 @@
+package com.example.flink.benchmark;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.util.DateTimeCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 基准测试用的传感器数据生成器 - 生成与线上消息格式一致的JSON
+ *
+ * <p>模板数、设备数和随机种子固定时，生成的数据序列是确定的。
+ */
+public class SensorPayloadGenerator {
+
+    private static final String[] STATUSES = {"normal", "normal", "normal", "normal", "warning", "error"};
+
+    private final int templateCount;
+    private final int deviceCount;
+    private final Random random;
+
+    private final String[] templateIds;
+    private final String[] deviceIds;
+    private final String[] locations;
+
+    /**
+     * @param templateCount 模板数量
+     * @param deviceCount   设备数量（每个设备固定属于一个模板）
+     * @param seed          随机种子
+     */
+    public SensorPayloadGenerator(int templateCount, int deviceCount, long seed) {
+        this.templateCount = templateCount;
+        this.deviceCount = deviceCount;
+        this.random = new Random(seed);
+
+        this.templateIds = new String[templateCount];
+        for (int i = 0; i < templateCount; i++) {
+            templateIds[i] = String.format("template_%03d", i + 1);
+        }
+        this.deviceIds = new String[deviceCount];
+        this.locations = new String[deviceCount];
+        for (int i = 0; i < deviceCount; i++) {
+            deviceIds[i] = String.format("device_%06d", i + 1);
+            locations[i] = String.format("building_%02d_room_%03d", i % 20 + 1, i % 500 + 1);
+        }
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    /**
+     * 生成指定设备在指定时间的一条数据，约1%的记录没有sensor_value
+     */
+    public SensorData next(int deviceIndex, long timestamp) {
+        Double value = random.nextInt(100) == 0 ? null : Math.round((20 + random.nextGaussian() * 5) * 100) / 100.0;
+        return new SensorData(
+                templateIds[deviceIndex % templateCount],
+                deviceIds[deviceIndex],
+                value,
+                timestamp,
+                locations[deviceIndex],
+                STATUSES[random.nextInt(STATUSES.length)]);
+    }
+
+    /**
+     * 随机设备的一条数据
+     */
+    public SensorData next(long timestamp) {
+        return next(random.nextInt(deviceCount), timestamp);
+    }
+
+    /**
+     * 与Kafka消息相同格式的JSON
+     */
+    public static String toJson(SensorData sensorData) {
+        StringBuilder json = new StringBuilder(160)
+                .append("{\"template_id\":\"").append(sensorData.getTemplateId())
+                .append("\",\"device_id\":\"").append(sensorData.getDeviceId())
+                .append("\",\"sensor_value\":").append(sensorData.getSensorValue())
+                .append(",\"timestamp\":\"").append(DateTimeCodec.format(sensorData.getTimestamp()))
+                .append("\",\"location\":\"").append(sensorData.getLocation())
+                .append("\",\"status\":\"").append(sensorData.getStatus())
+                .append("\"}");
+        return json.toString();
+    }
+
+    public static byte[] toJsonBytes(SensorData sensorData) {
+        return toJson(sensorData).getBytes(StandardCharsets.UTF_8);
+    }
+}
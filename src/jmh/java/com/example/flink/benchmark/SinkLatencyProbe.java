@@ -0,0 +1,42 @@
+package com.example.flink.benchmark;
+
+import com.example.flink.model.SensorStatistics;
+import org.apache.flink.api.common.functions.MapFunction;
+
+import java.util.Arrays;
+
+/**
+ * 延迟探针 - 统计结果进入数据库Sink时，记录当前时间与窗口结束时间之差
+ *
+ * <p>窗口内最后一条记录的事件时间不晚于窗口结束，因此该值是窗口内事件到达Sink的最短延迟，
+ * 包含水印的乱序等待，不包含Sink内部的缓冲时间。
+ */
+public class SinkLatencyProbe implements MapFunction<SensorStatistics, SensorStatistics> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static long[] samples = new long[1 << 16];
+    private static int size;
+
+    @Override
+    public SensorStatistics map(SensorStatistics statistics) {
+        record(System.currentTimeMillis() - statistics.getWindowEnd());
+        return statistics;
+    }
+
+    private static synchronized void record(long latency) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = latency;
+    }
+
+    /**
+     * 已记录延迟的升序副本
+     */
+    public static synchronized long[] sortedSamples() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
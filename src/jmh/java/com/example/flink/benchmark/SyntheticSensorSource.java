@@ -0,0 +1,180 @@
+package com.example.flink.benchmark;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import com.example.flink.serialization.SensorDataDeserializationSchema;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.source.RichParallelSourceFunction;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.SimpleUserCodeClassLoader;
+import org.apache.flink.util.UserCodeClassLoader;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟传感器数据源 - 生成JSON字节并经过与Kafka Source相同的 SensorDataDeserializationSchema 解析
+ *
+ * <p>按配置控制设备基数、速率、键倾斜、乱序比例和错误消息比例，运行指定时长后结束。
+ * MiniCluster与基准测试进程在同一个JVM中，因此通过静态计数器汇总各并行实例发出的记录数。
+ */
+public class SyntheticSensorSource extends RichParallelSourceFunction<Either<DeadLetterRecord, SensorData>>
+        implements ResultTypeQueryable<Either<DeadLetterRecord, SensorData>> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 每次持有检查点锁时最多发出的记录数
+     */
+    private static final int EMIT_BATCH = 64;
+
+    private static final AtomicLong EMITTED = new AtomicLong();
+    private static final AtomicLong MALFORMED = new AtomicLong();
+
+    private final SyntheticSourceConfig config;
+    private final SensorDataDeserializationSchema deserializationSchema = new SensorDataDeserializationSchema();
+
+    private transient SensorPayloadGenerator generator;
+    private transient Random random;
+    private transient double[] deviceCdf;
+    private transient volatile boolean running;
+
+    public SyntheticSensorSource(SyntheticSourceConfig config) {
+        this.config = config;
+    }
+
+    public static long getEmittedCount() {
+        return EMITTED.get();
+    }
+
+    public static long getMalformedCount() {
+        return MALFORMED.get();
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        int subtask = getRuntimeContext().getIndexOfThisSubtask();
+        generator = new SensorPayloadGenerator(config.getTemplateCount(), config.getDeviceCount(),
+                config.getSeed() + subtask);
+        random = new Random(config.getSeed() * 31 + subtask);
+        deviceCdf = config.getKeySkew() > 0 ? zipfCdf(config.getDeviceCount(), config.getKeySkew()) : null;
+
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup();
+        ClassLoader classLoader = getRuntimeContext().getUserCodeClassLoader();
+        deserializationSchema.open(new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return metricGroup;
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return SimpleUserCodeClassLoader.create(classLoader);
+            }
+        });
+    }
+
+    @Override
+    public void run(SourceContext<Either<DeadLetterRecord, SensorData>> ctx) throws Exception {
+        running = true;
+        int parallelism = getRuntimeContext().getNumberOfParallelSubtasks();
+        int subtask = getRuntimeContext().getIndexOfThisSubtask();
+        double ratePerMillis = config.getRatePerSecond() / (double) parallelism / 1000.0;
+        long start = System.currentTimeMillis();
+        long end = start + config.getDurationSeconds() * 1000;
+
+        Collector<Either<DeadLetterRecord, SensorData>> collector = new Collector<Either<DeadLetterRecord, SensorData>>() {
+            @Override
+            public void collect(Either<DeadLetterRecord, SensorData> record) {
+                ctx.collect(record);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        long emitted = 0;
+        long offset = 0;
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now >= end) {
+                break;
+            }
+            long target = ratePerMillis > 0 ? (long) ((now - start) * ratePerMillis) : Long.MAX_VALUE;
+            if (emitted >= target) {
+                Thread.sleep(1);
+                continue;
+            }
+
+            int batch = (int) Math.min(EMIT_BATCH, target - emitted);
+            synchronized (ctx.getCheckpointLock()) {
+                for (int i = 0; i < batch; i++) {
+                    byte[] payload = nextPayload(now);
+                    deserializationSchema.deserialize(
+                            new ConsumerRecord<>("synthetic", subtask, offset++, null, payload), collector);
+                }
+            }
+            emitted += batch;
+            EMITTED.addAndGet(batch);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        running = false;
+    }
+
+    @Override
+    public TypeInformation<Either<DeadLetterRecord, SensorData>> getProducedType() {
+        return deserializationSchema.getProducedType();
+    }
+
+    private byte[] nextPayload(long now) {
+        long timestamp = now;
+        if (random.nextDouble() < config.getOutOfOrderRatio()) {
+            timestamp -= (long) (random.nextDouble() * config.getMaxDelayMillis());
+        }
+        SensorData sensorData = generator.next(nextDevice(), timestamp);
+        String json = SensorPayloadGenerator.toJson(sensorData);
+
+        if (random.nextDouble() < config.getMalformedRatio()) {
+            MALFORMED.incrementAndGet();
+            // 一半截断为非法JSON，一半是时间格式错误
+            json = random.nextBoolean()
+                    ? json.substring(0, json.length() / 2)
+                    : json.replaceFirst("(\\d{4}-\\d{2}-\\d{2}) ", "$1T");
+        }
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private int nextDevice() {
+        if (deviceCdf == null) {
+            return random.nextInt(config.getDeviceCount());
+        }
+        int index = Arrays.binarySearch(deviceCdf, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, deviceCdf.length - 1);
+    }
+
+    private static double[] zipfCdf(int count, double exponent) {
+        double[] cdf = new double[count];
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < count; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+}
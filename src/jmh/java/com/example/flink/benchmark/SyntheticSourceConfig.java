@@ -0,0 +1,143 @@
+package com.example.flink.benchmark;
+
+import org.apache.flink.api.java.utils.ParameterTool;
+
+import java.io.Serializable;
+
+/**
+ * 模拟传感器数据源的参数
+ */
+public class SyntheticSourceConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int templateCount = 20;
+    private int deviceCount = 10_000;
+    private long ratePerSecond = 20_000;
+    private long durationSeconds = 60;
+    private double keySkew = 0.0;
+    private double outOfOrderRatio = 0.05;
+    private long maxDelayMillis = 5_000;
+    private double malformedRatio = 0.001;
+    private long seed = 42;
+
+    /**
+     * 从命令行参数读取，未指定的参数使用默认值
+     */
+    public static SyntheticSourceConfig fromParameters(ParameterTool params) {
+        SyntheticSourceConfig config = new SyntheticSourceConfig();
+        config.setTemplateCount(params.getInt("templates", config.getTemplateCount()));
+        config.setDeviceCount(params.getInt("devices", config.getDeviceCount()));
+        config.setRatePerSecond(params.getLong("rate", config.getRatePerSecond()));
+        config.setDurationSeconds(params.getLong("duration", config.getDurationSeconds()));
+        config.setKeySkew(params.getDouble("skew", config.getKeySkew()));
+        config.setOutOfOrderRatio(params.getDouble("out-of-order", config.getOutOfOrderRatio()));
+        config.setMaxDelayMillis(params.getLong("max-delay", config.getMaxDelayMillis()));
+        config.setMalformedRatio(params.getDouble("malformed", config.getMalformedRatio()));
+        config.setSeed(params.getLong("seed", config.getSeed()));
+        return config;
+    }
+
+    // Getters and Setters
+    public int getTemplateCount() {
+        return templateCount;
+    }
+
+    public void setTemplateCount(int templateCount) {
+        this.templateCount = templateCount;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public void setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+    }
+
+    /**
+     * 所有并行实例合计的每秒记录数，0表示不限速
+     */
+    public long getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(long ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * 设备选择的Zipf指数，0为均匀分布，越大热点设备越集中
+     */
+    public double getKeySkew() {
+        return keySkew;
+    }
+
+    public void setKeySkew(double keySkew) {
+        this.keySkew = keySkew;
+    }
+
+    /**
+     * 事件时间早于当前时间（乱序）的记录比例
+     */
+    public double getOutOfOrderRatio() {
+        return outOfOrderRatio;
+    }
+
+    public void setOutOfOrderRatio(double outOfOrderRatio) {
+        this.outOfOrderRatio = outOfOrderRatio;
+    }
+
+    /**
+     * 乱序记录的最大延迟（毫秒）
+     */
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 无法解析的消息比例
+     */
+    public double getMalformedRatio() {
+        return malformedRatio;
+    }
+
+    public void setMalformedRatio(double malformedRatio) {
+        this.malformedRatio = malformedRatio;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticSourceConfig{" +
+                "templateCount=" + templateCount +
+                ", deviceCount=" + deviceCount +
+                ", ratePerSecond=" + ratePerSecond +
+                ", durationSeconds=" + durationSeconds +
+                ", keySkew=" + keySkew +
+                ", outOfOrderRatio=" + outOfOrderRatio +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", malformedRatio=" + malformedRatio +
+                ", seed=" + seed +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.flink.function;
+
+import com.example.flink.FlinkStreamingApplication;
+import com.example.flink.benchmark.SensorPayloadGenerator;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import com.example.flink.serialization.SensorKeySerializer;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分组与窗口聚合基准 - 键选择、键序列化、累加器增量聚合和窗口结果输出
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private static final int RECORD_COUNT = 1024;
+
+    private SensorData[] records;
+    private SensorKey[] keys;
+    private FlinkStreamingApplication.SensorDataKeySelector keySelector;
+    private SensorStatisticsAggregateFunction aggregateFunction;
+    private FlinkStreamingApplication.StatisticsWindowFunction windowFunction;
+    private SensorStatisticsAccumulator accumulator;
+    private SensorStatisticsAccumulator windowAccumulator;
+    private List<SensorStatisticsAccumulator> windowInput;
+    private TimeWindow window;
+    private DataOutputSerializer keyOutput;
+    private Collector<SensorStatistics> collector;
+    private int index;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws Exception {
+        SensorPayloadGenerator generator = new SensorPayloadGenerator(20, 10_000, 42);
+        records = new SensorData[RECORD_COUNT];
+        keys = new SensorKey[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records[i] = generator.next(1701424800000L + i * 10L);
+            keys[i] = SensorKey.of(records[i]);
+        }
+
+        keySelector = new FlinkStreamingApplication.SensorDataKeySelector();
+        aggregateFunction = new SensorStatisticsAggregateFunction();
+        windowFunction = new FlinkStreamingApplication.StatisticsWindowFunction();
+        windowFunction.setRuntimeContext(new RuntimeUDFContext(new TaskInfo("benchmark", 1, 0, 1, 0),
+                getClass().getClassLoader(), new ExecutionConfig(), Collections.emptyMap(), Collections.emptyMap(),
+                UnregisteredMetricsGroup.createOperatorMetricGroup()));
+        windowFunction.open(new Configuration());
+        accumulator = aggregateFunction.createAccumulator();
+
+        windowAccumulator = aggregateFunction.createAccumulator();
+        for (SensorData record : records) {
+            aggregateFunction.add(record, windowAccumulator);
+        }
+        windowInput = Collections.singletonList(windowAccumulator);
+        window = new TimeWindow(1701424800000L, 1701424860000L);
+        keyOutput = new DataOutputSerializer(64);
+        collector = new Collector<SensorStatistics>() {
+            @Override
+            public void collect(SensorStatistics record) {
+                blackhole.consume(record);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Benchmark
+    public SensorKey keySelector() throws Exception {
+        return keySelector.getKey(records[nextIndex()]);
+    }
+
+    @Benchmark
+    public int keySerializer() throws IOException {
+        keyOutput.clear();
+        SensorKeySerializer.INSTANCE.serialize(keys[nextIndex()], keyOutput);
+        return keyOutput.length();
+    }
+
+    @Benchmark
+    public SensorStatisticsAccumulator aggregateAdd() {
+        return aggregateFunction.add(records[nextIndex()], accumulator);
+    }
+
+    @Benchmark
+    public SensorStatisticsAccumulator aggregateMerge() {
+        SensorStatisticsAccumulator merged = aggregateFunction.createAccumulator();
+        return aggregateFunction.merge(merged, windowAccumulator);
+    }
+
+    @Benchmark
+    public void statisticsWindowFunction() throws Exception {
+        windowFunction.apply(keys[nextIndex()], window, windowInput, collector);
+    }
+
+    private int nextIndex() {
+        index = (index + 1) & (RECORD_COUNT - 1);
+        return index;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.flink.function;
+
+import com.example.flink.benchmark.SensorPayloadGenerator;
+import com.example.flink.model.Alert;
+import com.example.flink.model.AlertRule;
+import com.example.flink.model.SensorData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 告警规则评估基准 - 每个模板的规则数不同时，单条数据的评估开销
+ *
+ * <p>20个模板中一半有规则，每个有规则的模板包含等量的上限、下限和变化率规则，
+ * 阈值大多落在数据取值范围之外，测量的主要是规则查找和判断本身的开销。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertRuleBenchmark {
+
+    private static final int RECORD_COUNT = 1024;
+    private static final int TEMPLATE_COUNT = 20;
+
+    @Param({"3", "300", "30000"})
+    private int rulesPerTemplate;
+
+    private SensorData[] records;
+    private SensorData[] previousRecords;
+    private AlertRuleIndex index;
+    private Consumer<Alert> output;
+    private int position;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        SensorPayloadGenerator generator = new SensorPayloadGenerator(TEMPLATE_COUNT, 10_000, 42);
+        records = new SensorData[RECORD_COUNT];
+        previousRecords = new SensorData[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            previousRecords[i] = generator.next(i, 1701424800000L);
+            records[i] = generator.next(i, 1701424801000L);
+        }
+
+        Random random = new Random(42);
+        List<AlertRule> rules = new ArrayList<>();
+        for (int template = 1; template <= TEMPLATE_COUNT; template += 2) {
+            String templateId = String.format("template_%03d", template);
+            for (int i = 0; i < rulesPerTemplate / 3; i++) {
+                rules.add(new AlertRule(templateId + "-above-" + i, templateId,
+                        AlertRule.Type.THRESHOLD_ABOVE, 34.0 + random.nextDouble() * 100));
+                rules.add(new AlertRule(templateId + "-below-" + i, templateId,
+                        AlertRule.Type.THRESHOLD_BELOW, -100.0 + random.nextDouble() * 100));
+                rules.add(new AlertRule(templateId + "-rate-" + i, templateId,
+                        AlertRule.Type.RATE_OF_CHANGE, 20.0 + random.nextDouble() * 100));
+            }
+        }
+        index = AlertRuleIndex.compile(rules);
+        output = blackhole::consume;
+    }
+
+    @Benchmark
+    public void evaluate() {
+        position = (position + 1) & (RECORD_COUNT - 1);
+        SensorData record = records[position];
+        AlertRuleIndex.TemplateRules templateRules = index.get(record.getTemplateId());
+        if (templateRules != null) {
+            templateRules.evaluate(record, previousRecords[position], output);
+        }
+    }
+}
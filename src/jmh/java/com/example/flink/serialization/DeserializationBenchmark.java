@@ -0,0 +1,119 @@
+package com.example.flink.serialization;
+
+import com.example.flink.benchmark.SensorPayloadGenerator;
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import com.example.flink.util.JsonUtils;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.SimpleUserCodeClassLoader;
+import org.apache.flink.util.UserCodeClassLoader;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka消息解析基准 - 先解码为String再 JsonUtils.fromJson（原SimpleStringSchema + Map的路径）、
+ * 直接 JsonUtils.fromJson(String)，以及直接从字节解析的 SensorDataDeserializationSchema
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializationBenchmark {
+
+    private static final int PAYLOAD_COUNT = 1024;
+
+    private ConsumerRecord<byte[], byte[]>[] records;
+    private String[] jsonStrings;
+    private SensorDataDeserializationSchema schema;
+    private Collector<Either<DeadLetterRecord, SensorData>> collector;
+    private int index;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp(Blackhole blackhole) throws Exception {
+        SensorPayloadGenerator generator = new SensorPayloadGenerator(20, 10_000, 42);
+        records = new ConsumerRecord[PAYLOAD_COUNT];
+        jsonStrings = new String[PAYLOAD_COUNT];
+        long timestamp = 1701424800000L;
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            String json = SensorPayloadGenerator.toJson(generator.next(timestamp + i * 10L));
+            jsonStrings[i] = json;
+            records[i] = new ConsumerRecord<>("sensor_data", 0, i, null, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        schema = new SensorDataDeserializationSchema();
+        schema.open(new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return new UnregisteredMetricsGroup();
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return SimpleUserCodeClassLoader.create(DeserializationBenchmark.class.getClassLoader());
+            }
+        });
+        collector = new BlackholeCollector<>(blackhole);
+    }
+
+    @Benchmark
+    public SensorData decodeStringThenFromJson() throws Exception {
+        String json = new String(records[nextIndex()].value(), StandardCharsets.UTF_8);
+        return JsonUtils.fromJson(json, SensorData.class);
+    }
+
+    @Benchmark
+    public SensorData jsonUtilsFromJson() throws Exception {
+        return JsonUtils.fromJson(jsonStrings[nextIndex()], SensorData.class);
+    }
+
+    @Benchmark
+    public void kafkaDeserializationSchema() throws Exception {
+        schema.deserialize(records[nextIndex()], collector);
+    }
+
+    private int nextIndex() {
+        index = (index + 1) & (PAYLOAD_COUNT - 1);
+        return index;
+    }
+
+    /**
+     * 把输出交给Blackhole的Collector
+     */
+    static final class BlackholeCollector<T> implements Collector<T> {
+
+        private final Blackhole blackhole;
+
+        BlackholeCollector(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void collect(T record) {
+            blackhole.consume(record);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.flink.serialization;
+
+import com.example.flink.benchmark.SensorPayloadGenerator;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态与网络传输类型的序列化基准 - Flink POJO序列化器与Kryo回退的往返（序列化 + 反序列化）吞吐对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Kryo在JDK 17上需要与surefire相同的--add-opens
+@Fork(value = 1, jvmArgsAppend = {"--add-opens", "java.base/java.util=ALL-UNNAMED",
+        "--add-opens", "java.base/java.lang=ALL-UNNAMED"})
+public class SerializerBenchmark {
+
+    private static final int RECORD_COUNT = 1024;
+
+    @Param({"SensorData", "SensorStatisticsAccumulator", "SensorStatistics"})
+    private String type;
+
+    @Param({"pojo", "kryo"})
+    private String serializer;
+
+    private Object[] values;
+    private TypeSerializer<Object> typeSerializer;
+    private DataOutputSerializer output;
+    private DataInputDeserializer input;
+    private int index;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        SensorPayloadGenerator generator = new SensorPayloadGenerator(20, 10_000, 42);
+        values = new Object[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            SensorData sensorData = generator.next(1701424800000L + i * 10L);
+            SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+            accumulator.add(sensorData);
+            switch (type) {
+                case "SensorData":
+                    values[i] = sensorData;
+                    break;
+                case "SensorStatisticsAccumulator":
+                    values[i] = accumulator;
+                    break;
+                case "SensorStatistics":
+                    values[i] = accumulator.toStatistics(SensorKey.of(sensorData), 1701424800000L, 1701424860000L);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的类型: " + type);
+            }
+        }
+        Class<Object> clazz = (Class<Object>) values[0].getClass();
+
+        ExecutionConfig config = new ExecutionConfig();
+        typeSerializer = "kryo".equals(serializer)
+                ? new KryoSerializer<>(clazz, config)
+                : TypeInformation.of(clazz).createSerializer(config);
+        output = new DataOutputSerializer(256);
+        input = new DataInputDeserializer();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException {
+        output.clear();
+        typeSerializer.serialize(values[nextIndex()], output);
+        input.setBuffer(output.getSharedBuffer(), 0, output.length());
+        return typeSerializer.deserialize(input);
+    }
+
+    private int nextIndex() {
+        index = (index + 1) & (RECORD_COUNT - 1);
+        return index;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.flink.service;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * upsert参数绑定基准 - DatabaseService.setStatementParameters
+ *
+ * <p>使用H2内存库（MySQL兼容模式）创建的PreparedStatement，只绑定参数不执行，
+ * 测量的是统计结果到JDBC参数的转换开销（时间换算、装箱等），不包含网络和数据库执行。
+ * 两种数据库的参数绑定相同，H2不支持PostgreSQL的 ON CONFLICT DO UPDATE，因此只用MySQL语法。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementBindingBenchmark {
+
+    private static final int ROW_COUNT = 1024;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private DatabaseService databaseService;
+    private SensorStatistics[] rows;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        FlinkProperties flinkProperties = new FlinkProperties();
+        flinkProperties.getDatabase().setType("mysql");
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:binding;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        connection.createStatement().execute("CREATE TABLE IF NOT EXISTS sensor_statistics ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, template_id VARCHAR(50) NOT NULL, "
+                + "device_id VARCHAR(50) NOT NULL, data_count BIGINT NOT NULL, value_count BIGINT NOT NULL, "
+                + "sum_value DOUBLE PRECISION, min_value DOUBLE PRECISION, max_value DOUBLE PRECISION, "
+                + "avg_value DOUBLE PRECISION, variance_value DOUBLE PRECISION, "
+                + "window_start TIMESTAMP NOT NULL, window_end TIMESTAMP NOT NULL, "
+                + "created_time TIMESTAMP NOT NULL, updated_time TIMESTAMP NOT NULL, "
+                + "CONSTRAINT uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end))");
+
+        databaseService = new DatabaseService(dataSource, flinkProperties);
+        statement = connection.prepareStatement(databaseService.getUpsertSql());
+
+        rows = new SensorStatistics[ROW_COUNT];
+        long windowStart = 1701424800000L;
+        for (int i = 0; i < ROW_COUNT; i++) {
+            SensorStatistics statistics = new SensorStatistics(
+                    String.format("template_%03d", i % 20 + 1),
+                    String.format("device_%06d", i + 1),
+                    (long) (100 + i % 7), windowStart, windowStart + 60_000);
+            statistics.setValueCount((long) (99 + i % 7));
+            if (i % 50 != 0) {
+                statistics.setSumValue(2000.0 + i);
+                statistics.setMinValue(10.0 + i % 3);
+                statistics.setMaxValue(30.0 + i % 5);
+                statistics.setAvgValue(20.0 + i % 11 / 10.0);
+                statistics.setVarianceValue(4.0 + i % 13 / 10.0);
+            }
+            rows[i] = statistics;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public PreparedStatement setStatementParameters() throws SQLException {
+        index = (index + 1) & (ROW_COUNT - 1);
+        databaseService.setStatementParameters(statement, rows[index]);
+        return statement;
+    }
+}
@@ -1,36 +1,87 @@
 package com.example.flink;
 
 import com.example.flink.config.FlinkProperties;
+import com.example.flink.function.AlertEvaluationFunction;
+import com.example.flink.function.DeadLetterRoutingFunction;
+import com.example.flink.function.DeltaEventTimeTrigger;
+import com.example.flink.function.DeltaStatisticsWindowFunction;
+import com.example.flink.function.DeviceEnrichmentFunction;
+import com.example.flink.function.LateDataDeadLetterFunction;
+import com.example.flink.function.LatestStatisticsOperator;
+import com.example.flink.function.PaneSlidingWindowFunction;
+import com.example.flink.function.PreAggregatedStatisticsAggregateFunction;
+import com.example.flink.function.PreAggregationOperator;
+import com.example.flink.function.RollupAggregateFunction;
+import com.example.flink.function.SensorDataTimestampAssigner;
+import com.example.flink.function.SensorDataWatermarkGenerator;
+import com.example.flink.function.SensorStatisticsAggregateFunction;
+import com.example.flink.metrics.Histograms;
+import com.example.flink.model.Alert;
+import com.example.flink.model.AlertRule;
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.PreAggregatedStatistics;
 import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
 import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import com.example.flink.serialization.AlertRuleDeserializationSchema;
+import com.example.flink.serialization.AlertSerializationSchema;
+import com.example.flink.serialization.DeadLetterSerializationSchema;
+import com.example.flink.serialization.SensorDataDeserializationSchema;
 import com.example.flink.service.DatabaseService;
-import com.example.flink.util.JsonUtils;
+import com.example.flink.sink.AlertLogSinkFunction;
+import com.example.flink.sink.BufferedDatabaseSinkFunction;
+import com.example.flink.sink.DeadLetterLogSinkFunction;
+import com.example.flink.sink.TransactionalDatabaseSinkFunction;
+import org.apache.flink.api.common.eventtime.Watermark;
+import org.apache.flink.api.common.eventtime.WatermarkGenerator;
+import org.apache.flink.api.common.eventtime.WatermarkOutput;
 import org.apache.flink.api.common.eventtime.WatermarkStrategy;
-import org.apache.flink.api.common.functions.MapFunction;
-import org.apache.flink.api.common.functions.ReduceFunction;
-import org.apache.flink.api.common.serialization.SimpleStringSchema;
-import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.CheckpointingOptions;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.connector.base.DeliveryGuarantee;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.flink.connector.kafka.sink.KafkaSink;
 import org.apache.flink.connector.kafka.source.KafkaSource;
+import org.apache.flink.connector.kafka.source.KafkaSourceBuilder;
+import org.apache.flink.connector.kafka.source.KafkaSourceOptions;
 import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
+import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend;
+import org.apache.flink.contrib.streaming.state.PredefinedOptions;
+import org.apache.flink.contrib.streaming.state.RocksDBMemoryConfiguration;
+import org.apache.flink.runtime.state.StateBackend;
+import org.apache.flink.runtime.state.hashmap.HashMapStateBackend;
 import org.apache.flink.streaming.api.CheckpointingMode;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.DataStreamUtils;
+import org.apache.flink.streaming.api.datastream.KeyedStream;
 import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.datastream.WindowedStream;
 import org.apache.flink.streaming.api.environment.CheckpointConfig;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
-import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.OutputTag;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import javax.sql.DataSource;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Flink流处理应用程序主类
@@ -40,6 +91,19 @@ public class FlinkStreamingApplication {
 
     private static final Logger logger = LoggerFactory.getLogger(FlinkStreamingApplication.class);
 
+    /**
+     * 超过窗口允许延迟的记录
+     */
+    static final OutputTag<SensorData> LATE_SENSOR_DATA_TAG = new OutputTag<SensorData>("late-sensor-data") {
+    };
+
+    /**
+     * 两阶段聚合中超过窗口允许延迟的部分统计
+     */
+    static final OutputTag<PreAggregatedStatistics> LATE_PRE_AGGREGATED_TAG =
+            new OutputTag<PreAggregatedStatistics>("late-pre-aggregated") {
+            };
+
     public static void main(String[] args) throws Exception {
         // 启动Spring Boot应用上下文
         ConfigurableApplicationContext context = SpringApplication.run(FlinkStreamingApplication.class, args);
@@ -50,209 +114,689 @@ public class FlinkStreamingApplication {
         
         // 初始化数据库
         databaseService.initializeDatabase();
+        initializeRollupTables(context.getBean(DataSource.class), flinkProperties);
+        if ("exactly-once".equalsIgnoreCase(flinkProperties.getFlink().getSink().getMode())) {
+            databaseService.initializeTransactionLog();
+        }
         
         logger.info("开始启动Flink流处理应用程序");
         
         // 创建Flink执行环境
-        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment(
+                createFlinkConfiguration(flinkProperties));
         
         // 配置Flink环境
         configureFlinkEnvironment(env, flinkProperties);
         
         // 创建Kafka数据源
-        KafkaSource<String> kafkaSource = createKafkaSource(flinkProperties);
+        KafkaSource<Either<DeadLetterRecord, SensorData>> kafkaSource = createKafkaSource(flinkProperties);
         
         // 构建数据处理管道
-        buildDataPipeline(env, kafkaSource, flinkProperties, context);
+        buildDataPipeline(env, kafkaSource, flinkProperties);
         
         // 执行作业
         logger.info("启动Flink作业...");
         env.execute("Sensor Data Processing Job");
     }
 
-    private static void configureFlinkEnvironment(StreamExecutionEnvironment env, FlinkProperties flinkProperties) {
+    static void configureFlinkEnvironment(StreamExecutionEnvironment env, FlinkProperties flinkProperties) {
         // 设置并行度
         env.setParallelism(flinkProperties.getFlink().getParallelism());
         
+        // 禁止回退到Kryo，所有数据类型必须是POJO或有显式序列化器
+        env.getConfig().disableGenericTypes();
+        
+        // 状态后端
+        env.setStateBackend(createStateBackend(flinkProperties.getFlink().getStateBackend()));
+        
         // 启用检查点
-        env.enableCheckpointing(flinkProperties.getFlink().getCheckpoint().getInterval());
+        FlinkProperties.Flink.Checkpoint checkpoint = flinkProperties.getFlink().getCheckpoint();
+        CheckpointingMode checkpointingMode = CheckpointingMode.valueOf(checkpoint.getMode().trim().toUpperCase());
+        env.enableCheckpointing(checkpoint.getInterval(), checkpointingMode);
         
         // 配置检查点
         CheckpointConfig checkpointConfig = env.getCheckpointConfig();
-        checkpointConfig.setCheckpointingMode(CheckpointingMode.EXACTLY_ONCE);
-        checkpointConfig.setMinPauseBetweenCheckpoints(5000);
-        checkpointConfig.setCheckpointTimeout(flinkProperties.getFlink().getCheckpoint().getTimeout());
-        checkpointConfig.setTolerableCheckpointFailureNumber(3);
-        checkpointConfig.setMaxConcurrentCheckpoints(1);
+        checkpointConfig.setMinPauseBetweenCheckpoints(checkpoint.getMinPause());
+        checkpointConfig.setCheckpointTimeout(checkpoint.getTimeout());
+        checkpointConfig.setTolerableCheckpointFailureNumber(checkpoint.getTolerableFailures());
+        checkpointConfig.setMaxConcurrentCheckpoints(checkpoint.getMaxConcurrent());
+        if (checkpoint.getStorage() != null && !checkpoint.getStorage().trim().isEmpty()) {
+            checkpointConfig.setCheckpointStorage(checkpoint.getStorage().trim());
+        }
+        // 非对齐检查点只支持EXACTLY_ONCE，反压时检查点屏障无需等待缓冲区中的数据
+        if (checkpoint.isUnaligned()) {
+            if (checkpointingMode == CheckpointingMode.EXACTLY_ONCE) {
+                checkpointConfig.enableUnalignedCheckpoints();
+                checkpointConfig.setAlignedCheckpointTimeout(Duration.ofMillis(checkpoint.getAlignedTimeout()));
+            } else {
+                logger.warn("非对齐检查点只支持EXACTLY_ONCE模式，当前模式: {}", checkpointingMode);
+            }
+        }
         
-        logger.info("Flink环境配置完成 - 并行度: {}, 检查点间隔: {}ms", 
+        logger.info("Flink环境配置完成 - 并行度: {}, 检查点间隔: {}ms, 检查点模式: {}, 非对齐检查点: {}, 状态后端: {}",
                    flinkProperties.getFlink().getParallelism(),
-                   flinkProperties.getFlink().getCheckpoint().getInterval());
+                   checkpoint.getInterval(),
+                   checkpointingMode,
+                   checkpointConfig.isUnalignedCheckpointsEnabled(),
+                   flinkProperties.getFlink().getStateBackend().getType());
+    }
+
+    /**
+     * 作业级Flink配置，用于创建执行环境
+     *
+     * <p>本地恢复是TaskManager级配置，只在per-job/application模式下随作业生效；
+     * session集群需要在flink-conf.yaml中设置 state.backend.local-recovery: true。
+     */
+    static Configuration createFlinkConfiguration(FlinkProperties flinkProperties) {
+        Configuration configuration = new Configuration();
+        if (flinkProperties.getFlink().getStateBackend().isLocalRecovery()) {
+            configuration.set(CheckpointingOptions.LOCAL_RECOVERY, true);
+            logger.info("已启用任务本地恢复，session集群还需在flink-conf.yaml中设置 state.backend.local-recovery: true");
+        }
+        return configuration;
     }
 
-    private static KafkaSource<String> createKafkaSource(FlinkProperties flinkProperties) {
+    /**
+     * 根据配置创建状态后端：hashmap（堆内存）或rocksdb（EmbeddedRocksDB，支持增量检查点）
+     */
+    static StateBackend createStateBackend(FlinkProperties.Flink.StateBackend stateBackendConfig) {
+        String type = stateBackendConfig.getType() == null ? "" : stateBackendConfig.getType().trim().toLowerCase();
+        switch (type) {
+            case "hashmap":
+                return new HashMapStateBackend();
+            case "rocksdb":
+                return createRocksDBStateBackend(stateBackendConfig);
+            default:
+                throw new IllegalArgumentException("不支持的状态后端: " + stateBackendConfig.getType()
+                        + "，可选值: hashmap, rocksdb");
+        }
+    }
+
+    private static EmbeddedRocksDBStateBackend createRocksDBStateBackend(
+            FlinkProperties.Flink.StateBackend stateBackendConfig) {
+        FlinkProperties.Flink.StateBackend.RocksDB rocksdbConfig = stateBackendConfig.getRocksdb();
+        EmbeddedRocksDBStateBackend backend = new EmbeddedRocksDBStateBackend(stateBackendConfig.isIncremental());
+        backend.setPredefinedOptions(PredefinedOptions.valueOf(rocksdbConfig.getPredefinedOptions().trim().toUpperCase()));
+        backend.setPriorityQueueStateType(EmbeddedRocksDBStateBackend.PriorityQueueStateType.valueOf(
+                rocksdbConfig.getTimerService().trim().toUpperCase()));
+        backend.setNumberOfTransferThreads(rocksdbConfig.getTransferThreads());
+
+        // 内存：默认使用托管内存，由Flink按slot限制memtable和块缓存的总量
+        RocksDBMemoryConfiguration memoryConfiguration = backend.getMemoryConfiguration();
+        if (rocksdbConfig.getFixedMemoryPerSlot() != null && !rocksdbConfig.getFixedMemoryPerSlot().trim().isEmpty()) {
+            memoryConfiguration.setFixedMemoryPerSlot(rocksdbConfig.getFixedMemoryPerSlot().trim());
+        } else {
+            memoryConfiguration.setUseManagedMemory(rocksdbConfig.isManagedMemory());
+        }
+        memoryConfiguration.setWriteBufferRatio(rocksdbConfig.getWriteBufferRatio());
+        memoryConfiguration.setHighPriorityPoolRatio(rocksdbConfig.getHighPriorityPoolRatio());
+
+        logger.info("RocksDB状态后端 - 增量检查点: {}, 预定义选项: {}, 定时器: {}, 内存: {}",
+                stateBackendConfig.isIncremental(), rocksdbConfig.getPredefinedOptions(),
+                rocksdbConfig.getTimerService(),
+                memoryConfiguration.isUsingFixedMemoryPerSlot()
+                        ? "每slot固定" + rocksdbConfig.getFixedMemoryPerSlot()
+                        : memoryConfiguration.isUsingManagedMemory() ? "托管内存" : "不限制");
+        return backend;
+    }
+
+    private static KafkaSource<Either<DeadLetterRecord, SensorData>> createKafkaSource(FlinkProperties flinkProperties) {
         FlinkProperties.Kafka kafkaConfig = flinkProperties.getKafka();
         
-        KafkaSource<String> kafkaSource = KafkaSource.<String>builder()
+        KafkaSourceBuilder<Either<DeadLetterRecord, SensorData>> builder = KafkaSource.<Either<DeadLetterRecord, SensorData>>builder()
                 .setBootstrapServers(kafkaConfig.getBootstrapServers())
                 .setTopics(kafkaConfig.getTopic())
                 .setGroupId(kafkaConfig.getGroupId())
-                .setStartingOffsets(OffsetsInitializer.latest())
-                .setValueOnlyDeserializer(new SimpleStringSchema())
-                .build();
+                .setStartingOffsets(createStartingOffsets(kafkaConfig))
+                .setDeserializer(new SensorDataDeserializationSchema());
+        applyConsumerProperties(builder, kafkaConfig);
+        builder.setProperty(KafkaSourceOptions.PARTITION_DISCOVERY_INTERVAL_MS.key(),
+                String.valueOf(kafkaConfig.getPartitionDiscoveryInterval()));
+        builder.setProperty(KafkaSourceOptions.COMMIT_OFFSETS_ON_CHECKPOINT.key(),
+                String.valueOf(kafkaConfig.isCommitOffsetsOnCheckpoint()));
+        // 注册KafkaConsumer指标（records-lag-max、fetch-size-avg等）和各分区的currentOffset/committedOffset
+        builder.setProperty(KafkaSourceOptions.REGISTER_KAFKA_CONSUMER_METRICS.key(), "true");
+        KafkaSource<Either<DeadLetterRecord, SensorData>> kafkaSource = builder.build();
         
-        logger.info("Kafka数据源创建完成 - 服务器: {}, Topic: {}, 消费组: {}", 
+        logger.info("Kafka数据源创建完成 - 服务器: {}, Topic: {}, 消费组: {}, 起始位置: {}, 分区发现间隔: {}ms, 透传属性: {}", 
                    kafkaConfig.getBootstrapServers(),
                    kafkaConfig.getTopic(),
-                   kafkaConfig.getGroupId());
+                   kafkaConfig.getGroupId(),
+                   kafkaConfig.getStartingOffsets(),
+                   kafkaConfig.getPartitionDiscoveryInterval(),
+                   kafkaConfig.getProperties().keySet());
         
         return kafkaSource;
     }
 
+    /**
+     * 无状态启动时的起始位置 - committed从消费组已提交的位置继续，没有提交位置的分区按autoOffsetReset处理
+     */
+    private static OffsetsInitializer createStartingOffsets(FlinkProperties.Kafka kafkaConfig) {
+        String startingOffsets = kafkaConfig.getStartingOffsets() == null
+                ? "committed" : kafkaConfig.getStartingOffsets().trim().toLowerCase();
+        switch (startingOffsets) {
+            case "committed":
+                String autoOffsetReset = kafkaConfig.getAutoOffsetReset() == null
+                        ? "latest" : kafkaConfig.getAutoOffsetReset().trim();
+                return OffsetsInitializer.committedOffsets(OffsetResetStrategy.valueOf(autoOffsetReset.toUpperCase()));
+            case "earliest":
+                return OffsetsInitializer.earliest();
+            case "latest":
+                return OffsetsInitializer.latest();
+            case "timestamp":
+                if (kafkaConfig.getStartingTimestamp() <= 0) {
+                    throw new IllegalArgumentException("startingOffsets为timestamp时必须配置startingTimestamp");
+                }
+                return OffsetsInitializer.timestamp(kafkaConfig.getStartingTimestamp());
+            default:
+                throw new IllegalArgumentException("不支持的起始位置: " + kafkaConfig.getStartingOffsets()
+                        + "，可选: committed, earliest, latest, timestamp");
+        }
+    }
+
+    /**
+     * 透传KafkaConsumer属性，数据源和告警规则源共用，安全认证等配置只需写一次
+     */
+    private static void applyConsumerProperties(KafkaSourceBuilder<?> builder, FlinkProperties.Kafka kafkaConfig) {
+        kafkaConfig.getProperties().forEach(builder::setProperty);
+    }
+
     private static void buildDataPipeline(StreamExecutionEnvironment env, 
-                                        KafkaSource<String> kafkaSource,
-                                        FlinkProperties flinkProperties,
-                                        ConfigurableApplicationContext context) {
-        
-        // 从Kafka读取数据
-        DataStream<String> kafkaStream = env.fromSource(kafkaSource, 
-                WatermarkStrategy.<String>forBoundedOutOfOrderness(Duration.ofSeconds(20))
-                        .withTimestampAssigner((event, timestamp) -> System.currentTimeMillis()),
-                "Kafka Source");
-        
-        // 解析JSON数据
-        SingleOutputStreamOperator<SensorData> sensorDataStream = kafkaStream
-                .map(new JsonToSensorDataMapper())
-                .filter(data -> data != null)
-                .name("Parse JSON");
-        
-        // 分配水印（基于事件时间）
-        SingleOutputStreamOperator<SensorData> watermarkedStream = sensorDataStream
-                .assignTimestampsAndWatermarks(
-                        WatermarkStrategy.<SensorData>forBoundedOutOfOrderness(Duration.ofSeconds(10))
-                                .withTimestampAssigner((element, recordTimestamp) ->
-                                        element.getTimestamp() != null ? 
-                                        element.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() :
-                                        // element.getTimestamp().atZone(ZoneId.of("Asia/Shanghai")).toInstant().toEpochMilli() :
-                                                System.currentTimeMillis()));
-        
-        // 按template_id和device_id分组，使用滑动窗口进行聚合
-        SingleOutputStreamOperator<SensorStatistics> statisticsStream = watermarkedStream
-                .map(new SensorDataToKeyMapper())
-                .keyBy(tuple -> tuple.f0) // 按组合键分组
-                .window(SlidingEventTimeWindows.of(
-                        Time.seconds(flinkProperties.getFlink().getWindow().getSize()),
-                        Time.seconds(flinkProperties.getFlink().getWindow().getSlide())))
-                .reduce(new DataCountReducer(), new StatisticsWindowFunction())
-                .name("Window Aggregation");
+                                        KafkaSource<Either<DeadLetterRecord, SensorData>> kafkaSource,
+                                        FlinkProperties flinkProperties) {
+        
+        // 从Kafka读取数据，在Source中直接解析JSON
+        DataStream<Either<DeadLetterRecord, SensorData>> parsedStream = env.fromSource(kafkaSource,
+                createSourceWatermarkStrategy(flinkProperties.getFlink().getWatermark()), "Kafka Source");
+        
+        // 告警规则控制流（可选）
+        DataStream<AlertRule> ruleStream = null;
+        if (flinkProperties.getFlink().getAlert().isEnabled()) {
+            ruleStream = env.fromSource(createAlertRuleSource(flinkProperties),
+                    createAlertRuleWatermarkStrategy(), "Alert Rule Source");
+        }
+        
+        // 死信路由、告警和窗口聚合
+        DataStream<SensorStatistics> statisticsStream = buildStatisticsStream(parsedStream, ruleStream, flinkProperties);
         
         // 写入数据库
-        statisticsStream.addSink(new DatabaseSinkFunction(context))
+        statisticsStream.addSink(createDatabaseSink(flinkProperties))
                 .name("Database Sink");
         
+        // 逐级汇总（可选），每一级写入各自的表
+        buildRollupStreams(statisticsStream, flinkProperties.getFlink().getWindow()).forEach((table, rollupStream) ->
+                rollupStream.addSink(createDatabaseSink(flinkProperties, table))
+                        .name("Database Sink (" + table + ")"));
+        
+        // 最新统计查询服务（可选），读取不经过数据库
+        FlinkProperties.Flink.Serving servingConfig = flinkProperties.getFlink().getServing();
+        if (servingConfig.isEnabled()) {
+            statisticsStream.keyBy(new SensorStatisticsKeySelector())
+                    .transform("Latest Statistics", Types.VOID, new LatestStatisticsOperator(servingConfig))
+                    .setParallelism(servingConfig.getParallelism());
+        }
+        
         logger.info("数据处理管道构建完成");
     }
 
     /**
-     * JSON字符串转SensorData的映射函数
+     * Source的水印策略，Kafka Source与基准测试的模拟Source共用
+     *
+     * <p>事件时间在Source中从解析结果提取，Kafka Source按分区生成水印；空闲分区在超时后不再拖住水印，
+     * 开启对齐后水印领先过多的分区暂停读取，追数据时各分区进度一致，窗口状态不会因个别分区超前而膨胀。
      */
-    public static class JsonToSensorDataMapper implements MapFunction<String, SensorData> {
-        @Override
-        public SensorData map(String jsonString) throws Exception {
-            try {
-                return JsonUtils.fromJson(jsonString, SensorData.class);
-            } catch (Exception e) {
-                logger.warn("解析JSON失败: {}", jsonString, e);
-                return null;
+    static WatermarkStrategy<Either<DeadLetterRecord, SensorData>> createSourceWatermarkStrategy(
+            FlinkProperties.Flink.Watermark watermarkConfig) {
+        Duration maxOutOfOrderness = Duration.ofMillis(watermarkConfig.getMaxOutOfOrderness());
+        WatermarkStrategy<Either<DeadLetterRecord, SensorData>> strategy =
+                WatermarkStrategy.<Either<DeadLetterRecord, SensorData>>forGenerator(
+                                context -> new SensorDataWatermarkGenerator(maxOutOfOrderness))
+                        .withTimestampAssigner(context -> new SensorDataTimestampAssigner(
+                                Histograms.register(context.getMetricGroup(), "eventTimeLag")));
+        
+        if (watermarkConfig.getIdleTimeout() > 0) {
+            strategy = strategy.withIdleness(Duration.ofMillis(watermarkConfig.getIdleTimeout()));
+        }
+        if (watermarkConfig.getAlignmentMaxDrift() > 0) {
+            strategy = strategy.withWatermarkAlignment(
+                    watermarkConfig.getAlignmentGroup(),
+                    Duration.ofMillis(watermarkConfig.getAlignmentMaxDrift()),
+                    Duration.ofMillis(watermarkConfig.getAlignmentUpdateInterval()));
+        }
+        
+        logger.info("水印策略 - 最大乱序: {}ms, 空闲超时: {}ms, 对齐最大偏差: {}ms",
+                watermarkConfig.getMaxOutOfOrderness(), watermarkConfig.getIdleTimeout(),
+                watermarkConfig.getAlignmentMaxDrift());
+        return strategy;
+    }
+
+    /**
+     * 告警规则Source - 每次启动从最早位置读取，已删除的规则由后续消息覆盖
+     */
+    private static KafkaSource<AlertRule> createAlertRuleSource(FlinkProperties flinkProperties) {
+        FlinkProperties.Kafka kafkaConfig = flinkProperties.getKafka();
+        FlinkProperties.Flink.Alert alertConfig = flinkProperties.getFlink().getAlert();
+        
+        logger.info("告警规则数据源创建完成 - Topic: {}", alertConfig.getRuleTopic());
+        KafkaSourceBuilder<AlertRule> builder = KafkaSource.<AlertRule>builder()
+                .setBootstrapServers(kafkaConfig.getBootstrapServers())
+                .setTopics(alertConfig.getRuleTopic())
+                .setGroupId(kafkaConfig.getGroupId() + "-alert-rules")
+                .setStartingOffsets(OffsetsInitializer.earliest())
+                .setValueOnlyDeserializer(new AlertRuleDeserializationSchema());
+        applyConsumerProperties(builder, kafkaConfig);
+        return builder.build();
+    }
+
+    /**
+     * 告警规则流的水印策略 - 规则没有事件时间，始终发出最大水印，
+     * 使广播输入不会拖住告警算子及下游窗口的水印
+     */
+    static WatermarkStrategy<AlertRule> createAlertRuleWatermarkStrategy() {
+        return WatermarkStrategy.forGenerator(context -> new WatermarkGenerator<AlertRule>() {
+            @Override
+            public void onEvent(AlertRule event, long eventTimestamp, WatermarkOutput output) {
             }
+
+            @Override
+            public void onPeriodicEmit(WatermarkOutput output) {
+                output.emitWatermark(new Watermark(Long.MAX_VALUE));
+            }
+        });
+    }
+
+    /**
+     * 从解析结果构建统计数据流，不包含Source和数据库Sink，也不评估告警
+     */
+    static DataStream<SensorStatistics> buildStatisticsStream(
+            DataStream<Either<DeadLetterRecord, SensorData>> parsedStream, FlinkProperties flinkProperties) {
+        return buildStatisticsStream(parsedStream, null, flinkProperties);
+    }
+
+    /**
+     * 从解析结果构建统计数据流，ruleStream不为null时在窗口聚合前评估告警规则
+     *
+     * <p>parsedStream需已在Source中按 {@link #createSourceWatermarkStrategy} 分配事件时间和水印。
+     */
+    static DataStream<SensorStatistics> buildStatisticsStream(
+            DataStream<Either<DeadLetterRecord, SensorData>> parsedStream, DataStream<AlertRule> ruleStream,
+            FlinkProperties flinkProperties) {
+        
+        // 解析失败的消息进入死信侧输出
+        SingleOutputStreamOperator<SensorData> sensorDataStream = parsedStream
+                .process(new DeadLetterRoutingFunction())
+                .name("Dead Letter Routing");
+        DataStream<DeadLetterRecord> deadLetterStream =
+                sensorDataStream.getSideOutput(DeadLetterRoutingFunction.DEAD_LETTER_TAG);
+        
+        // 补全设备元数据（可选）
+        DataStream<SensorData> enrichedStream = enrichWithDeviceMetadata(sensorDataStream, flinkProperties);
+        
+        // 告警评估（可选），数据原样输出并保持按template_id和device_id分组
+        KeyedStream<SensorData, SensorKey> alertedStream = null;
+        if (ruleStream != null) {
+            alertedStream = evaluateAlerts(enrichedStream, ruleStream, flinkProperties);
         }
+        
+        // 两阶段聚合：告警评估需要逐条数据，预聚合直接从补全后的数据流分出，只重分区部分统计
+        FlinkProperties.Flink.Window windowConfig = flinkProperties.getFlink().getWindow();
+        SingleOutputStreamOperator<SensorStatistics> statisticsStream;
+        DataStream<DeadLetterRecord> lateDataStream;
+        if (flinkProperties.getFlink().getPreAggregation().isEnabled()) {
+            KeyedStream<PreAggregatedStatistics, SensorKey> preAggregatedStream =
+                    preAggregate(enrichedStream, flinkProperties.getFlink())
+                            .keyBy(new PreAggregatedKeySelector());
+            statisticsStream = buildPreAggregatedWindowAggregation(preAggregatedStream, windowConfig);
+            lateDataStream = toLateDataDeadLetters(statisticsStream.getSideOutput(LATE_PRE_AGGREGATED_TAG));
+        } else {
+            // 按template_id和device_id分组
+            KeyedStream<SensorData, SensorKey> keyedStream = alertedStream != null
+                    ? alertedStream
+                    : enrichedStream.keyBy(new SensorDataKeySelector());
+            
+            // 使用滑动窗口进行聚合
+            statisticsStream = buildWindowAggregation(keyedStream, windowConfig);
+            lateDataStream = toLateDataDeadLetters(statisticsStream.getSideOutput(LATE_SENSOR_DATA_TAG));
+        }
+        
+        // 解析失败和超过允许延迟的数据写入同一个死信输出
+        addDeadLetterSink(deadLetterStream.union(lateDataStream), flinkProperties);
+        return statisticsStream;
+    }
+
+    private static <T> DataStream<DeadLetterRecord> toLateDataDeadLetters(DataStream<T> lateStream) {
+        return lateStream
+                .map(new LateDataDeadLetterFunction<T>())
+                .returns(DeadLetterRecord.class)
+                .name("Late Data Routing");
     }
 
     /**
-     * SensorData转换为分组键的映射函数
+     * 本地预聚合，与上游算子链接在同一子任务中，按微批输出每个设备每个窗格的部分统计
      */
-    public static class SensorDataToKeyMapper implements MapFunction<SensorData, Tuple3<String, SensorData, Long>> {
-        @Override
-        public Tuple3<String, SensorData, Long> map(SensorData sensorData) throws Exception {
-            String key = sensorData.getTemplateId() + "_" + sensorData.getDeviceId();
-            return new Tuple3<>(key, sensorData, 1L);
+    private static DataStream<PreAggregatedStatistics> preAggregate(
+            DataStream<SensorData> sensorDataStream, FlinkProperties.Flink flinkConfig) {
+        FlinkProperties.Flink.PreAggregation preAggregationConfig = flinkConfig.getPreAggregation();
+        FlinkProperties.Flink.Window windowConfig = flinkConfig.getWindow();
+        
+        logger.info("启用两阶段聚合 - 微批大小: {}, 微批间隔: {}ms, 热点键阈值: {}",
+                preAggregationConfig.getBatchSize(), preAggregationConfig.getInterval(),
+                preAggregationConfig.getHotKeyThreshold());
+        return sensorDataStream.transform(
+                "Pre Aggregation",
+                TypeInformation.of(PreAggregatedStatistics.class),
+                new PreAggregationOperator(
+                        Time.seconds(windowConfig.getSize()).toMilliseconds(),
+                        Time.seconds(windowConfig.getSlide()).toMilliseconds(),
+                        preAggregationConfig.getBatchSize(),
+                        preAggregationConfig.getInterval(),
+                        preAggregationConfig.getHotKeyThreshold()));
+    }
+
+    /**
+     * 按规则评估告警，告警进入侧输出；数据原样输出，且与窗口聚合使用同一分组，不再重新分区
+     */
+    private static KeyedStream<SensorData, SensorKey> evaluateAlerts(
+            DataStream<SensorData> sensorDataStream, DataStream<AlertRule> ruleStream,
+            FlinkProperties flinkProperties) {
+        SingleOutputStreamOperator<SensorData> evaluatedStream = sensorDataStream
+                .keyBy(new SensorDataKeySelector())
+                .connect(ruleStream.broadcast(AlertEvaluationFunction.RULES_DESCRIPTOR))
+                .process(new AlertEvaluationFunction())
+                .name("Alert Evaluation");
+        addAlertSink(evaluatedStream.getSideOutput(AlertEvaluationFunction.ALERT_TAG), flinkProperties);
+        
+        return DataStreamUtils.reinterpretAsKeyedStream(evaluatedStream, new SensorDataKeySelector());
+    }
+
+    private static DataStream<SensorData> enrichWithDeviceMetadata(
+            DataStream<SensorData> sensorDataStream, FlinkProperties flinkProperties) {
+        FlinkProperties.Flink.Enrichment enrichmentConfig = flinkProperties.getFlink().getEnrichment();
+        if (!enrichmentConfig.isEnabled()) {
+            return sensorDataStream;
         }
+        
+        // 无序输出：只在两个水印之间重排，不影响事件时间窗口
+        return AsyncDataStream.unorderedWait(
+                        sensorDataStream,
+                        new DeviceEnrichmentFunction(flinkProperties),
+                        enrichmentConfig.getTimeout(),
+                        TimeUnit.MILLISECONDS,
+                        enrichmentConfig.getCapacity())
+                .name("Device Enrichment");
     }
 
     /**
-     * 数据计数聚合函数
+     * 逐条记录的窗口聚合；允许延迟大于0时窗口输出后清空累加器，迟到记录以增量输出
      */
-    public static class DataCountReducer implements ReduceFunction<Tuple3<String, SensorData, Long>> {
-        @Override
-        public Tuple3<String, SensorData, Long> reduce(Tuple3<String, SensorData, Long> value1,
-                                                       Tuple3<String, SensorData, Long> value2) throws Exception {
-            return new Tuple3<>(value1.f0, value1.f1, value1.f2 + value2.f2);
+    private static SingleOutputStreamOperator<SensorStatistics> buildWindowAggregation(
+            KeyedStream<SensorData, SensorKey> keyedStream, FlinkProperties.Flink.Window windowConfig) {
+        String engine = windowConfig.getEngine();
+        long allowedLateness = Time.seconds(windowConfig.getAllowedLateness()).toMilliseconds();
+        
+        if ("native".equalsIgnoreCase(engine)) {
+            // Flink滑动窗口，每条记录写入 size/slide 个窗口
+            WindowedStream<SensorData, SensorKey, TimeWindow> windowedStream = keyedStream
+                    .window(SlidingEventTimeWindows.of(
+                            Time.seconds(windowConfig.getSize()),
+                            Time.seconds(windowConfig.getSlide())))
+                    .sideOutputLateData(LATE_SENSOR_DATA_TAG);
+            if (allowedLateness > 0) {
+                return windowedStream
+                        .allowedLateness(Time.milliseconds(allowedLateness))
+                        .trigger(new DeltaEventTimeTrigger())
+                        .aggregate(new SensorStatisticsAggregateFunction(), new DeltaStatisticsWindowFunction())
+                        .name("Window Aggregation");
+            }
+            return windowedStream
+                    .aggregate(new SensorStatisticsAggregateFunction(), new StatisticsWindowFunction())
+                    .name("Window Aggregation");
+        } else if ("pane".equalsIgnoreCase(engine)) {
+            // 窗格共享的滑动窗口，每条记录只写入一个窗格
+            return keyedStream
+                    .process(PaneSlidingWindowFunction.forSensorData(
+                            Time.seconds(windowConfig.getSize()).toMilliseconds(),
+                            Time.seconds(windowConfig.getSlide()).toMilliseconds(),
+                            allowedLateness,
+                            LATE_SENSOR_DATA_TAG))
+                    .name("Window Aggregation");
+        } else {
+            throw new IllegalArgumentException("不支持的窗口引擎: " + engine);
         }
     }
 
     /**
-     * 窗口统计函数
+     * 两阶段聚合的窗口阶段，合并部分统计，输出与逐条聚合相同
      */
-    public static class StatisticsWindowFunction implements 
-            org.apache.flink.streaming.api.functions.windowing.WindowFunction<
-                    Tuple3<String, SensorData, Long>, SensorStatistics, String,
-                    org.apache.flink.streaming.api.windowing.windows.TimeWindow> {
+    private static SingleOutputStreamOperator<SensorStatistics> buildPreAggregatedWindowAggregation(
+            KeyedStream<PreAggregatedStatistics, SensorKey> keyedStream, FlinkProperties.Flink.Window windowConfig) {
+        String engine = windowConfig.getEngine();
+        long allowedLateness = Time.seconds(windowConfig.getAllowedLateness()).toMilliseconds();
         
-        @Override
-        public void apply(String key, 
-                         org.apache.flink.streaming.api.windowing.windows.TimeWindow window,
-                         Iterable<Tuple3<String, SensorData, Long>> input,
-                         org.apache.flink.util.Collector<SensorStatistics> out) throws Exception {
-            
-            Tuple3<String, SensorData, Long> result = input.iterator().next();
-            SensorData sampleData = result.f1;
-            Long count = result.f2;
-            
-            LocalDateTime windowStart = LocalDateTime.ofInstant(
-                    java.time.Instant.ofEpochMilli(window.getStart()), ZoneOffset.UTC);
-            LocalDateTime windowEnd = LocalDateTime.ofInstant(
-                    java.time.Instant.ofEpochMilli(window.getEnd()), ZoneOffset.UTC);
-            
-            SensorStatistics statistics = new SensorStatistics(
-                    sampleData.getTemplateId(),
-                    sampleData.getDeviceId(),
-                    count,
-                    windowStart,
-                    windowEnd
-            );
-            
-            out.collect(statistics);
+        if ("native".equalsIgnoreCase(engine)) {
+            WindowedStream<PreAggregatedStatistics, SensorKey, TimeWindow> windowedStream = keyedStream
+                    .window(SlidingEventTimeWindows.of(
+                            Time.seconds(windowConfig.getSize()),
+                            Time.seconds(windowConfig.getSlide())))
+                    .sideOutputLateData(LATE_PRE_AGGREGATED_TAG);
+            if (allowedLateness > 0) {
+                return windowedStream
+                        .allowedLateness(Time.milliseconds(allowedLateness))
+                        .trigger(new DeltaEventTimeTrigger())
+                        .aggregate(new PreAggregatedStatisticsAggregateFunction(), new DeltaStatisticsWindowFunction())
+                        .name("Window Aggregation");
+            }
+            return windowedStream
+                    .aggregate(new PreAggregatedStatisticsAggregateFunction(), new StatisticsWindowFunction())
+                    .name("Window Aggregation");
+        } else if ("pane".equalsIgnoreCase(engine)) {
+            return keyedStream
+                    .process(PaneSlidingWindowFunction.forPreAggregated(
+                            Time.seconds(windowConfig.getSize()).toMilliseconds(),
+                            Time.seconds(windowConfig.getSlide()).toMilliseconds(),
+                            allowedLateness,
+                            LATE_PRE_AGGREGATED_TAG))
+                    .name("Window Aggregation");
+        } else {
+            throw new IllegalArgumentException("不支持的窗口引擎: " + engine);
         }
     }
 
     /**
-     * 数据库写入Sink函数
+     * 逐级汇总：小时汇总只合并起始时间为窗口大小整数倍的窗口结果，这些窗口互不重叠且正好铺满每个小时；
+     * 天汇总合并小时汇总。每一级都只合并下一级的部分统计，迟到增量同样逐级传递为增量。
+     *
+     * @return 汇总表名到汇总数据流的映射，只包含开启的级别
      */
-    public static class DatabaseSinkFunction extends RichSinkFunction<SensorStatistics> {
+    static Map<String, DataStream<SensorStatistics>> buildRollupStreams(
+            DataStream<SensorStatistics> statisticsStream, FlinkProperties.Flink.Window windowConfig) {
+        Map<String, DataStream<SensorStatistics>> rollupStreams = new LinkedHashMap<>();
+        FlinkProperties.Flink.Window.Rollup rollupConfig = windowConfig.getRollup();
+        if (!rollupConfig.isHourly() && !rollupConfig.isDaily()) {
+            return rollupStreams;
+        }
         
-        private DatabaseService databaseService;
-        private ConfigurableApplicationContext context;
+        long size = Time.seconds(windowConfig.getSize()).toMilliseconds();
+        long slide = Time.seconds(windowConfig.getSlide()).toMilliseconds();
+        if (size % slide != 0 || Time.hours(1).toMilliseconds() % size != 0) {
+            throw new IllegalArgumentException("逐级汇总要求窗口大小为滑动间隔的整数倍且能整除1小时 - size: "
+                    + windowConfig.getSize() + ", slide: " + windowConfig.getSlide());
+        }
+        long allowedLateness = Time.seconds(windowConfig.getAllowedLateness()).toMilliseconds();
         
-        public DatabaseSinkFunction(ConfigurableApplicationContext context) {
-            this.context = context;
+        DataStream<SensorStatistics> tumblingStream = statisticsStream
+                .filter(statistics -> statistics.getWindowStart() % size == 0)
+                .name("Rollup Input");
+        DataStream<SensorStatistics> hourlyStream =
+                buildRollup(tumblingStream, Time.hours(1), allowedLateness, "Hourly Rollup");
+        if (rollupConfig.isHourly()) {
+            rollupStreams.put(DatabaseService.HOURLY_TABLE, hourlyStream);
+        }
+        if (rollupConfig.isDaily()) {
+            rollupStreams.put(DatabaseService.DAILY_TABLE,
+                    buildRollup(hourlyStream, Time.days(1), allowedLateness, "Daily Rollup"));
         }
         
+        logger.info("启用逐级汇总 - 汇总表: {}", rollupStreams.keySet());
+        return rollupStreams;
+    }
+
+    /**
+     * 一级汇总：按分组键和UTC对齐的滚动窗口合并下一级的统计结果。下一级结果的时间戳落在它自己的窗口内，
+     * 因此总是分配到包含该窗口的汇总窗口；允许延迟与窗口聚合相同，下一级的迟到增量在汇总级别仍在允许延迟内
+     */
+    private static SingleOutputStreamOperator<SensorStatistics> buildRollup(
+            DataStream<SensorStatistics> statisticsStream, Time size, long allowedLateness, String name) {
+        WindowedStream<SensorStatistics, SensorKey, TimeWindow> windowedStream = statisticsStream
+                .keyBy(new SensorStatisticsKeySelector())
+                .window(TumblingEventTimeWindows.of(size));
+        if (allowedLateness > 0) {
+            return windowedStream
+                    .allowedLateness(Time.milliseconds(allowedLateness))
+                    .trigger(new DeltaEventTimeTrigger())
+                    .aggregate(new RollupAggregateFunction(), new DeltaStatisticsWindowFunction())
+                    .name(name);
+        }
+        return windowedStream
+                .aggregate(new RollupAggregateFunction(), new StatisticsWindowFunction())
+                .name(name);
+    }
+
+    private static void initializeRollupTables(DataSource dataSource, FlinkProperties flinkProperties) {
+        FlinkProperties.Flink.Window.Rollup rollupConfig = flinkProperties.getFlink().getWindow().getRollup();
+        if (rollupConfig.isHourly()) {
+            new DatabaseService(dataSource, flinkProperties, DatabaseService.HOURLY_TABLE).initializeDatabase();
+        }
+        if (rollupConfig.isDaily()) {
+            new DatabaseService(dataSource, flinkProperties, DatabaseService.DAILY_TABLE).initializeDatabase();
+        }
+    }
+
+    static SinkFunction<SensorStatistics> createDatabaseSink(FlinkProperties flinkProperties) {
+        return createDatabaseSink(flinkProperties, DatabaseService.STATISTICS_TABLE);
+    }
+
+    static SinkFunction<SensorStatistics> createDatabaseSink(FlinkProperties flinkProperties, String tableName) {
+        String sinkMode = flinkProperties.getFlink().getSink().getMode();
+        
+        if ("buffered".equalsIgnoreCase(sinkMode)) {
+            // 缓冲后批量写入，至少一次
+            return new BufferedDatabaseSinkFunction(flinkProperties, tableName);
+        } else if ("exactly-once".equalsIgnoreCase(sinkMode)) {
+            // 每个检查点提交一个数据库事务，精确一次
+            return new TransactionalDatabaseSinkFunction(flinkProperties, tableName);
+        } else {
+            throw new IllegalArgumentException("不支持的Sink模式: " + sinkMode);
+        }
+    }
+
+    private static void addDeadLetterSink(DataStream<DeadLetterRecord> deadLetterStream,
+                                          FlinkProperties flinkProperties) {
+        FlinkProperties.Flink.DeadLetter deadLetterConfig = flinkProperties.getFlink().getDeadLetter();
+        String mode = deadLetterConfig.getMode();
+        
+        if ("log".equalsIgnoreCase(mode)) {
+            // 写入本地dead-letter日志文件
+            deadLetterStream.addSink(new DeadLetterLogSinkFunction())
+                    .name("Dead Letter Sink");
+        } else if ("kafka".equalsIgnoreCase(mode)) {
+            // 写入死信Topic
+            KafkaSink<DeadLetterRecord> kafkaSink = KafkaSink.<DeadLetterRecord>builder()
+                    .setBootstrapServers(flinkProperties.getKafka().getBootstrapServers())
+                    .setRecordSerializer(KafkaRecordSerializationSchema.<DeadLetterRecord>builder()
+                            .setTopic(deadLetterConfig.getTopic())
+                            .setValueSerializationSchema(new DeadLetterSerializationSchema())
+                            .build())
+                    .setDeliveryGuarantee(DeliveryGuarantee.AT_LEAST_ONCE)
+                    .build();
+            deadLetterStream.sinkTo(kafkaSink)
+                    .name("Dead Letter Sink");
+        } else {
+            throw new IllegalArgumentException("不支持的死信输出模式: " + mode);
+        }
+    }
+
+    private static void addAlertSink(DataStream<Alert> alertStream, FlinkProperties flinkProperties) {
+        FlinkProperties.Flink.Alert alertConfig = flinkProperties.getFlink().getAlert();
+        String mode = alertConfig.getMode();
+        
+        if ("log".equalsIgnoreCase(mode)) {
+            // 写入本地alert日志文件
+            alertStream.addSink(new AlertLogSinkFunction())
+                    .name("Alert Sink");
+        } else if ("kafka".equalsIgnoreCase(mode)) {
+            // 写入告警Topic
+            KafkaSink<Alert> kafkaSink = KafkaSink.<Alert>builder()
+                    .setBootstrapServers(flinkProperties.getKafka().getBootstrapServers())
+                    .setRecordSerializer(KafkaRecordSerializationSchema.<Alert>builder()
+                            .setTopic(alertConfig.getTopic())
+                            .setValueSerializationSchema(new AlertSerializationSchema())
+                            .build())
+                    .setDeliveryGuarantee(DeliveryGuarantee.AT_LEAST_ONCE)
+                    .build();
+            alertStream.sinkTo(kafkaSink)
+                    .name("Alert Sink");
+        } else {
+            throw new IllegalArgumentException("不支持的告警输出模式: " + mode);
+        }
+    }
+
+    /**
+     * 分组键选择器 - 按template_id和device_id组合分组
+     */
+    public static class SensorDataKeySelector implements KeySelector<SensorData, SensorKey> {
+        @Override
+        public SensorKey getKey(SensorData sensorData) throws Exception {
+            return SensorKey.of(sensorData);
+        }
+    }
+
+    /**
+     * 统计结果的分组键选择器，用于逐级汇总，与 {@link SensorDataKeySelector} 分组一致
+     */
+    public static class SensorStatisticsKeySelector implements KeySelector<SensorStatistics, SensorKey> {
         @Override
-        public void open(Configuration parameters) throws Exception {
+        public SensorKey getKey(SensorStatistics statistics) throws Exception {
+            return new SensorKey(statistics.getTemplateId(), statistics.getDeviceId());
+        }
+    }
+
+    /**
+     * 部分统计的分组键选择器，与 {@link SensorDataKeySelector} 分组一致
+     */
+    public static class PreAggregatedKeySelector implements KeySelector<PreAggregatedStatistics, SensorKey> {
+        @Override
+        public SensorKey getKey(PreAggregatedStatistics partial) throws Exception {
+            return new SensorKey(partial.getTemplateId(), partial.getDeviceId());
+        }
+    }
+
+    /**
+     * 窗口统计函数，输出条数记录在 windowResults 计数器
+     */
+    public static class StatisticsWindowFunction extends
+            org.apache.flink.streaming.api.functions.windowing.RichWindowFunction<
+                    SensorStatisticsAccumulator, SensorStatistics, SensorKey,
+                    org.apache.flink.streaming.api.windowing.windows.TimeWindow> {
+        
+        private transient org.apache.flink.metrics.Counter windowResults;
+        
+        @Override
+        public void open(org.apache.flink.configuration.Configuration parameters) throws Exception {
             super.open(parameters);
-            this.databaseService = context.getBean(DatabaseService.class);
+            windowResults = getRuntimeContext().getMetricGroup().counter("windowResults");
         }
         
         @Override
-        public void invoke(SensorStatistics statistics, Context context) throws Exception {
-            try {
-                statistics.setUpdatedTime(LocalDateTime.now());
-                databaseService.upsertStatistics(statistics);
-                logger.debug("统计数据写入成功: {}", statistics);
-            } catch (Exception e) {
-                logger.error("统计数据写入失败: {}", statistics, e);
-                throw e;
-            }
+        public void apply(SensorKey key, 
+                         org.apache.flink.streaming.api.windowing.windows.TimeWindow window,
+                         Iterable<SensorStatisticsAccumulator> input,
+                         org.apache.flink.util.Collector<SensorStatistics> out) throws Exception {
+            
+            SensorStatisticsAccumulator accumulator = input.iterator().next();
+            out.collect(accumulator.toStatistics(key, window.getStart(), window.getEnd()));
+            windowResults.inc();
         }
     }
-} 
\ No newline at end of file
+}
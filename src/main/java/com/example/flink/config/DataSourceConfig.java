@@ -1,7 +1,9 @@
 package com.example.flink.config;
 
+import com.example.flink.metrics.HikariMetricsTrackerFactory;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.apache.flink.metrics.MetricGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +25,20 @@ public class DataSourceConfig {
 
     @Bean
     public DataSource dataSource() {
+        return createDataSource(flinkProperties);
+    }
+
+    /**
+     * 根据配置创建Hikari连接池，供Spring容器和Flink算子（在TaskManager上）共用
+     */
+    public static HikariDataSource createDataSource(FlinkProperties flinkProperties) {
+        return createDataSource(flinkProperties, null);
+    }
+
+    /**
+     * 创建Hikari连接池，并把连接池指标注册到给定的Flink指标组（为null时不注册）
+     */
+    public static HikariDataSource createDataSource(FlinkProperties flinkProperties, MetricGroup metricGroup) {
         String databaseType = flinkProperties.getDatabase().getType();
         
         logger.info("初始化数据源，数据库类型: {}", databaseType);
@@ -47,6 +63,10 @@ public class DataSourceConfig {
             config.addDataSourceProperty("cacheServerConfiguration", "true");
             config.addDataSourceProperty("elideSetAutoCommits", "true");
             config.addDataSourceProperty("maintainTimeStats", "false");
+            if ("load-data".equalsIgnoreCase(mysql.getWriteMode())) {
+                // LOAD DATA LOCAL INFILE写入，数据来自内存中的输入流
+                config.addDataSourceProperty("allowLoadLocalInfile", "true");
+            }
             
             // Hikari连接池配置
             setHikariConfig(config, mysql.getHikari());
@@ -71,12 +91,15 @@ public class DataSourceConfig {
         }
 
         config.setPoolName("FlinkTemplateHikariCP");
+        if (metricGroup != null) {
+            config.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(metricGroup));
+        }
         
         logger.info("数据源配置完成: {}", config.getJdbcUrl());
         return new HikariDataSource(config);
     }
 
-    private void setHikariConfig(HikariConfig config, FlinkProperties.Database.Hikari hikariProps) {
+    private static void setHikariConfig(HikariConfig config, FlinkProperties.Database.Hikari hikariProps) {
         config.setMaximumPoolSize(hikariProps.getMaximumPoolSize());
         config.setMinimumIdle(hikariProps.getMinimumIdle());
         config.setConnectionTimeout(hikariProps.getConnectionTimeout());
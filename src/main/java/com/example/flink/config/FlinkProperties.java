@@ -3,23 +3,41 @@ package com.example.flink.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Flink配置属性类
  */
 @Component
 @ConfigurationProperties(prefix = "")
-public class FlinkProperties {
+public class FlinkProperties implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Kafka kafka = new Kafka();
     private Database database = new Database();
     private Flink flink = new Flink();
 
-    public static class Kafka {
+    public static class Kafka implements Serializable {
         private String bootstrapServers;
         private String topic;
         private String groupId;
         private String autoOffsetReset;
+        /** 无状态启动时的起始位置: committed, earliest, latest, timestamp；从检查点恢复时始终使用检查点中的位置 */
+        private String startingOffsets = "committed";
+        /** startingOffsets为timestamp时的起始时间戳（毫秒） */
+        private long startingTimestamp;
+        /** 分区发现间隔（毫秒），0表示不发现新分区 */
+        private long partitionDiscoveryInterval = 60000;
+        /** 检查点完成时把位置提交回Kafka，committed启动和外部Lag监控依赖该位置 */
+        private boolean commitOffsetsOnCheckpoint = true;
+        /** 透传给KafkaConsumer的属性，如 fetch.min.bytes、max.poll.records */
+        private Map<String, String> properties = new LinkedHashMap<>();
+        /** KafkaSource固定按字节读取并由反序列化Schema解析，该配置不生效 */
         private String keyDeserializer;
+        /** KafkaSource固定按字节读取并由反序列化Schema解析，该配置不生效 */
         private String valueDeserializer;
 
         // Getters and Setters
@@ -55,6 +73,46 @@ public class FlinkProperties {
             this.autoOffsetReset = autoOffsetReset;
         }
 
+        public String getStartingOffsets() {
+            return startingOffsets;
+        }
+
+        public void setStartingOffsets(String startingOffsets) {
+            this.startingOffsets = startingOffsets;
+        }
+
+        public long getStartingTimestamp() {
+            return startingTimestamp;
+        }
+
+        public void setStartingTimestamp(long startingTimestamp) {
+            this.startingTimestamp = startingTimestamp;
+        }
+
+        public long getPartitionDiscoveryInterval() {
+            return partitionDiscoveryInterval;
+        }
+
+        public void setPartitionDiscoveryInterval(long partitionDiscoveryInterval) {
+            this.partitionDiscoveryInterval = partitionDiscoveryInterval;
+        }
+
+        public boolean isCommitOffsetsOnCheckpoint() {
+            return commitOffsetsOnCheckpoint;
+        }
+
+        public void setCommitOffsetsOnCheckpoint(boolean commitOffsetsOnCheckpoint) {
+            this.commitOffsetsOnCheckpoint = commitOffsetsOnCheckpoint;
+        }
+
+        public Map<String, String> getProperties() {
+            return properties;
+        }
+
+        public void setProperties(Map<String, String> properties) {
+            this.properties = properties;
+        }
+
         public String getKeyDeserializer() {
             return keyDeserializer;
         }
@@ -72,16 +130,19 @@ public class FlinkProperties {
         }
     }
 
-    public static class Database {
+    public static class Database implements Serializable {
         private String type;
         private MySQL mysql = new MySQL();
         private PostgreSQL postgresql = new PostgreSQL();
+        private Partitioning partitioning = new Partitioning();
 
-        public static class MySQL {
+        public static class MySQL implements Serializable {
             private String driverClassName;
             private String url;
             private String username;
             private String password;
+            /** 批量写入方式: batch（逐条绑定的批量upsert）, multi-row（多行VALUES语句）, load-data（LOAD DATA LOCAL INFILE到临时表后合并） */
+            private String writeMode = "batch";
             private Hikari hikari = new Hikari();
 
             // Getters and Setters
@@ -117,6 +178,14 @@ public class FlinkProperties {
                 this.password = password;
             }
 
+            public String getWriteMode() {
+                return writeMode;
+            }
+
+            public void setWriteMode(String writeMode) {
+                this.writeMode = writeMode;
+            }
+
             public Hikari getHikari() {
                 return hikari;
             }
@@ -126,11 +195,13 @@ public class FlinkProperties {
             }
         }
 
-        public static class PostgreSQL {
+        public static class PostgreSQL implements Serializable {
             private String driverClassName;
             private String url;
             private String username;
             private String password;
+            /** 批量写入方式: upsert（批量INSERT ... ON CONFLICT）, copy（COPY到临时表后一次合并） */
+            private String writeMode = "upsert";
             private Hikari hikari = new Hikari();
 
             // Getters and Setters with same structure as MySQL
@@ -166,6 +237,14 @@ public class FlinkProperties {
                 this.password = password;
             }
 
+            public String getWriteMode() {
+                return writeMode;
+            }
+
+            public void setWriteMode(String writeMode) {
+                this.writeMode = writeMode;
+            }
+
             public Hikari getHikari() {
                 return hikari;
             }
@@ -175,7 +254,7 @@ public class FlinkProperties {
             }
         }
 
-        public static class Hikari {
+        public static class Hikari implements Serializable {
             private int maximumPoolSize = 20;
             private int minimumIdle = 5;
             private long connectionTimeout = 30000;
@@ -224,6 +303,61 @@ public class FlinkProperties {
             }
         }
 
+        /**
+         * sensor_statistics按window_start分区，仅对新建的表生效
+         */
+        public static class Partitioning implements Serializable {
+            private boolean enabled = false;
+            /** 分区粒度: day, month */
+            private String interval = "day";
+            /** 预建的未来分区数（不含当前分区） */
+            private int futurePartitions = 7;
+            /** 分区结束时间早于该天数之前时删除分区，0表示不删除 */
+            private int retentionDays = 0;
+            private long maintenanceInterval = 3600000;
+
+            // Getters and Setters
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getInterval() {
+                return interval;
+            }
+
+            public void setInterval(String interval) {
+                this.interval = interval;
+            }
+
+            public int getFuturePartitions() {
+                return futurePartitions;
+            }
+
+            public void setFuturePartitions(int futurePartitions) {
+                this.futurePartitions = futurePartitions;
+            }
+
+            public int getRetentionDays() {
+                return retentionDays;
+            }
+
+            public void setRetentionDays(int retentionDays) {
+                this.retentionDays = retentionDays;
+            }
+
+            public long getMaintenanceInterval() {
+                return maintenanceInterval;
+            }
+
+            public void setMaintenanceInterval(long maintenanceInterval) {
+                this.maintenanceInterval = maintenanceInterval;
+            }
+        }
+
         // Getters and Setters
         public String getType() {
             return type;
@@ -248,17 +382,39 @@ public class FlinkProperties {
         public void setPostgresql(PostgreSQL postgresql) {
             this.postgresql = postgresql;
         }
+
+        public Partitioning getPartitioning() {
+            return partitioning;
+        }
+
+        public void setPartitioning(Partitioning partitioning) {
+            this.partitioning = partitioning;
+        }
     }
 
-    public static class Flink {
+    public static class Flink implements Serializable {
         private int parallelism = 2;
         private Checkpoint checkpoint = new Checkpoint();
+        private StateBackend stateBackend = new StateBackend();
+        private Watermark watermark = new Watermark();
         private Window window = new Window();
-
-        public static class Checkpoint {
+        private PreAggregation preAggregation = new PreAggregation();
+        private Sink sink = new Sink();
+        private DeadLetter deadLetter = new DeadLetter();
+        private Enrichment enrichment = new Enrichment();
+        private Alert alert = new Alert();
+        private Serving serving = new Serving();
+
+        public static class Checkpoint implements Serializable {
             private long interval = 60000;
             private long timeout = 30000;
             private String mode = "EXACTLY_ONCE";
+            private long minPause = 5000;
+            private int maxConcurrent = 1;
+            private int tolerableFailures = 3;
+            private String storage;
+            private boolean unaligned = false;
+            private long alignedTimeout = 0;
 
             // Getters and Setters
             public long getInterval() {
@@ -284,11 +440,243 @@ public class FlinkProperties {
             public void setMode(String mode) {
                 this.mode = mode;
             }
+
+            public long getMinPause() {
+                return minPause;
+            }
+
+            public void setMinPause(long minPause) {
+                this.minPause = minPause;
+            }
+
+            public int getMaxConcurrent() {
+                return maxConcurrent;
+            }
+
+            public void setMaxConcurrent(int maxConcurrent) {
+                this.maxConcurrent = maxConcurrent;
+            }
+
+            public int getTolerableFailures() {
+                return tolerableFailures;
+            }
+
+            public void setTolerableFailures(int tolerableFailures) {
+                this.tolerableFailures = tolerableFailures;
+            }
+
+            public String getStorage() {
+                return storage;
+            }
+
+            public void setStorage(String storage) {
+                this.storage = storage;
+            }
+
+            public boolean isUnaligned() {
+                return unaligned;
+            }
+
+            public void setUnaligned(boolean unaligned) {
+                this.unaligned = unaligned;
+            }
+
+            public long getAlignedTimeout() {
+                return alignedTimeout;
+            }
+
+            public void setAlignedTimeout(long alignedTimeout) {
+                this.alignedTimeout = alignedTimeout;
+            }
+        }
+
+        public static class StateBackend implements Serializable {
+            private String type = "rocksdb";
+            private boolean incremental = true;
+            private boolean localRecovery = false;
+            private RocksDB rocksdb = new RocksDB();
+
+            public static class RocksDB implements Serializable {
+                private String predefinedOptions = "DEFAULT";
+                private boolean managedMemory = true;
+                private String fixedMemoryPerSlot;
+                private double writeBufferRatio = 0.5;
+                private double highPriorityPoolRatio = 0.1;
+                private String timerService = "ROCKSDB";
+                private int transferThreads = 4;
+
+                // Getters and Setters
+                public String getPredefinedOptions() {
+                    return predefinedOptions;
+                }
+
+                public void setPredefinedOptions(String predefinedOptions) {
+                    this.predefinedOptions = predefinedOptions;
+                }
+
+                public boolean isManagedMemory() {
+                    return managedMemory;
+                }
+
+                public void setManagedMemory(boolean managedMemory) {
+                    this.managedMemory = managedMemory;
+                }
+
+                public String getFixedMemoryPerSlot() {
+                    return fixedMemoryPerSlot;
+                }
+
+                public void setFixedMemoryPerSlot(String fixedMemoryPerSlot) {
+                    this.fixedMemoryPerSlot = fixedMemoryPerSlot;
+                }
+
+                public double getWriteBufferRatio() {
+                    return writeBufferRatio;
+                }
+
+                public void setWriteBufferRatio(double writeBufferRatio) {
+                    this.writeBufferRatio = writeBufferRatio;
+                }
+
+                public double getHighPriorityPoolRatio() {
+                    return highPriorityPoolRatio;
+                }
+
+                public void setHighPriorityPoolRatio(double highPriorityPoolRatio) {
+                    this.highPriorityPoolRatio = highPriorityPoolRatio;
+                }
+
+                public String getTimerService() {
+                    return timerService;
+                }
+
+                public void setTimerService(String timerService) {
+                    this.timerService = timerService;
+                }
+
+                public int getTransferThreads() {
+                    return transferThreads;
+                }
+
+                public void setTransferThreads(int transferThreads) {
+                    this.transferThreads = transferThreads;
+                }
+            }
+
+            // Getters and Setters
+            public String getType() {
+                return type;
+            }
+
+            public void setType(String type) {
+                this.type = type;
+            }
+
+            public boolean isIncremental() {
+                return incremental;
+            }
+
+            public void setIncremental(boolean incremental) {
+                this.incremental = incremental;
+            }
+
+            public boolean isLocalRecovery() {
+                return localRecovery;
+            }
+
+            public void setLocalRecovery(boolean localRecovery) {
+                this.localRecovery = localRecovery;
+            }
+
+            public RocksDB getRocksdb() {
+                return rocksdb;
+            }
+
+            public void setRocksdb(RocksDB rocksdb) {
+                this.rocksdb = rocksdb;
+            }
+        }
+
+        public static class Watermark implements Serializable {
+            private long maxOutOfOrderness = 10000;
+            private long idleTimeout = 60000;
+            private String alignmentGroup = "sensor-data";
+            private long alignmentMaxDrift = 0;
+            private long alignmentUpdateInterval = 1000;
+
+            // Getters and Setters
+            public long getMaxOutOfOrderness() {
+                return maxOutOfOrderness;
+            }
+
+            public void setMaxOutOfOrderness(long maxOutOfOrderness) {
+                this.maxOutOfOrderness = maxOutOfOrderness;
+            }
+
+            public long getIdleTimeout() {
+                return idleTimeout;
+            }
+
+            public void setIdleTimeout(long idleTimeout) {
+                this.idleTimeout = idleTimeout;
+            }
+
+            public String getAlignmentGroup() {
+                return alignmentGroup;
+            }
+
+            public void setAlignmentGroup(String alignmentGroup) {
+                this.alignmentGroup = alignmentGroup;
+            }
+
+            public long getAlignmentMaxDrift() {
+                return alignmentMaxDrift;
+            }
+
+            public void setAlignmentMaxDrift(long alignmentMaxDrift) {
+                this.alignmentMaxDrift = alignmentMaxDrift;
+            }
+
+            public long getAlignmentUpdateInterval() {
+                return alignmentUpdateInterval;
+            }
+
+            public void setAlignmentUpdateInterval(long alignmentUpdateInterval) {
+                this.alignmentUpdateInterval = alignmentUpdateInterval;
+            }
         }
 
-        public static class Window {
+        public static class Window implements Serializable {
             private int size = 60;
             private int slide = 30;
+            private String engine = "native";
+            private int allowedLateness = 0;
+            private Rollup rollup = new Rollup();
+
+            /**
+             * 逐级汇总：小时汇总合并互不重叠的窗口结果，天汇总合并小时汇总，分别写入各自的表
+             */
+            public static class Rollup implements Serializable {
+                private boolean hourly = false;
+                private boolean daily = false;
+
+                // Getters and Setters
+                public boolean isHourly() {
+                    return hourly;
+                }
+
+                public void setHourly(boolean hourly) {
+                    this.hourly = hourly;
+                }
+
+                public boolean isDaily() {
+                    return daily;
+                }
+
+                public void setDaily(boolean daily) {
+                    this.daily = daily;
+                }
+            }
 
             // Getters and Setters
             public int getSize() {
@@ -306,6 +694,297 @@ public class FlinkProperties {
             public void setSlide(int slide) {
                 this.slide = slide;
             }
+
+            public String getEngine() {
+                return engine;
+            }
+
+            public void setEngine(String engine) {
+                this.engine = engine;
+            }
+
+            public int getAllowedLateness() {
+                return allowedLateness;
+            }
+
+            public void setAllowedLateness(int allowedLateness) {
+                this.allowedLateness = allowedLateness;
+            }
+
+            public Rollup getRollup() {
+                return rollup;
+            }
+
+            public void setRollup(Rollup rollup) {
+                this.rollup = rollup;
+            }
+        }
+
+        public static class PreAggregation implements Serializable {
+            private boolean enabled = false;
+            private int batchSize = 10000;
+            private long interval = 200;
+            private long hotKeyThreshold = 1000;
+
+            // Getters and Setters
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getInterval() {
+                return interval;
+            }
+
+            public void setInterval(long interval) {
+                this.interval = interval;
+            }
+
+            public long getHotKeyThreshold() {
+                return hotKeyThreshold;
+            }
+
+            public void setHotKeyThreshold(long hotKeyThreshold) {
+                this.hotKeyThreshold = hotKeyThreshold;
+            }
+        }
+
+        public static class Sink implements Serializable {
+            private String mode = "buffered";
+            private int batchSize = 1000;
+            private long flushInterval = 1000;
+            private int maxRetries = 3;
+            private boolean coalesce = true;
+            private long transactionRetention = 604800000;
+
+            // Getters and Setters
+            public String getMode() {
+                return mode;
+            }
+
+            public void setMode(String mode) {
+                this.mode = mode;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getFlushInterval() {
+                return flushInterval;
+            }
+
+            public void setFlushInterval(long flushInterval) {
+                this.flushInterval = flushInterval;
+            }
+
+            public int getMaxRetries() {
+                return maxRetries;
+            }
+
+            public void setMaxRetries(int maxRetries) {
+                this.maxRetries = maxRetries;
+            }
+
+            public boolean isCoalesce() {
+                return coalesce;
+            }
+
+            public void setCoalesce(boolean coalesce) {
+                this.coalesce = coalesce;
+            }
+
+            public long getTransactionRetention() {
+                return transactionRetention;
+            }
+
+            public void setTransactionRetention(long transactionRetention) {
+                this.transactionRetention = transactionRetention;
+            }
+        }
+
+        public static class DeadLetter implements Serializable {
+            private String mode = "log";
+            private String topic = "sensor_data_dlq";
+
+            // Getters and Setters
+            public String getMode() {
+                return mode;
+            }
+
+            public void setMode(String mode) {
+                this.mode = mode;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+        }
+
+        public static class Enrichment implements Serializable {
+            private boolean enabled = false;
+            private int cacheSize = 100000;
+            private long cacheTtl = 600000;
+            private int batchSize = 200;
+            private long timeout = 5000;
+            private int capacity = 1000;
+
+            // Getters and Setters
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getCacheSize() {
+                return cacheSize;
+            }
+
+            public void setCacheSize(int cacheSize) {
+                this.cacheSize = cacheSize;
+            }
+
+            public long getCacheTtl() {
+                return cacheTtl;
+            }
+
+            public void setCacheTtl(long cacheTtl) {
+                this.cacheTtl = cacheTtl;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(long timeout) {
+                this.timeout = timeout;
+            }
+
+            public int getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
+            }
+        }
+
+        public static class Alert implements Serializable {
+            private boolean enabled = false;
+            private String ruleTopic = "sensor_alert_rules";
+            private String mode = "log";
+            private String topic = "sensor_alerts";
+
+            // Getters and Setters
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getRuleTopic() {
+                return ruleTopic;
+            }
+
+            public void setRuleTopic(String ruleTopic) {
+                this.ruleTopic = ruleTopic;
+            }
+
+            public String getMode() {
+                return mode;
+            }
+
+            public void setMode(String mode) {
+                this.mode = mode;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+        }
+
+        public static class Serving implements Serializable {
+            private boolean enabled = false;
+            private String host = "0.0.0.0";
+            private int port = 8090;
+            private int threads = 2;
+            private int parallelism = 1;
+
+            // Getters and Setters
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getHost() {
+                return host;
+            }
+
+            public void setHost(String host) {
+                this.host = host;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getParallelism() {
+                return parallelism;
+            }
+
+            public void setParallelism(int parallelism) {
+                this.parallelism = parallelism;
+            }
         }
 
         // Getters and Setters
@@ -325,6 +1004,22 @@ public class FlinkProperties {
             this.checkpoint = checkpoint;
         }
 
+        public StateBackend getStateBackend() {
+            return stateBackend;
+        }
+
+        public void setStateBackend(StateBackend stateBackend) {
+            this.stateBackend = stateBackend;
+        }
+
+        public Watermark getWatermark() {
+            return watermark;
+        }
+
+        public void setWatermark(Watermark watermark) {
+            this.watermark = watermark;
+        }
+
         public Window getWindow() {
             return window;
         }
@@ -332,6 +1027,54 @@ public class FlinkProperties {
         public void setWindow(Window window) {
             this.window = window;
         }
+
+        public PreAggregation getPreAggregation() {
+            return preAggregation;
+        }
+
+        public void setPreAggregation(PreAggregation preAggregation) {
+            this.preAggregation = preAggregation;
+        }
+
+        public Sink getSink() {
+            return sink;
+        }
+
+        public void setSink(Sink sink) {
+            this.sink = sink;
+        }
+
+        public DeadLetter getDeadLetter() {
+            return deadLetter;
+        }
+
+        public void setDeadLetter(DeadLetter deadLetter) {
+            this.deadLetter = deadLetter;
+        }
+
+        public Enrichment getEnrichment() {
+            return enrichment;
+        }
+
+        public void setEnrichment(Enrichment enrichment) {
+            this.enrichment = enrichment;
+        }
+
+        public Alert getAlert() {
+            return alert;
+        }
+
+        public void setAlert(Alert alert) {
+            this.alert = alert;
+        }
+
+        public Serving getServing() {
+            return serving;
+        }
+
+        public void setServing(Serving serving) {
+            this.serving = serving;
+        }
     }
 
     // Main class Getters and Setters
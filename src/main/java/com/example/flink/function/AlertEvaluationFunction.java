@@ -0,0 +1,127 @@
+package com.example.flink.function;
+
+import com.example.flink.model.Alert;
+import com.example.flink.model.AlertRule;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import org.apache.flink.api.common.state.BroadcastState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 告警规则评估 - 规则通过广播流下发，数据原样输出，告警写入侧输出
+ *
+ * <p>规则以rule_id为键保存在广播状态中，每次规则变化后重新编译为 {@link AlertRuleIndex}；
+ * 编译结果不进入检查点，恢复后在第一条数据到达时从广播状态重建。
+ * 只有模板存在状态变化或变化率规则时，才在键控状态中保存设备的上一条数据。
+ */
+public class AlertEvaluationFunction
+        extends KeyedBroadcastProcessFunction<SensorKey, SensorData, AlertRule, SensorData> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEvaluationFunction.class);
+
+    /**
+     * 告警规则广播状态，rule_id到规则
+     */
+    public static final MapStateDescriptor<String, AlertRule> RULES_DESCRIPTOR =
+            new MapStateDescriptor<>("alertRules", Types.STRING, TypeInformation.of(AlertRule.class));
+
+    /**
+     * 告警侧输出
+     */
+    public static final OutputTag<Alert> ALERT_TAG = new OutputTag<Alert>("alert") {
+    };
+
+    private transient ValueState<SensorData> previousState;
+    private transient AlertRuleIndex ruleIndex;
+
+    private transient Counter recordsEvaluated;
+    private transient Counter alertsFired;
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        previousState = getRuntimeContext().getState(
+                new ValueStateDescriptor<>("previousSensorData", TypeInformation.of(SensorData.class)));
+
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup().addGroup("alert");
+        recordsEvaluated = metricGroup.counter("recordsEvaluated");
+        alertsFired = metricGroup.counter("alertsFired");
+        metricGroup.gauge("activeRules", (Gauge<Integer>) () -> ruleIndex == null ? 0 : ruleIndex.getRuleCount());
+    }
+
+    @Override
+    public void processElement(SensorData sensorData, ReadOnlyContext ctx, Collector<SensorData> out)
+            throws Exception {
+        out.collect(sensorData);
+
+        if (ruleIndex == null) {
+            ruleIndex = compile(ctx.getBroadcastState(RULES_DESCRIPTOR).immutableEntries());
+        }
+        AlertRuleIndex.TemplateRules templateRules = ruleIndex.get(sensorData.getTemplateId());
+        if (templateRules == null) {
+            return;
+        }
+
+        recordsEvaluated.inc();
+        SensorData previous = null;
+        if (templateRules.needsHistory()) {
+            previous = previousState.value();
+            // 乱序到达的旧数据不作为后续比较的基准
+            if (previous == null || sensorData.getTimestamp() >= previous.getTimestamp()) {
+                previousState.update(sensorData);
+            }
+        }
+        templateRules.evaluate(sensorData, previous, alert -> {
+            alertsFired.inc();
+            ctx.output(ALERT_TAG, alert);
+        });
+    }
+
+    @Override
+    public void processBroadcastElement(AlertRule rule, Context ctx, Collector<SensorData> out) throws Exception {
+        BroadcastState<String, AlertRule> rules = ctx.getBroadcastState(RULES_DESCRIPTOR);
+        if (rule.getRuleId() == null) {
+            logger.warn("忽略没有rule_id的告警规则: {}", rule);
+            return;
+        }
+
+        if (rule.isDeleted()) {
+            rules.remove(rule.getRuleId());
+            logger.info("告警规则已删除: {}", rule.getRuleId());
+        } else if (AlertRuleIndex.isValid(rule)) {
+            rules.put(rule.getRuleId(), rule);
+            logger.info("告警规则已更新: {}", rule);
+        } else {
+            logger.warn("忽略无效的告警规则: {}", rule);
+            return;
+        }
+        ruleIndex = compile(rules.immutableEntries());
+    }
+
+    private static AlertRuleIndex compile(Iterable<Map.Entry<String, AlertRule>> entries) {
+        List<AlertRule> rules = new ArrayList<>();
+        for (Map.Entry<String, AlertRule> entry : entries) {
+            rules.add(entry.getValue());
+        }
+        return AlertRuleIndex.compile(rules);
+    }
+}
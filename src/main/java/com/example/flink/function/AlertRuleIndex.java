@@ -0,0 +1,209 @@
+package com.example.flink.function;
+
+import com.example.flink.model.Alert;
+import com.example.flink.model.AlertRule;
+import com.example.flink.model.SensorData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 预编译的告警规则索引 - 按template_id分组，每个模板的同类规则按阈值排序
+ *
+ * <p>没有规则的模板查不到条目，直接跳过。阈值类和变化率类规则按阈值升序保存在数组中，
+ * 一次二分查找即可确定触发的规则区间，判断开销只随规则数对数增长，触发时只遍历实际触发的规则。
+ */
+public final class AlertRuleIndex {
+
+    private final Map<String, TemplateRules> rulesByTemplate;
+    private final int ruleCount;
+
+    private AlertRuleIndex(Map<String, TemplateRules> rulesByTemplate, int ruleCount) {
+        this.rulesByTemplate = rulesByTemplate;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * 编译规则，无效规则（见 {@link #isValid(AlertRule)}）被忽略
+     */
+    public static AlertRuleIndex compile(Iterable<AlertRule> rules) {
+        Map<String, List<AlertRule>> grouped = new HashMap<>();
+        int ruleCount = 0;
+        for (AlertRule rule : rules) {
+            if (isValid(rule)) {
+                grouped.computeIfAbsent(rule.getTemplateId(), templateId -> new ArrayList<>()).add(rule);
+                ruleCount++;
+            }
+        }
+
+        Map<String, TemplateRules> rulesByTemplate = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<String, List<AlertRule>> entry : grouped.entrySet()) {
+            rulesByTemplate.put(entry.getKey(), new TemplateRules(entry.getValue()));
+        }
+        return new AlertRuleIndex(rulesByTemplate, ruleCount);
+    }
+
+    /**
+     * 规则是否可以生效：rule_id、template_id和type不能为空，除状态变化外必须有threshold
+     */
+    public static boolean isValid(AlertRule rule) {
+        if (rule.getRuleId() == null || rule.getTemplateId() == null || rule.getType() == null) {
+            return false;
+        }
+        return rule.getType() == AlertRule.Type.STATUS_CHANGE
+                || (rule.getThreshold() != null && !rule.getThreshold().isNaN());
+    }
+
+    /**
+     * @return 模板的规则，模板没有规则时返回null
+     */
+    public TemplateRules get(String templateId) {
+        return templateId == null ? null : rulesByTemplate.get(templateId);
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * 一个模板的全部规则
+     */
+    public static final class TemplateRules {
+
+        private static final Comparator<AlertRule> BY_THRESHOLD = Comparator.comparingDouble(AlertRule::getThreshold);
+
+        private final double[] aboveThresholds;
+        private final AlertRule[] aboveRules;
+        private final double[] belowThresholds;
+        private final AlertRule[] belowRules;
+        private final double[] rateThresholds;
+        private final AlertRule[] rateRules;
+        private final AlertRule[] statusRules;
+
+        private TemplateRules(List<AlertRule> rules) {
+            this.aboveRules = sortedByThreshold(rules, AlertRule.Type.THRESHOLD_ABOVE);
+            this.aboveThresholds = thresholds(aboveRules);
+            this.belowRules = sortedByThreshold(rules, AlertRule.Type.THRESHOLD_BELOW);
+            this.belowThresholds = thresholds(belowRules);
+            this.rateRules = sortedByThreshold(rules, AlertRule.Type.RATE_OF_CHANGE);
+            this.rateThresholds = thresholds(rateRules);
+            this.statusRules = rules.stream()
+                    .filter(rule -> rule.getType() == AlertRule.Type.STATUS_CHANGE)
+                    .toArray(AlertRule[]::new);
+        }
+
+        /**
+         * 是否有需要同一设备上一条数据的规则（状态变化、变化率）
+         */
+        public boolean needsHistory() {
+            return statusRules.length > 0 || rateRules.length > 0;
+        }
+
+        /**
+         * 评估一条数据，每条触发的规则输出一条告警
+         *
+         * @param current  当前数据
+         * @param previous 同一设备的上一条数据，没有时为null
+         * @param output   告警输出
+         */
+        public void evaluate(SensorData current, SensorData previous, Consumer<Alert> output) {
+            Double value = current.getSensorValue();
+            if (value != null && !value.isNaN()) {
+                double v = value;
+
+                // 阈值小于v的上限规则全部触发
+                int aboveCount = countLessThan(aboveThresholds, v);
+                for (int i = 0; i < aboveCount; i++) {
+                    output.accept(new Alert(aboveRules[i], current, value, null));
+                }
+
+                // 阈值大于v的下限规则全部触发
+                for (int i = countLessThanOrEqual(belowThresholds, v); i < belowRules.length; i++) {
+                    output.accept(new Alert(belowRules[i], current, value, null));
+                }
+
+                if (rateRules.length > 0 && previous != null) {
+                    evaluateRate(current, previous, v, output);
+                }
+            }
+
+            if (statusRules.length > 0 && previous != null && current.getStatus() != null
+                    && previous.getStatus() != null && !current.getStatus().equals(previous.getStatus())) {
+                for (AlertRule rule : statusRules) {
+                    output.accept(new Alert(rule, current, null, previous.getStatus()));
+                }
+            }
+        }
+
+        private void evaluateRate(SensorData current, SensorData previous, double value, Consumer<Alert> output) {
+            Double previousValue = previous.getSensorValue();
+            if (previousValue == null || previousValue.isNaN()
+                    || !current.hasTimestamp() || !previous.hasTimestamp()) {
+                return;
+            }
+            long elapsed = current.getTimestamp() - previous.getTimestamp();
+            if (elapsed <= 0) {
+                return;
+            }
+
+            double rate = Math.abs(value - previousValue) * 1000.0 / elapsed;
+            int rateCount = countLessThan(rateThresholds, rate);
+            for (int i = 0; i < rateCount; i++) {
+                output.accept(new Alert(rateRules[i], current, rate, null));
+            }
+        }
+
+        private static AlertRule[] sortedByThreshold(List<AlertRule> rules, AlertRule.Type type) {
+            return rules.stream()
+                    .filter(rule -> rule.getType() == type)
+                    .sorted(BY_THRESHOLD)
+                    .toArray(AlertRule[]::new);
+        }
+
+        private static double[] thresholds(AlertRule[] rules) {
+            double[] thresholds = new double[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                thresholds[i] = rules[i].getThreshold();
+            }
+            return thresholds;
+        }
+
+        /**
+         * 升序数组中小于value的元素个数
+         */
+        private static int countLessThan(double[] sorted, double value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 升序数组中小于等于value的元素个数
+         */
+        private static int countLessThanOrEqual(double[] sorted, double value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.flink.function;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+/**
+ * 死信路由 - 解析成功的记录进入主流，解析失败的记录进入死信侧输出
+ */
+public class DeadLetterRoutingFunction extends ProcessFunction<Either<DeadLetterRecord, SensorData>, SensorData> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final OutputTag<DeadLetterRecord> DEAD_LETTER_TAG =
+            new OutputTag<>("dead-letter", TypeInformation.of(DeadLetterRecord.class));
+
+    @Override
+    public void processElement(Either<DeadLetterRecord, SensorData> value, Context ctx,
+                               Collector<SensorData> out) {
+        if (value.isRight()) {
+            out.collect(value.right());
+        } else {
+            ctx.output(DEAD_LETTER_TAG, value.left());
+        }
+    }
+}
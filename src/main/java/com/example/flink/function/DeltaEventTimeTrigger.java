@@ -0,0 +1,48 @@
+package com.example.flink.function;
+
+import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.triggers.TriggerResult;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+
+/**
+ * 输出增量的事件时间触发器 - 与EventTimeTrigger的触发时机相同，但每次触发后清空窗口内容
+ *
+ * <p>水印越过窗口结束时输出窗口全部数据并清空累加器；允许延迟内到达的迟到记录重新写入空累加器，
+ * 随即触发，因此每次迟到触发只包含上次输出后到达的数据。窗口在允许延迟内只保留清空后的累加器和定时器，
+ * 不再保留已输出的数据。
+ */
+public class DeltaEventTimeTrigger extends Trigger<Object, TimeWindow> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public TriggerResult onElement(Object element, long timestamp, TimeWindow window, TriggerContext ctx)
+            throws Exception {
+        if (window.maxTimestamp() <= ctx.getCurrentWatermark()) {
+            // 迟到记录，立即输出增量
+            return TriggerResult.FIRE_AND_PURGE;
+        }
+        ctx.registerEventTimeTimer(window.maxTimestamp());
+        return TriggerResult.CONTINUE;
+    }
+
+    @Override
+    public TriggerResult onEventTime(long time, TimeWindow window, TriggerContext ctx) {
+        return time == window.maxTimestamp() ? TriggerResult.FIRE_AND_PURGE : TriggerResult.CONTINUE;
+    }
+
+    @Override
+    public TriggerResult onProcessingTime(long time, TimeWindow window, TriggerContext ctx) {
+        return TriggerResult.CONTINUE;
+    }
+
+    @Override
+    public void clear(TimeWindow window, TriggerContext ctx) {
+        ctx.deleteEventTimeTimer(window.maxTimestamp());
+    }
+
+    @Override
+    public String toString() {
+        return "DeltaEventTimeTrigger()";
+    }
+}
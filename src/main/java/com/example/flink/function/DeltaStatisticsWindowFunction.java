@@ -0,0 +1,64 @@
+package com.example.flink.function;
+
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+/**
+ * 允许迟到时的窗口统计函数，配合 {@link DeltaEventTimeTrigger} 使用
+ *
+ * <p>窗口第一次触发输出完整统计，之后的迟到触发只包含新到达的记录，输出标记为增量，
+ * 由Sink与数据库中已有的行合并。每个窗口只额外保存一个是否已输出的标记，允许延迟结束时随窗口清除。
+ *
+ * <p>输出条数和迟到增量条数分别记录在 windowResults 和 lateUpdates 计数器。
+ */
+public class DeltaStatisticsWindowFunction extends
+        ProcessWindowFunction<SensorStatisticsAccumulator, SensorStatistics, SensorKey, TimeWindow> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ValueStateDescriptor<Boolean> FIRED_DESCRIPTOR =
+            new ValueStateDescriptor<>("fired", Types.BOOLEAN);
+
+    private transient Counter windowResults;
+    private transient Counter lateUpdates;
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        windowResults = getRuntimeContext().getMetricGroup().counter("windowResults");
+        lateUpdates = getRuntimeContext().getMetricGroup().counter("lateUpdates");
+        getRuntimeContext().getMetricGroup().meter("lateUpdatesPerSecond", new MeterView(lateUpdates, 60));
+    }
+
+    @Override
+    public void process(SensorKey key, Context context, Iterable<SensorStatisticsAccumulator> input,
+                        Collector<SensorStatistics> out) throws Exception {
+        ValueState<Boolean> fired = context.windowState().getState(FIRED_DESCRIPTOR);
+        TimeWindow window = context.window();
+
+        SensorStatistics statistics = input.iterator().next().toStatistics(key, window.getStart(), window.getEnd());
+        if (fired.value() == null) {
+            fired.update(true);
+        } else {
+            statistics.setDelta(true);
+            lateUpdates.inc();
+        }
+        out.collect(statistics);
+        windowResults.inc();
+    }
+
+    @Override
+    public void clear(Context context) throws Exception {
+        context.windowState().getState(FIRED_DESCRIPTOR).clear();
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.flink.function;
+
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.metrics.Histograms;
+import com.example.flink.model.DeviceMetadata;
+import com.example.flink.model.SensorData;
+import com.example.flink.service.DeviceRegistryService;
+import com.example.flink.util.ExpiringLruCache;
+import com.example.flink.util.LogRateLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 设备信息补全 - 异步从设备注册表读取设备元数据并填充到 {@link SensorData#getDevice()}
+ *
+ * <p>每个子任务持有一个有容量上限和过期时间的本地缓存，命中时直接输出。未命中的设备进入待查询队列，
+ * 由单个查询线程按 batchSize 合并为 IN (...) 查询；查询执行期间新到的未命中设备在下一批中查询，
+ * 同一设备的并发未命中只查询一次。注册表中不存在的设备同样缓存，避免反复查询。
+ * 查询失败或超时的记录不带元数据继续处理，不会导致作业失败。
+ *
+ * <p>指标位于 enrichment 子组：缓存命中/未命中数和命中率、合并的并发未命中数、
+ * 查询耗时和每次查询的设备数（直方图）、查询失败数和超时数。
+ */
+public class DeviceEnrichmentFunction extends RichAsyncFunction<SensorData, SensorData> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceEnrichmentFunction.class);
+
+    /**
+     * 注册表中不存在的设备在缓存中的占位值
+     */
+    private static final DeviceMetadata NOT_FOUND = new DeviceMetadata();
+
+    private final FlinkProperties flinkProperties;
+
+    private transient HikariDataSource dataSource;
+    private transient DeviceRegistryService deviceRegistryService;
+    private transient ExecutorService lookupExecutor;
+    private transient LogRateLimiter logRateLimiter;
+
+    // 以下字段由任务线程和查询线程共享，访问时持有this锁
+    private transient ExpiringLruCache<String, DeviceMetadata> cache;
+    private transient Map<String, CompletableFuture<DeviceMetadata>> inFlight;
+    private transient Queue<String> pendingDeviceIds;
+    private transient boolean drainScheduled;
+
+    private transient Counter cacheHits;
+    private transient Counter cacheMisses;
+    private transient Counter coalescedLookups;
+    private transient Counter lookupFailures;
+    private transient Counter timeouts;
+    private transient Histogram lookupLatency;
+    private transient Histogram lookupBatchSize;
+
+    public DeviceEnrichmentFunction(FlinkProperties flinkProperties) {
+        this.flinkProperties = flinkProperties;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        FlinkProperties.Flink.Enrichment config = getEnrichmentConfig();
+
+        this.dataSource = DataSourceConfig.createDataSource(flinkProperties, getRuntimeContext().getMetricGroup());
+        this.deviceRegistryService = new DeviceRegistryService(dataSource);
+        this.lookupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "device-registry-lookup-"
+                    + getRuntimeContext().getIndexOfThisSubtask());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.logRateLimiter = new LogRateLimiter(10, 10_000);
+
+        this.cache = new ExpiringLruCache<>(config.getCacheSize(), config.getCacheTtl());
+        this.inFlight = new HashMap<>();
+        this.pendingDeviceIds = new ArrayDeque<>();
+
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup().addGroup("enrichment");
+        this.cacheHits = metricGroup.counter("cacheHits");
+        this.cacheMisses = metricGroup.counter("cacheMisses");
+        this.coalescedLookups = metricGroup.counter("coalescedLookups");
+        this.lookupFailures = metricGroup.counter("lookupFailures");
+        this.timeouts = metricGroup.counter("timeouts");
+        this.lookupLatency = Histograms.register(metricGroup, "lookupLatencyMs");
+        this.lookupBatchSize = Histograms.register(metricGroup, "lookupBatchSize");
+        metricGroup.gauge("cacheHitRate", (Gauge<Double>) this::getCacheHitRate);
+        metricGroup.gauge("cacheSize", (Gauge<Integer>) this::getCacheSize);
+
+        logger.info("设备信息补全初始化完成 - 缓存容量: {}, 缓存有效期: {}ms, 批量查询大小: {}",
+                config.getCacheSize(), config.getCacheTtl(), config.getBatchSize());
+    }
+
+    @Override
+    public void asyncInvoke(SensorData sensorData, ResultFuture<SensorData> resultFuture) {
+        String deviceId = sensorData.getDeviceId();
+        if (deviceId == null) {
+            resultFuture.complete(Collections.singleton(sensorData));
+            return;
+        }
+
+        CompletableFuture<DeviceMetadata> lookup;
+        synchronized (this) {
+            DeviceMetadata cached = cache.get(deviceId, System.currentTimeMillis());
+            if (cached != null) {
+                cacheHits.inc();
+                resultFuture.complete(Collections.singleton(enrich(sensorData, cached)));
+                return;
+            }
+
+            cacheMisses.inc();
+            lookup = inFlight.get(deviceId);
+            if (lookup != null) {
+                coalescedLookups.inc();
+            } else {
+                lookup = new CompletableFuture<>();
+                inFlight.put(deviceId, lookup);
+                pendingDeviceIds.add(deviceId);
+                if (!drainScheduled) {
+                    drainScheduled = true;
+                    lookupExecutor.execute(this::drainPendingLookups);
+                }
+            }
+        }
+
+        lookup.whenComplete((metadata, error) -> {
+            if (error != null) {
+                resultFuture.complete(Collections.singleton(sensorData));
+            } else {
+                resultFuture.complete(Collections.singleton(enrich(sensorData, metadata)));
+            }
+        });
+    }
+
+    @Override
+    public void timeout(SensorData sensorData, ResultFuture<SensorData> resultFuture) {
+        timeouts.inc();
+        resultFuture.complete(Collections.singleton(sensorData));
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (lookupExecutor != null) {
+                lookupExecutor.shutdownNow();
+            }
+        } finally {
+            if (dataSource != null) {
+                dataSource.close();
+            }
+            super.close();
+        }
+    }
+
+    /**
+     * 在查询线程中循环取出待查询设备，按批执行查询，直到队列为空
+     */
+    private void drainPendingLookups() {
+        int batchSize = getEnrichmentConfig().getBatchSize();
+        while (true) {
+            List<String> batch = new ArrayList<>(batchSize);
+            synchronized (this) {
+                while (batch.size() < batchSize && !pendingDeviceIds.isEmpty()) {
+                    batch.add(pendingDeviceIds.poll());
+                }
+                if (batch.isEmpty()) {
+                    drainScheduled = false;
+                    return;
+                }
+            }
+
+            long start = System.currentTimeMillis();
+            Map<String, DeviceMetadata> found;
+            try {
+                found = deviceRegistryService.findByDeviceIds(batch);
+            } catch (RuntimeException e) {
+                failLookups(batch, e);
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            lookupLatency.update(now - start);
+            lookupBatchSize.update(batch.size());
+
+            List<CompletableFuture<DeviceMetadata>> completed = new ArrayList<>(batch.size());
+            List<DeviceMetadata> results = new ArrayList<>(batch.size());
+            synchronized (this) {
+                for (String deviceId : batch) {
+                    DeviceMetadata metadata = found.getOrDefault(deviceId, NOT_FOUND);
+                    cache.put(deviceId, metadata, now);
+                    completed.add(inFlight.remove(deviceId));
+                    results.add(metadata);
+                }
+            }
+            // 在锁外完成，回调中会向下游输出记录
+            for (int i = 0; i < completed.size(); i++) {
+                completed.get(i).complete(results.get(i));
+            }
+        }
+    }
+
+    private void failLookups(List<String> batch, RuntimeException e) {
+        lookupFailures.inc();
+        if (logRateLimiter.tryAcquire() >= 0) {
+            logger.warn("查询设备注册表失败，本批{}个设备的记录不补全元数据: {}", batch.size(), e.getMessage());
+        }
+
+        List<CompletableFuture<DeviceMetadata>> failed = new ArrayList<>(batch.size());
+        synchronized (this) {
+            for (String deviceId : batch) {
+                failed.add(inFlight.remove(deviceId));
+            }
+        }
+        for (CompletableFuture<DeviceMetadata> future : failed) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static SensorData enrich(SensorData sensorData, DeviceMetadata metadata) {
+        if (metadata != NOT_FOUND) {
+            sensorData.setDevice(metadata);
+        }
+        return sensorData;
+    }
+
+    private double getCacheHitRate() {
+        long hits = cacheHits.getCount();
+        long total = hits + cacheMisses.getCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private synchronized int getCacheSize() {
+        return cache.size();
+    }
+
+    private FlinkProperties.Flink.Enrichment getEnrichmentConfig() {
+        return flinkProperties.getFlink().getEnrichment();
+    }
+}
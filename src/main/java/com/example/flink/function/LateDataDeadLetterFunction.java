@@ -0,0 +1,52 @@
+package com.example.flink.function;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.PreAggregatedStatistics;
+import com.example.flink.model.SensorData;
+import com.example.flink.util.JsonUtils;
+import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+
+/**
+ * 把超过允许延迟、被窗口丢弃的数据转换为死信记录
+ *
+ * <p>输入为窗口迟到侧输出中的原始记录或部分统计（两阶段聚合）。丢弃的原始记录数记录在
+ * lateData.recordsDropped 计数器及其每秒速率 recordsDroppedPerSecond。
+ */
+public class LateDataDeadLetterFunction<T> extends RichMapFunction<T, DeadLetterRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Counter recordsDropped;
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup().addGroup("lateData");
+        recordsDropped = metricGroup.counter("recordsDropped");
+        metricGroup.meter("recordsDroppedPerSecond", new MeterView(recordsDropped, 60));
+    }
+
+    @Override
+    public DeadLetterRecord map(T value) {
+        long eventTime;
+        long records;
+        if (value instanceof PreAggregatedStatistics) {
+            PreAggregatedStatistics partial = (PreAggregatedStatistics) value;
+            eventTime = partial.getPaneStart();
+            records = partial.getAccumulator().getDataCount();
+        } else if (value instanceof SensorData) {
+            eventTime = ((SensorData) value).getTimestamp();
+            records = 1;
+        } else {
+            throw new IllegalArgumentException("不支持的迟到数据类型: " + value.getClass().getName());
+        }
+        recordsDropped.inc(records);
+
+        return new DeadLetterRecord(null, -1, -1, eventTime, DeadLetterRecord.ErrorType.LATE_DATA,
+                records + "条记录的事件时间晚于窗口允许延迟", JsonUtils.toJsonSafe(value));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.flink.function;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.LatestStatisticsIndex;
+import com.example.flink.service.StatisticsQueryServer;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 最新统计算子 - 位于按设备keyBy之后，在键控状态中保存每个设备最新的窗口统计结果，并同步到本JVM共享的内存索引，
+ * 由 {@link StatisticsQueryServer} 提供HTTP查询，消费方不再需要轮询统计表。
+ *
+ * <p>键控状态随检查点保存，恢复和扩缩容后在open时遍历本子任务负责的设备重新填充索引。算子不输出数据。
+ */
+public class LatestStatisticsOperator extends AbstractStreamOperator<Void>
+        implements OneInputStreamOperator<SensorStatistics, Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestStatisticsOperator.class);
+
+    private final FlinkProperties.Flink.Serving servingConfig;
+
+    private transient ValueStateDescriptor<SensorStatistics> latestDescriptor;
+    private transient ValueState<SensorStatistics> latestState;
+    private transient StatisticsQueryServer server;
+    private transient LatestStatisticsIndex index;
+
+    private transient Counter updates;
+    private transient long keys;
+
+    public LatestStatisticsOperator(FlinkProperties.Flink.Serving servingConfig) {
+        this.servingConfig = servingConfig;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        latestDescriptor = new ValueStateDescriptor<>("latestStatistics", TypeInformation.of(SensorStatistics.class));
+        latestState = getPartitionedState(latestDescriptor);
+
+        MetricGroup metricGroup = getMetricGroup().addGroup("serving");
+        updates = metricGroup.counter("updates");
+        metricGroup.gauge("keys", (Gauge<Long>) () -> keys);
+
+        server = StatisticsQueryServer.acquire(servingConfig);
+        index = server.getIndex();
+        this.<SensorKey>getKeyedStateBackend().applyToAllKeys(
+                VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, latestDescriptor,
+                (key, state) -> {
+                    SensorStatistics latest = state.value();
+                    if (latest != null) {
+                        index.put(latest);
+                        keys++;
+                    }
+                });
+        if (keys > 0) {
+            logger.info("从状态恢复最新统计 - 设备数: {}", keys);
+        }
+    }
+
+    @Override
+    public void processElement(StreamRecord<SensorStatistics> element) throws Exception {
+        SensorStatistics current = latestState.value();
+        SensorStatistics latest = LatestStatisticsIndex.latest(current, element.getValue());
+        if (latest == current) {
+            return;
+        }
+        latestState.update(latest);
+        index.put(latest);
+        updates.inc();
+        if (current == null) {
+            keys++;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (server != null) {
+            StatisticsQueryServer.release(server);
+            server = null;
+        }
+        super.close();
+    }
+}
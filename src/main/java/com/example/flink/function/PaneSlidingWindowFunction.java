@@ -0,0 +1,225 @@
+package com.example.flink.function;
+
+import com.example.flink.model.PreAggregatedStatistics;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于窗格（pane）共享的滑动窗口聚合
+ *
+ * <p>SlidingEventTimeWindows会把每条记录分配到 size/slide 个窗口中，状态写入随之放大。
+ * 这里把事件时间按slide切分为互不重叠的窗格，每条记录只累加到所属窗格的累加器中，
+ * 窗口触发时再合并窗口覆盖的 size/slide 个窗格。输出与
+ * {@code SlidingEventTimeWindows + SensorStatisticsAggregateFunction} 一致（窗口偏移为0），
+ * 要求窗口大小是滑动间隔的整数倍。
+ *
+ * <p>每个窗格创建时注册其第一个窗口的结束定时器，窗口触发后若仍有窗格属于下一个窗口，
+ * 则继续注册下一个窗口的定时器，因此没有数据的窗口不会触发。
+ *
+ * <p>输入可以是原始记录（{@link #forSensorData}），也可以是两阶段聚合中按同样窗格对齐的部分统计
+ * （{@link #forPreAggregated}），后者直接合并到所属窗格的累加器。
+ *
+ * <p>允许延迟（allowedLateness）内到达的迟到记录，对已经输出过的窗口立即输出只包含该记录的增量统计，
+ * 由Sink与数据库中已有的行合并；窗格不会因此保留更久。超过允许延迟的记录写入迟到侧输出。
+ *
+ * <p>输出条数、迟到增量条数和丢弃的迟到记录数分别记录在 windowResults、lateUpdates 和 lateRecordsDropped 计数器。
+ */
+public class PaneSlidingWindowFunction<IN> extends KeyedProcessFunction<SensorKey, IN, SensorStatistics> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long slide;
+    private final long allowedLateness;
+    private final PaneAccumulator<IN> paneAccumulator;
+    private final OutputTag<IN> lateDataTag;
+
+    private transient MapState<Long, SensorStatisticsAccumulator> panes;
+    private transient Counter windowResults;
+    private transient Counter lateRecordsDropped;
+    private transient Counter lateUpdates;
+
+    /**
+     * 把一条输入累加到窗格累加器
+     */
+    @FunctionalInterface
+    public interface PaneAccumulator<IN> extends Serializable {
+        void accumulate(SensorStatisticsAccumulator accumulator, IN value);
+    }
+
+    /**
+     * 逐条聚合原始记录
+     *
+     * @param size            窗口大小（毫秒）
+     * @param slide           滑动间隔（毫秒）
+     * @param allowedLateness 允许延迟（毫秒）
+     * @param lateDataTag     超过允许延迟的记录的侧输出
+     */
+    public static PaneSlidingWindowFunction<SensorData> forSensorData(long size, long slide, long allowedLateness,
+                                                                      OutputTag<SensorData> lateDataTag) {
+        return new PaneSlidingWindowFunction<>(size, slide, allowedLateness, SensorStatisticsAccumulator::add,
+                lateDataTag);
+    }
+
+    /**
+     * 合并 {@link PreAggregationOperator} 输出的部分统计
+     *
+     * @param size            窗口大小（毫秒）
+     * @param slide           滑动间隔（毫秒）
+     * @param allowedLateness 允许延迟（毫秒）
+     * @param lateDataTag     超过允许延迟的部分统计的侧输出
+     */
+    public static PaneSlidingWindowFunction<PreAggregatedStatistics> forPreAggregated(
+            long size, long slide, long allowedLateness, OutputTag<PreAggregatedStatistics> lateDataTag) {
+        return new PaneSlidingWindowFunction<>(size, slide, allowedLateness,
+                (accumulator, partial) -> accumulator.merge(partial.getAccumulator()), lateDataTag);
+    }
+
+    private PaneSlidingWindowFunction(long size, long slide, long allowedLateness,
+                                      PaneAccumulator<IN> paneAccumulator, OutputTag<IN> lateDataTag) {
+        if (size <= 0 || slide <= 0 || size % slide != 0) {
+            throw new IllegalArgumentException(
+                    "窗格滑动窗口要求窗口大小为滑动间隔的正整数倍, size: " + size + ", slide: " + slide);
+        }
+        this.size = size;
+        this.slide = slide;
+        if (allowedLateness < 0) {
+            throw new IllegalArgumentException("允许延迟不能为负数: " + allowedLateness);
+        }
+        this.allowedLateness = allowedLateness;
+        this.paneAccumulator = paneAccumulator;
+        this.lateDataTag = lateDataTag;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        panes = getRuntimeContext().getMapState(new MapStateDescriptor<>(
+                "panes", Types.LONG, Types.POJO(SensorStatisticsAccumulator.class)));
+        windowResults = getRuntimeContext().getMetricGroup().counter("windowResults");
+        lateRecordsDropped = getRuntimeContext().getMetricGroup().counter("lateRecordsDropped");
+        lateUpdates = getRuntimeContext().getMetricGroup().counter("lateUpdates");
+        getRuntimeContext().getMetricGroup().meter("lateUpdatesPerSecond", new MeterView(lateUpdates, 60));
+    }
+
+    @Override
+    public void processElement(IN value, Context ctx, Collector<SensorStatistics> out) throws Exception {
+        long timestamp = ctx.timestamp();
+        long watermark = ctx.timerService().currentWatermark();
+        long paneStart = TimeWindow.getWindowStartWithOffset(timestamp, 0, slide);
+
+        // 包含该窗格的最后一个窗口也已超过允许延迟，写入迟到侧输出
+        if (paneStart + size - 1 + allowedLateness <= watermark) {
+            lateRecordsDropped.inc();
+            ctx.output(lateDataTag, value);
+            return;
+        }
+
+        // 已经触发过的窗口在允许延迟内输出增量
+        if (paneStart + slide - 1 <= watermark) {
+            emitLateUpdates(value, paneStart, watermark, ctx.getCurrentKey(), out);
+            // 包含该窗格的窗口都已触发，不再需要写入窗格
+            if (paneStart + size - 1 <= watermark) {
+                return;
+            }
+        }
+
+        SensorStatisticsAccumulator accumulator = panes.get(paneStart);
+        if (accumulator == null) {
+            accumulator = new SensorStatisticsAccumulator();
+
+            long firstWindowEnd = paneStart + slide;
+            while (firstWindowEnd - 1 <= watermark) {
+                firstWindowEnd += slide;
+            }
+            ctx.timerService().registerEventTimeTimer(firstWindowEnd - 1);
+        }
+
+        paneAccumulator.accumulate(accumulator, value);
+        panes.put(paneStart, accumulator);
+    }
+
+    /**
+     * 对包含该窗格、已经触发且仍在允许延迟内的窗口各输出一条只包含该记录的增量统计
+     */
+    private void emitLateUpdates(IN value, long paneStart, long watermark, SensorKey key,
+                                 Collector<SensorStatistics> out) {
+        SensorStatisticsAccumulator delta = new SensorStatisticsAccumulator();
+        paneAccumulator.accumulate(delta, value);
+
+        for (long windowEnd = paneStart + slide; windowEnd <= paneStart + size; windowEnd += slide) {
+            if (windowEnd - 1 > watermark) {
+                break;
+            }
+            if (windowEnd - 1 + allowedLateness > watermark) {
+                SensorStatistics statistics = delta.toStatistics(key, windowEnd - size, windowEnd);
+                statistics.setDelta(true);
+                out.collect(statistics);
+                windowResults.inc();
+                lateUpdates.inc();
+            }
+        }
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<SensorStatistics> out) throws Exception {
+        long windowEnd = timestamp + 1;
+        long windowStart = windowEnd - size;
+        long nextWindowStart = windowStart + slide;
+
+        SensorStatisticsAccumulator merged = null;
+        boolean hasPaneInNextWindow = false;
+        List<Long> expiredPanes = new ArrayList<>();
+
+        Iterator<Map.Entry<Long, SensorStatisticsAccumulator>> iterator = panes.iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, SensorStatisticsAccumulator> entry = iterator.next();
+            long paneStart = entry.getKey();
+
+            if (paneStart >= windowStart && paneStart < windowEnd) {
+                if (merged == null) {
+                    merged = new SensorStatisticsAccumulator();
+                }
+                merged.merge(entry.getValue());
+            }
+
+            if (paneStart < nextWindowStart) {
+                expiredPanes.add(paneStart);
+            } else if (paneStart < windowEnd) {
+                hasPaneInNextWindow = true;
+            }
+        }
+
+        for (Long paneStart : expiredPanes) {
+            panes.remove(paneStart);
+        }
+
+        if (merged != null) {
+            out.collect(merged.toStatistics(ctx.getCurrentKey(), windowStart, windowEnd));
+            windowResults.inc();
+        }
+
+        // 晚于当前窗口结束的窗格已自行注册了定时器
+        if (hasPaneInNextWindow) {
+            ctx.timerService().registerEventTimeTimer(windowEnd + slide - 1);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.flink.function;
+
+import com.example.flink.model.PreAggregatedStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.functions.AggregateFunction;
+
+/**
+ * 两阶段聚合的窗口增量聚合函数 - 合并上游子任务输出的部分统计
+ */
+public class PreAggregatedStatisticsAggregateFunction
+        implements AggregateFunction<PreAggregatedStatistics, SensorStatisticsAccumulator, SensorStatisticsAccumulator> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public SensorStatisticsAccumulator createAccumulator() {
+        return new SensorStatisticsAccumulator();
+    }
+
+    @Override
+    public SensorStatisticsAccumulator add(PreAggregatedStatistics partial, SensorStatisticsAccumulator accumulator) {
+        accumulator.merge(partial.getAccumulator());
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator getResult(SensorStatisticsAccumulator accumulator) {
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator merge(SensorStatisticsAccumulator a, SensorStatisticsAccumulator b) {
+        a.merge(b);
+        return a;
+    }
+}
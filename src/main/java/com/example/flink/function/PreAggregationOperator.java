@@ -0,0 +1,230 @@
+package com.example.flink.function;
+
+import com.example.flink.model.PreAggregatedStatistics;
+import com.example.flink.model.SensorData;
+import com.example.flink.util.LogRateLimiter;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
+import org.apache.flink.util.MathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 本地预聚合算子 - 两阶段聚合的第一阶段，位于keyBy之前
+ *
+ * <p>每个上游子任务在内存中按设备和窗格合并一个微批的数据，只把部分统计发往下游窗口算子，
+ * 热点设备在每个微批中只产生每个窗格一条部分统计，而不是逐条记录都被分区到同一个子任务。
+ *
+ * <p>缓冲的记录数达到batchSize、距上次输出超过interval、收到水印以及检查点屏障到达前都会输出缓冲，
+ * 因此部分统计不会晚于它所属数据的水印，检查点时缓冲也总是空的，算子不需要状态。
+ *
+ * <p>一个微批内单个设备的记录数达到hotKeyThreshold时视为热点键，计入 hotKeys 计数器并记录日志。
+ */
+public class PreAggregationOperator extends AbstractStreamOperator<PreAggregatedStatistics>
+        implements OneInputStreamOperator<SensorData, PreAggregatedStatistics>,
+        ProcessingTimeService.ProcessingTimeCallback {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(PreAggregationOperator.class);
+
+    private final long paneSize;
+    private final int batchSize;
+    private final long interval;
+    private final long hotKeyThreshold;
+
+    private transient Map<PaneKey, PreAggregatedStatistics> buffer;
+    private transient int bufferedRecords;
+    private transient StreamRecord<PreAggregatedStatistics> reuse;
+    private transient LogRateLimiter hotKeyLogLimiter;
+
+    private transient Counter recordsIn;
+    private transient Counter partialsOut;
+    private transient Counter hotKeys;
+    private transient long maxKeyRecords;
+
+    /**
+     * @param windowSize      窗口大小（毫秒）
+     * @param windowSlide     滑动间隔（毫秒）
+     * @param batchSize       微批最大记录数
+     * @param interval        微批最长缓冲时间（毫秒）
+     * @param hotKeyThreshold 一个微批内单个设备的记录数达到该值时视为热点键
+     */
+    public PreAggregationOperator(long windowSize, long windowSlide, int batchSize, long interval,
+                                  long hotKeyThreshold) {
+        if (windowSize <= 0 || windowSlide <= 0 || batchSize <= 0 || interval <= 0) {
+            throw new IllegalArgumentException("预聚合参数必须为正数, size: " + windowSize + ", slide: " + windowSlide
+                    + ", batchSize: " + batchSize + ", interval: " + interval);
+        }
+        this.paneSize = gcd(windowSize, windowSlide);
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.hotKeyThreshold = hotKeyThreshold;
+        setChainingStrategy(ChainingStrategy.ALWAYS);
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        buffer = new HashMap<>(MathUtils.roundUpToPowerOfTwo(Math.min(batchSize, 1 << 16)));
+        reuse = new StreamRecord<>(null);
+        hotKeyLogLimiter = new LogRateLimiter(10, 60_000);
+
+        MetricGroup metricGroup = getMetricGroup().addGroup("preAggregation");
+        recordsIn = metricGroup.counter("recordsIn");
+        partialsOut = metricGroup.counter("partialsOut");
+        hotKeys = metricGroup.counter("hotKeys");
+        metricGroup.gauge("maxKeyRecords", (Gauge<Long>) () -> maxKeyRecords);
+        metricGroup.gauge("reductionRatio", (Gauge<Double>) () ->
+                partialsOut.getCount() == 0 ? 0.0 : (double) recordsIn.getCount() / partialsOut.getCount());
+
+        registerFlushTimer();
+    }
+
+    @Override
+    public void processElement(StreamRecord<SensorData> element) throws Exception {
+        SensorData sensorData = element.getValue();
+        recordsIn.inc();
+
+        // 没有事件时间的记录无法确定窗格，不参与预聚合
+        if (!element.hasTimestamp()) {
+            PreAggregatedStatistics partial = new PreAggregatedStatistics(
+                    sensorData.getTemplateId(), sensorData.getDeviceId(), Long.MIN_VALUE);
+            partial.getAccumulator().add(sensorData);
+            partialsOut.inc();
+            output.collect(new StreamRecord<>(partial));
+            return;
+        }
+
+        long paneStart = paneStart(element.getTimestamp());
+        PaneKey key = new PaneKey(sensorData.getTemplateId(), sensorData.getDeviceId(), paneStart);
+        PreAggregatedStatistics partial = buffer.get(key);
+        if (partial == null) {
+            partial = new PreAggregatedStatistics(sensorData.getTemplateId(), sensorData.getDeviceId(), paneStart);
+            buffer.put(key, partial);
+        }
+        partial.getAccumulator().add(sensorData);
+
+        if (++bufferedRecords >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void processWatermark(Watermark mark) throws Exception {
+        // 先输出缓冲，否则部分统计会晚于水印被下游窗口当作迟到数据丢弃
+        flush();
+        super.processWatermark(mark);
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        flush();
+    }
+
+    @Override
+    public void onProcessingTime(long time) throws Exception {
+        flush();
+        registerFlushTimer();
+    }
+
+    @Override
+    public void finish() throws Exception {
+        flush();
+        super.finish();
+    }
+
+    private void registerFlushTimer() {
+        ProcessingTimeService processingTimeService = getProcessingTimeService();
+        processingTimeService.registerTimer(processingTimeService.getCurrentProcessingTime() + interval, this);
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        long batchMaxKeyRecords = 0;
+        for (PreAggregatedStatistics partial : buffer.values()) {
+            long records = partial.getAccumulator().getDataCount();
+            batchMaxKeyRecords = Math.max(batchMaxKeyRecords, records);
+            if (records >= hotKeyThreshold) {
+                reportHotKey(partial, records);
+            }
+            output.collect(reuse.replace(partial, partial.getPaneStart()));
+        }
+        partialsOut.inc(buffer.size());
+        maxKeyRecords = batchMaxKeyRecords;
+
+        buffer.clear();
+        bufferedRecords = 0;
+    }
+
+    private void reportHotKey(PreAggregatedStatistics partial, long records) {
+        hotKeys.inc();
+        long suppressed = hotKeyLogLimiter.tryAcquire();
+        if (suppressed >= 0) {
+            logger.info("检测到热点键 - 模板ID: {}, 设备ID: {}, 本批记录数: {}, 本批总记录数: {}, 自上次日志以来省略{}条",
+                    partial.getTemplateId(), partial.getDeviceId(), records, bufferedRecords, suppressed);
+        }
+    }
+
+    private long paneStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, paneSize);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 缓冲的分组键：设备和窗格
+     */
+    private static final class PaneKey {
+        private final String templateId;
+        private final String deviceId;
+        private final long paneStart;
+
+        private PaneKey(String templateId, String deviceId, long paneStart) {
+            this.templateId = templateId;
+            this.deviceId = deviceId;
+            this.paneStart = paneStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PaneKey)) {
+                return false;
+            }
+            PaneKey other = (PaneKey) o;
+            return paneStart == other.paneStart
+                    && Objects.equals(templateId, other.templateId)
+                    && Objects.equals(deviceId, other.deviceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Objects.hashCode(templateId) + Objects.hashCode(deviceId)) + Long.hashCode(paneStart);
+        }
+    }
+}
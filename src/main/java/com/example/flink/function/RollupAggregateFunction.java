@@ -0,0 +1,36 @@
+package com.example.flink.function;
+
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.functions.AggregateFunction;
+
+/**
+ * 逐级汇总的增量聚合函数 - 合并下一级窗口的统计结果（包括迟到增量），不再读取原始记录
+ */
+public class RollupAggregateFunction
+        implements AggregateFunction<SensorStatistics, SensorStatisticsAccumulator, SensorStatisticsAccumulator> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public SensorStatisticsAccumulator createAccumulator() {
+        return new SensorStatisticsAccumulator();
+    }
+
+    @Override
+    public SensorStatisticsAccumulator add(SensorStatistics statistics, SensorStatisticsAccumulator accumulator) {
+        accumulator.merge(SensorStatisticsAccumulator.fromStatistics(statistics));
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator getResult(SensorStatisticsAccumulator accumulator) {
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator merge(SensorStatisticsAccumulator a, SensorStatisticsAccumulator b) {
+        a.merge(b);
+        return a;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.flink.function;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import org.apache.flink.api.common.eventtime.TimestampAssigner;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.types.Either;
+
+/**
+ * 事件时间分配器 - 在Source中为解析结果分配事件时间
+ *
+ * <p>传感器数据使用消息中的timestamp，缺失时依次使用Kafka记录时间戳和当前处理时间；
+ * 死信记录使用Kafka记录时间戳，它们不参与水印生成（见 {@link SensorDataWatermarkGenerator}）。
+ *
+ * <p>同时把处理时间与事件时间之差记录到 eventTimeLag 直方图（毫秒），用于观察数据到达延迟和乱序程度。
+ */
+public class SensorDataTimestampAssigner implements TimestampAssigner<Either<DeadLetterRecord, SensorData>> {
+
+    private final Histogram eventTimeLag;
+
+    public SensorDataTimestampAssigner(Histogram eventTimeLag) {
+        this.eventTimeLag = eventTimeLag;
+    }
+
+    @Override
+    public long extractTimestamp(Either<DeadLetterRecord, SensorData> element, long recordTimestamp) {
+        long now = System.currentTimeMillis();
+        if (element.isLeft()) {
+            return recordTimestamp != NO_TIMESTAMP ? recordTimestamp : now;
+        }
+
+        SensorData sensorData = element.right();
+        if (!sensorData.hasTimestamp()) {
+            return recordTimestamp != NO_TIMESTAMP ? recordTimestamp : now;
+        }
+        eventTimeLag.update(now - sensorData.getTimestamp());
+        return sensorData.getTimestamp();
+    }
+}
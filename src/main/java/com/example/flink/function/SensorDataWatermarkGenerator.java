@@ -0,0 +1,37 @@
+package com.example.flink.function;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import org.apache.flink.api.common.eventtime.BoundedOutOfOrdernessWatermarks;
+import org.apache.flink.api.common.eventtime.WatermarkGenerator;
+import org.apache.flink.api.common.eventtime.WatermarkOutput;
+import org.apache.flink.types.Either;
+
+import java.time.Duration;
+
+/**
+ * 有界乱序水印生成器 - 只根据传感器数据的事件时间推进水印
+ *
+ * <p>死信记录的时间戳是Kafka写入时间，可能远大于设备上报的事件时间，参与水印计算会使窗口提前触发。
+ * Kafka Source为每个分区创建一个生成器，水印按分区计算后取最小值。
+ */
+public class SensorDataWatermarkGenerator implements WatermarkGenerator<Either<DeadLetterRecord, SensorData>> {
+
+    private final BoundedOutOfOrdernessWatermarks<SensorData> delegate;
+
+    public SensorDataWatermarkGenerator(Duration maxOutOfOrderness) {
+        this.delegate = new BoundedOutOfOrdernessWatermarks<>(maxOutOfOrderness);
+    }
+
+    @Override
+    public void onEvent(Either<DeadLetterRecord, SensorData> event, long eventTimestamp, WatermarkOutput output) {
+        if (event.isRight()) {
+            delegate.onEvent(event.right(), eventTimestamp, output);
+        }
+    }
+
+    @Override
+    public void onPeriodicEmit(WatermarkOutput output) {
+        delegate.onPeriodicEmit(output);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.flink.function;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.functions.AggregateFunction;
+
+/**
+ * 窗口增量聚合函数 - 每个分组窗口只保存一个紧凑的累加器，而不是原始记录
+ */
+public class SensorStatisticsAggregateFunction
+        implements AggregateFunction<SensorData, SensorStatisticsAccumulator, SensorStatisticsAccumulator> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public SensorStatisticsAccumulator createAccumulator() {
+        return new SensorStatisticsAccumulator();
+    }
+
+    @Override
+    public SensorStatisticsAccumulator add(SensorData sensorData, SensorStatisticsAccumulator accumulator) {
+        accumulator.add(sensorData);
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator getResult(SensorStatisticsAccumulator accumulator) {
+        return accumulator;
+    }
+
+    @Override
+    public SensorStatisticsAccumulator merge(SensorStatisticsAccumulator a, SensorStatisticsAccumulator b) {
+        a.merge(b);
+        return a;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.flink.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把Hikari连接池指标注册到Flink指标系统
+ *
+ * <p>指标位于 hikari.&lt;poolName&gt; 子组：活跃/空闲/总连接数和等待线程数（Gauge）、
+ * 获取连接耗时和连接占用时长（直方图）以及获取连接超时次数。
+ */
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricGroup metricGroup;
+
+    public HikariMetricsTrackerFactory(MetricGroup metricGroup) {
+        this.metricGroup = metricGroup;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        MetricGroup poolGroup = metricGroup.addGroup("hikari", poolName);
+        poolGroup.gauge("activeConnections", (Gauge<Integer>) poolStats::getActiveConnections);
+        poolGroup.gauge("idleConnections", (Gauge<Integer>) poolStats::getIdleConnections);
+        poolGroup.gauge("totalConnections", (Gauge<Integer>) poolStats::getTotalConnections);
+        poolGroup.gauge("pendingThreads", (Gauge<Integer>) poolStats::getPendingThreads);
+
+        Histogram acquireMicros = Histograms.register(poolGroup, "connectionAcquireMicros");
+        Histogram usageMillis = Histograms.register(poolGroup, "connectionUsageMillis");
+        Counter timeouts = poolGroup.counter("connectionTimeouts");
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireMicros.update(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos));
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.update(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.inc();
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.flink.metrics;
+
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+
+/**
+ * 直方图指标工具类
+ */
+public final class Histograms {
+
+    /**
+     * 直方图保留的最近样本数，分位数基于这些样本计算
+     */
+    public static final int WINDOW_SIZE = 1024;
+
+    private Histograms() {
+    }
+
+    /**
+     * 在指标组中注册一个基于最近样本的直方图
+     */
+    public static Histogram register(MetricGroup metricGroup, String name) {
+        return metricGroup.histogram(name, new DescriptiveStatisticsHistogram(WINDOW_SIZE));
+    }
+}
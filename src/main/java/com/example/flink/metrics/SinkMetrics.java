@@ -0,0 +1,66 @@
+package com.example.flink.metrics;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+
+/**
+ * 数据库Sink指标 - 批量写入耗时、批量大小、重试次数、收到条数、写入行数、影响行数和写入合并比
+ *
+ * <p>注册在算子指标组下的 databaseSink 子组中。coalescingRatio为累计收到条数与写入条数之比，
+ * 未开启写入合并或没有重复窗口时为1。
+ */
+public class SinkMetrics {
+
+    private final Histogram upsertLatency;
+    private final Histogram batchSize;
+    private final Counter retries;
+    private final Counter rowsReceived;
+    private final Counter rowsWritten;
+    private final Counter rowsAffected;
+
+    public SinkMetrics(MetricGroup operatorMetricGroup) {
+        MetricGroup metricGroup = operatorMetricGroup.addGroup("databaseSink");
+        this.upsertLatency = Histograms.register(metricGroup, "upsertLatencyMs");
+        this.batchSize = Histograms.register(metricGroup, "batchSize");
+        this.retries = metricGroup.counter("retries");
+        this.rowsReceived = metricGroup.counter("rowsReceived");
+        this.rowsWritten = metricGroup.counter("rowsWritten");
+        this.rowsAffected = metricGroup.counter("rowsAffected");
+        metricGroup.gauge("coalescingRatio", (Gauge<Double>) this::getCoalescingRatio);
+    }
+
+    /**
+     * 记录一次成功的批量写入
+     *
+     * @param rows          写入的统计数据条数
+     * @param affectedRows  数据库报告的影响行数
+     * @param latencyMillis 写入耗时（毫秒，含连接获取和提交）
+     */
+    public void recordBatch(int rows, long affectedRows, long latencyMillis) {
+        upsertLatency.update(latencyMillis);
+        batchSize.update(rows);
+        rowsWritten.inc(rows);
+        rowsAffected.inc(affectedRows);
+    }
+
+    /**
+     * 记录一次成功写入对应的Sink收到条数（写入合并前）
+     */
+    public void recordReceived(int rows) {
+        rowsReceived.inc(rows);
+    }
+
+    /**
+     * 记录一次写入失败后的重试
+     */
+    public void recordRetry() {
+        retries.inc();
+    }
+
+    private double getCoalescingRatio() {
+        long written = rowsWritten.getCount();
+        return written > 0 ? (double) rowsReceived.getCount() / written : 1.0;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.flink.model;
+
+import com.example.flink.serialization.EpochMillisDateTimeDeserializer;
+import com.example.flink.serialization.EpochMillisDateTimeSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serializable;
+
+/**
+ * 告警 - 一条传感器数据触发一条告警规则
+ */
+public class Alert implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("rule_id")
+    private String ruleId;
+
+    @JsonProperty("rule_type")
+    private AlertRule.Type ruleType;
+
+    @JsonProperty("template_id")
+    private String templateId;
+
+    @JsonProperty("device_id")
+    private String deviceId;
+
+    @JsonProperty("threshold")
+    private Double threshold;
+
+    /**
+     * 触发告警的观测值：阈值规则为sensor_value，变化率规则为每秒变化量，状态变化规则为null
+     */
+    @JsonProperty("observed_value")
+    private Double observedValue;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("previous_status")
+    private String previousStatus;
+
+    /**
+     * 触发告警的数据的事件时间，UTC毫秒时间戳
+     */
+    @JsonProperty("event_time")
+    @JsonDeserialize(using = EpochMillisDateTimeDeserializer.class)
+    @JsonSerialize(using = EpochMillisDateTimeSerializer.class)
+    private long eventTime;
+
+    public Alert() {
+    }
+
+    public Alert(AlertRule rule, SensorData sensorData, Double observedValue, String previousStatus) {
+        this.ruleId = rule.getRuleId();
+        this.ruleType = rule.getType();
+        this.templateId = sensorData.getTemplateId();
+        this.deviceId = sensorData.getDeviceId();
+        this.threshold = rule.getThreshold();
+        this.observedValue = observedValue;
+        this.status = sensorData.getStatus();
+        this.previousStatus = previousStatus;
+        this.eventTime = sensorData.getTimestamp();
+    }
+
+    // Getters and Setters
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public AlertRule.Type getRuleType() {
+        return ruleType;
+    }
+
+    public void setRuleType(AlertRule.Type ruleType) {
+        this.ruleType = ruleType;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public Double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Double threshold) {
+        this.threshold = threshold;
+    }
+
+    public Double getObservedValue() {
+        return observedValue;
+    }
+
+    public void setObservedValue(Double observedValue) {
+        this.observedValue = observedValue;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(String previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Alert{" +
+                "ruleId='" + ruleId + '\'' +
+                ", ruleType=" + ruleType +
+                ", templateId='" + templateId + '\'' +
+                ", deviceId='" + deviceId + '\'' +
+                ", threshold=" + threshold +
+                ", observedValue=" + observedValue +
+                ", status='" + status + '\'' +
+                ", previousStatus='" + previousStatus + '\'' +
+                ", eventTime=" + eventTime +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.flink.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+
+/**
+ * 告警规则 - 从规则Topic读取，按template_id生效
+ *
+ * <p>同一rule_id的新消息覆盖旧规则，deleted为true时删除该规则。
+ */
+public class AlertRule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 规则类型
+     */
+    public enum Type {
+        /**
+         * sensor_value大于threshold
+         */
+        THRESHOLD_ABOVE,
+        /**
+         * sensor_value小于threshold
+         */
+        THRESHOLD_BELOW,
+        /**
+         * status与该设备上一条数据不同，不使用threshold
+         */
+        STATUS_CHANGE,
+        /**
+         * sensor_value相对该设备上一条数据的变化速率（每秒，取绝对值）大于threshold
+         */
+        RATE_OF_CHANGE
+    }
+
+    @JsonProperty("rule_id")
+    private String ruleId;
+
+    @JsonProperty("template_id")
+    private String templateId;
+
+    @JsonProperty("type")
+    private Type type;
+
+    @JsonProperty("threshold")
+    private Double threshold;
+
+    @JsonProperty("deleted")
+    private boolean deleted;
+
+    public AlertRule() {
+    }
+
+    public AlertRule(String ruleId, String templateId, Type type, Double threshold) {
+        this.ruleId = ruleId;
+        this.templateId = templateId;
+        this.type = type;
+        this.threshold = threshold;
+    }
+
+    // Getters and Setters
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Double threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertRule{" +
+                "ruleId='" + ruleId + '\'' +
+                ", templateId='" + templateId + '\'' +
+                ", type=" + type +
+                ", threshold=" + threshold +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
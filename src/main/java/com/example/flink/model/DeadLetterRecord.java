@@ -0,0 +1,146 @@
+package com.example.flink.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+
+/**
+ * 死信记录 - 无法解析的Kafka消息及失败原因
+ */
+public class DeadLetterRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 失败原因分类
+     */
+    public enum ErrorType {
+        /**
+         * 不是合法的JSON
+         */
+        MALFORMED_JSON,
+        /**
+         * JSON合法，但字段类型或格式不符，如timestamp格式错误
+         */
+        INVALID_FIELD,
+        /**
+         * 事件时间晚于窗口的允许延迟，未计入统计；payload为数据的JSON，没有Kafka位置信息
+         */
+        LATE_DATA,
+        /**
+         * 其他解析错误
+         */
+        UNKNOWN
+    }
+
+    @JsonProperty("topic")
+    private String topic;
+
+    @JsonProperty("partition")
+    private int partition;
+
+    @JsonProperty("offset")
+    private long offset;
+
+    /**
+     * Kafka记录时间戳（毫秒）
+     */
+    @JsonProperty("record_timestamp")
+    private long recordTimestamp;
+
+    @JsonProperty("error_type")
+    private ErrorType errorType;
+
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    /**
+     * 原始消息内容（UTF-8解码）
+     */
+    @JsonProperty("payload")
+    private String payload;
+
+    public DeadLetterRecord() {
+    }
+
+    public DeadLetterRecord(String topic, int partition, long offset, long recordTimestamp,
+                            ErrorType errorType, String errorMessage, String payload) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.recordTimestamp = recordTimestamp;
+        this.errorType = errorType;
+        this.errorMessage = errorMessage;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getRecordTimestamp() {
+        return recordTimestamp;
+    }
+
+    public void setRecordTimestamp(long recordTimestamp) {
+        this.recordTimestamp = recordTimestamp;
+    }
+
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+
+    public void setErrorType(ErrorType errorType) {
+        this.errorType = errorType;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterRecord{" +
+                "topic='" + topic + '\'' +
+                ", partition=" + partition +
+                ", offset=" + offset +
+                ", recordTimestamp=" + recordTimestamp +
+                ", errorType=" + errorType +
+                ", errorMessage='" + errorMessage + '\'' +
+                ", payload='" + payload + '\'' +
+                '}';
+    }
+}
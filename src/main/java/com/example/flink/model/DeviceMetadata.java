@@ -0,0 +1,81 @@
+package com.example.flink.model;
+
+import java.io.Serializable;
+
+/**
+ * 设备元数据 - 来自设备注册表 device_registry
+ */
+public class DeviceMetadata implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String deviceId;
+
+    /**
+     * 设备型号
+     */
+    private String model;
+
+    /**
+     * 安装站点
+     */
+    private String site;
+
+    /**
+     * 校准偏移量
+     */
+    private Double calibrationOffset;
+
+    public DeviceMetadata() {
+    }
+
+    public DeviceMetadata(String deviceId, String model, String site, Double calibrationOffset) {
+        this.deviceId = deviceId;
+        this.model = model;
+        this.site = site;
+        this.calibrationOffset = calibrationOffset;
+    }
+
+    // Getters and Setters
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getSite() {
+        return site;
+    }
+
+    public void setSite(String site) {
+        this.site = site;
+    }
+
+    public Double getCalibrationOffset() {
+        return calibrationOffset;
+    }
+
+    public void setCalibrationOffset(Double calibrationOffset) {
+        this.calibrationOffset = calibrationOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceMetadata{" +
+                "deviceId='" + deviceId + '\'' +
+                ", model='" + model + '\'' +
+                ", site='" + site + '\'' +
+                ", calibrationOffset=" + calibrationOffset +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.flink.model;
+
+import java.io.Serializable;
+
+/**
+ * 预聚合的部分统计 - 一个上游子任务在一个微批内，同一设备同一窗格的数据合并后的累加器
+ *
+ * <p>窗格按窗口大小和滑动间隔的最大公约数对齐，窗格内任意时刻所属的滑动窗口相同，
+ * 因此部分统计以窗格起始时间作为事件时间参与窗口分配，结果与逐条聚合一致。
+ */
+public class PreAggregatedStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String templateId;
+    private String deviceId;
+    private long paneStart;
+    private SensorStatisticsAccumulator accumulator;
+
+    public PreAggregatedStatistics() {
+    }
+
+    public PreAggregatedStatistics(String templateId, String deviceId, long paneStart) {
+        this.templateId = templateId;
+        this.deviceId = deviceId;
+        this.paneStart = paneStart;
+        this.accumulator = new SensorStatisticsAccumulator();
+    }
+
+    // Getters and Setters
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public long getPaneStart() {
+        return paneStart;
+    }
+
+    public void setPaneStart(long paneStart) {
+        this.paneStart = paneStart;
+    }
+
+    public SensorStatisticsAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    public void setAccumulator(SensorStatisticsAccumulator accumulator) {
+        this.accumulator = accumulator;
+    }
+
+    @Override
+    public String toString() {
+        return "PreAggregatedStatistics{" +
+                "templateId='" + templateId + '\'' +
+                ", deviceId='" + deviceId + '\'' +
+                ", paneStart=" + paneStart +
+                ", accumulator=" + accumulator +
+                '}';
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.flink.model;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.example.flink.serialization.EpochMillisDateTimeDeserializer;
+import com.example.flink.serialization.EpochMillisDateTimeSerializer;
+import com.example.flink.util.DateTimeCodec;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.io.Serializable;
-import java.time.LocalDateTime;
 
 /**
  * 传感器数据模型 - 用于接收Kafka消息
@@ -13,6 +17,11 @@ public class SensorData implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 消息中没有时间时timestamp的取值
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
     @JsonProperty("template_id")
     private String templateId;
 
@@ -22,9 +31,13 @@ public class SensorData implements Serializable {
     @JsonProperty("sensor_value")
     private Double sensorValue;
 
+    /**
+     * 事件时间，UTC毫秒时间戳，JSON中格式为 yyyy-MM-dd HH:mm:ss
+     */
     @JsonProperty("timestamp")
-    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
-    private LocalDateTime timestamp;
+    @JsonDeserialize(using = EpochMillisDateTimeDeserializer.class)
+    @JsonSerialize(using = EpochMillisDateTimeSerializer.class)
+    private long timestamp = NO_TIMESTAMP;
 
     @JsonProperty("location")
     private String location;
@@ -32,11 +45,17 @@ public class SensorData implements Serializable {
     @JsonProperty("status")
     private String status;
 
+    /**
+     * 设备元数据，由设备信息补全阶段填充，不来自Kafka消息；未开启补全或注册表中没有该设备时为null
+     */
+    @JsonIgnore
+    private DeviceMetadata device;
+
     public SensorData() {
     }
 
     public SensorData(String templateId, String deviceId, Double sensorValue, 
-                     LocalDateTime timestamp, String location, String status) {
+                     long timestamp, String location, String status) {
         this.templateId = templateId;
         this.deviceId = deviceId;
         this.sensorValue = sensorValue;
@@ -70,14 +89,18 @@ public class SensorData implements Serializable {
         this.sensorValue = sensorValue;
     }
 
-    public LocalDateTime getTimestamp() {
+    public long getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(LocalDateTime timestamp) {
+    public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
 
+    public boolean hasTimestamp() {
+        return timestamp != NO_TIMESTAMP;
+    }
+
     public String getLocation() {
         return location;
     }
@@ -94,15 +117,24 @@ public class SensorData implements Serializable {
         this.status = status;
     }
 
+    public DeviceMetadata getDevice() {
+        return device;
+    }
+
+    public void setDevice(DeviceMetadata device) {
+        this.device = device;
+    }
+
     @Override
     public String toString() {
         return "SensorData{" +
                 "templateId='" + templateId + '\'' +
                 ", deviceId='" + deviceId + '\'' +
                 ", sensorValue=" + sensorValue +
-                ", timestamp=" + timestamp +
+                ", timestamp=" + (hasTimestamp() ? DateTimeCodec.format(timestamp) : null) +
                 ", location='" + location + '\'' +
                 ", status='" + status + '\'' +
+                ", device=" + device +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.example.flink.model;
+
+import com.example.flink.serialization.SensorKeyTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * 分组键 - template_id和device_id的组合
+ *
+ * <p>替代 templateId + "_" + deviceId 拼接的字符串键：不再为每条记录拼接新字符串，
+ * 两个字段由 {@link com.example.flink.serialization.SensorKeySerializer} 直接写出，
+ * 窗口输出时从键中取回原始的template_id和device_id，累加器中无需再保存它们。
+ *
+ * <p>hashCode决定键所属的key group，只能依赖字段内容，不能改为依赖对象地址的实现。
+ */
+@TypeInfo(SensorKeyTypeInfo.Factory.class)
+public final class SensorKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String templateId;
+    private final String deviceId;
+
+    public SensorKey(String templateId, String deviceId) {
+        this.templateId = templateId;
+        this.deviceId = deviceId;
+    }
+
+    public static SensorKey of(SensorData sensorData) {
+        return new SensorKey(sensorData.getTemplateId(), sensorData.getDeviceId());
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SensorKey)) {
+            return false;
+        }
+        SensorKey other = (SensorKey) o;
+        return Objects.equals(templateId, other.templateId) && Objects.equals(deviceId, other.deviceId);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(templateId) + Objects.hashCode(deviceId);
+    }
+
+    @Override
+    public String toString() {
+        return "SensorKey{" +
+                "templateId='" + templateId + '\'' +
+                ", deviceId='" + deviceId + '\'' +
+                '}';
+    }
+}
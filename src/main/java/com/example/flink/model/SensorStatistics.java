@@ -4,9 +4,9 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.example.flink.util.DateTimeCodec;
 
 import java.io.Serializable;
-import java.time.LocalDateTime;
 
 /**
  * 传感器统计数据实体 - 用于数据库存储
@@ -28,25 +28,61 @@ public class SensorStatistics implements Serializable {
     @TableField("data_count")
     private Long dataCount;
 
+    @TableField("value_count")
+    private Long valueCount;
+
+    @TableField("sum_value")
+    private Double sumValue;
+
+    @TableField("min_value")
+    private Double minValue;
+
+    @TableField("max_value")
+    private Double maxValue;
+
+    @TableField("avg_value")
+    private Double avgValue;
+
+    @TableField("variance_value")
+    private Double varianceValue;
+
+    /**
+     * 窗口开始时间，UTC毫秒时间戳
+     */
     @TableField("window_start")
-    private LocalDateTime windowStart;
+    private long windowStart;
 
+    /**
+     * 窗口结束时间，UTC毫秒时间戳
+     */
     @TableField("window_end")
-    private LocalDateTime windowEnd;
+    private long windowEnd;
 
+    /**
+     * 创建时间，毫秒时间戳
+     */
     @TableField("created_time")
-    private LocalDateTime createdTime;
+    private long createdTime;
 
+    /**
+     * 更新时间，毫秒时间戳
+     */
     @TableField("updated_time")
-    private LocalDateTime updatedTime;
+    private long updatedTime;
+
+    /**
+     * 是否为迟到数据的增量：true时只包含上次输出后到达的迟到记录，写入时与已有行合并而不是覆盖
+     */
+    @TableField(exist = false)
+    private boolean delta;
 
     public SensorStatistics() {
-        this.createdTime = LocalDateTime.now();
-        this.updatedTime = LocalDateTime.now();
+        this.createdTime = System.currentTimeMillis();
+        this.updatedTime = this.createdTime;
     }
 
     public SensorStatistics(String templateId, String deviceId, Long dataCount,
-                           LocalDateTime windowStart, LocalDateTime windowEnd) {
+                           long windowStart, long windowEnd) {
         this();
         this.templateId = templateId;
         this.deviceId = deviceId;
@@ -88,38 +124,94 @@ public class SensorStatistics implements Serializable {
         this.dataCount = dataCount;
     }
 
-    public LocalDateTime getWindowStart() {
+    public Long getValueCount() {
+        return valueCount;
+    }
+
+    public void setValueCount(Long valueCount) {
+        this.valueCount = valueCount;
+    }
+
+    public Double getSumValue() {
+        return sumValue;
+    }
+
+    public void setSumValue(Double sumValue) {
+        this.sumValue = sumValue;
+    }
+
+    public Double getMinValue() {
+        return minValue;
+    }
+
+    public void setMinValue(Double minValue) {
+        this.minValue = minValue;
+    }
+
+    public Double getMaxValue() {
+        return maxValue;
+    }
+
+    public void setMaxValue(Double maxValue) {
+        this.maxValue = maxValue;
+    }
+
+    public Double getAvgValue() {
+        return avgValue;
+    }
+
+    public void setAvgValue(Double avgValue) {
+        this.avgValue = avgValue;
+    }
+
+    public Double getVarianceValue() {
+        return varianceValue;
+    }
+
+    public void setVarianceValue(Double varianceValue) {
+        this.varianceValue = varianceValue;
+    }
+
+    public long getWindowStart() {
         return windowStart;
     }
 
-    public void setWindowStart(LocalDateTime windowStart) {
+    public void setWindowStart(long windowStart) {
         this.windowStart = windowStart;
     }
 
-    public LocalDateTime getWindowEnd() {
+    public long getWindowEnd() {
         return windowEnd;
     }
 
-    public void setWindowEnd(LocalDateTime windowEnd) {
+    public void setWindowEnd(long windowEnd) {
         this.windowEnd = windowEnd;
     }
 
-    public LocalDateTime getCreatedTime() {
+    public long getCreatedTime() {
         return createdTime;
     }
 
-    public void setCreatedTime(LocalDateTime createdTime) {
+    public void setCreatedTime(long createdTime) {
         this.createdTime = createdTime;
     }
 
-    public LocalDateTime getUpdatedTime() {
+    public long getUpdatedTime() {
         return updatedTime;
     }
 
-    public void setUpdatedTime(LocalDateTime updatedTime) {
+    public void setUpdatedTime(long updatedTime) {
         this.updatedTime = updatedTime;
     }
 
+    public boolean isDelta() {
+        return delta;
+    }
+
+    public void setDelta(boolean delta) {
+        this.delta = delta;
+    }
+
     @Override
     public String toString() {
         return "SensorStatistics{" +
@@ -127,10 +219,17 @@ public class SensorStatistics implements Serializable {
                 ", templateId='" + templateId + '\'' +
                 ", deviceId='" + deviceId + '\'' +
                 ", dataCount=" + dataCount +
-                ", windowStart=" + windowStart +
-                ", windowEnd=" + windowEnd +
+                ", valueCount=" + valueCount +
+                ", sumValue=" + sumValue +
+                ", minValue=" + minValue +
+                ", maxValue=" + maxValue +
+                ", avgValue=" + avgValue +
+                ", varianceValue=" + varianceValue +
+                ", windowStart=" + DateTimeCodec.format(windowStart) +
+                ", windowEnd=" + DateTimeCodec.format(windowEnd) +
                 ", createdTime=" + createdTime +
                 ", updatedTime=" + updatedTime +
+                ", delta=" + delta +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.example.flink.model;
+
+import java.io.Serializable;
+
+/**
+ * 窗口统计累加器 - 单次遍历计算数量、和、最值、均值和方差（Welford算法）
+ *
+ * <p>sensor_value为空或不是有限数值（NaN、±Infinity）的记录只计入dataCount，不参与数值统计，
+ * 避免一条异常数值使整个窗口的和、均值和方差都变为NaN（MySQL也不接受NaN）。
+ * 累加器不保存template_id和device_id，输出时由分组键 {@link SensorKey} 提供。
+ */
+public class SensorStatisticsAccumulator implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long dataCount;
+    private long valueCount;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double m2;
+
+    public SensorStatisticsAccumulator() {
+    }
+
+    /**
+     * 累加一条记录
+     */
+    public void add(SensorData sensorData) {
+        dataCount++;
+
+        Double value = sensorData.getSensorValue();
+        if (value == null || !Double.isFinite(value)) {
+            return;
+        }
+        double v = value;
+        valueCount++;
+        sum += v;
+        if (v < min) {
+            min = v;
+        }
+        if (v > max) {
+            max = v;
+        }
+        double delta = v - mean;
+        mean += delta / valueCount;
+        m2 += delta * (v - mean);
+    }
+
+    /**
+     * 合并另一个累加器（Chan等人的并行方差算法）
+     */
+    public void merge(SensorStatisticsAccumulator other) {
+        dataCount += other.dataCount;
+
+        if (other.valueCount == 0) {
+            return;
+        }
+        if (valueCount == 0) {
+            valueCount = other.valueCount;
+            sum = other.sum;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+
+        long totalCount = valueCount + other.valueCount;
+        double delta = other.mean - mean;
+        mean += delta * other.valueCount / totalCount;
+        m2 += other.m2 + delta * delta * valueCount * other.valueCount / totalCount;
+        valueCount = totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 总体方差，没有数值时返回null
+     */
+    public Double getVariance() {
+        return valueCount > 0 ? m2 / valueCount : null;
+    }
+
+    /**
+     * 转换为窗口统计结果，窗口时间为UTC毫秒时间戳
+     */
+    public SensorStatistics toStatistics(SensorKey key, long windowStart, long windowEnd) {
+        SensorStatistics statistics = new SensorStatistics(
+                key.getTemplateId(),
+                key.getDeviceId(),
+                dataCount,
+                windowStart,
+                windowEnd);
+        statistics.setValueCount(valueCount);
+        if (valueCount > 0) {
+            statistics.setSumValue(sum);
+            statistics.setMinValue(min);
+            statistics.setMaxValue(max);
+            statistics.setAvgValue(mean);
+            statistics.setVarianceValue(getVariance());
+        }
+        return statistics;
+    }
+
+    /**
+     * 从窗口统计结果还原累加器，用于把下一级的统计结果合并为更粗粒度的汇总；方差为总体方差，m2 = 方差 × 数值条数
+     */
+    public static SensorStatisticsAccumulator fromStatistics(SensorStatistics statistics) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        accumulator.dataCount = statistics.getDataCount() != null ? statistics.getDataCount() : 0L;
+        long valueCount = statistics.getValueCount() != null ? statistics.getValueCount() : 0L;
+        if (valueCount > 0) {
+            accumulator.valueCount = valueCount;
+            accumulator.sum = statistics.getSumValue();
+            accumulator.min = statistics.getMinValue();
+            accumulator.max = statistics.getMaxValue();
+            accumulator.mean = statistics.getAvgValue();
+            accumulator.m2 = statistics.getVarianceValue() * valueCount;
+        }
+        return accumulator;
+    }
+
+    // Getters and Setters
+    public long getDataCount() {
+        return dataCount;
+    }
+
+    public void setDataCount(long dataCount) {
+        this.dataCount = dataCount;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public void setValueCount(long valueCount) {
+        this.valueCount = valueCount;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    public void setM2(double m2) {
+        this.m2 = m2;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorStatisticsAccumulator{" +
+                "dataCount=" + dataCount +
+                ", valueCount=" + valueCount +
+                ", sum=" + sum +
+                ", min=" + min +
+                ", max=" + max +
+                ", mean=" + mean +
+                ", m2=" + m2 +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.AlertRule;
+import com.example.flink.util.JsonUtils;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 告警规则反序列化 - 规则Topic中的JSON消息，无法解析的消息记录日志后跳过
+ */
+public class AlertRuleDeserializationSchema implements DeserializationSchema<AlertRule> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleDeserializationSchema.class);
+
+    private transient ObjectReader reader;
+
+    @Override
+    public void open(InitializationContext context) {
+        reader = JsonUtils.readerFor(AlertRule.class);
+    }
+
+    @Override
+    public AlertRule deserialize(byte[] message) {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+        try {
+            return reader.readValue(message);
+        } catch (IOException e) {
+            logger.warn("解析告警规则失败: {}, 消息: {}", e.getMessage(), new String(message, StandardCharsets.UTF_8));
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isEndOfStream(AlertRule nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<AlertRule> getProducedType() {
+        return TypeInformation.of(AlertRule.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.Alert;
+import com.example.flink.util.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+
+/**
+ * 告警序列化 - 写入告警Topic的JSON字节
+ */
+public class AlertSerializationSchema implements SerializationSchema<Alert> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient ObjectWriter writer;
+
+    @Override
+    public void open(InitializationContext context) {
+        writer = JsonUtils.getObjectMapper().writerFor(Alert.class);
+    }
+
+    @Override
+    public byte[] serialize(Alert alert) {
+        try {
+            return writer.writeValueAsBytes(alert);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("告警序列化失败: " + alert, e);
+        }
+    }
+}
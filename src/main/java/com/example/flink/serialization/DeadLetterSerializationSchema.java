@@ -0,0 +1,31 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.util.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+
+/**
+ * 死信记录序列化 - 写入死信Topic的JSON字节
+ */
+public class DeadLetterSerializationSchema implements SerializationSchema<DeadLetterRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient ObjectWriter writer;
+
+    @Override
+    public void open(InitializationContext context) {
+        writer = JsonUtils.getObjectMapper().writerFor(DeadLetterRecord.class);
+    }
+
+    @Override
+    public byte[] serialize(DeadLetterRecord record) {
+        try {
+            return writer.writeValueAsBytes(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("死信记录序列化失败: " + record, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.util.DateTimeCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 将 "yyyy-MM-dd HH:mm:ss" 格式的时间直接反序列化为UTC毫秒时间戳
+ *
+ * <p>直接读取JsonParser的字符缓冲区，不创建中间String和LocalDateTime。
+ * 作为 {@code StdDeserializer<Long>} 返回的值会被装箱；Bean中的long字段由 {@link EpochMillisDeserializerModifier}
+ * 替换为直接写入基本类型的属性，不经过Long。
+ * 与Jackson的LocalDateTime反序列化一样忽略首尾空白，空字符串和null视为没有时间。
+ */
+public class EpochMillisDateTimeDeserializer extends StdDeserializer<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    public EpochMillisDateTimeDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+        return parse(parser, ctxt);
+    }
+
+    /**
+     * 解析当前字符串token为毫秒时间戳，返回基本类型，供 {@link EpochMillisDeserializerModifier} 直接写入long字段
+     */
+    static long parse(JsonParser parser, DeserializationContext ctxt) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_NULL)) {
+            return SensorData.NO_TIMESTAMP;
+        }
+        if (!parser.hasToken(JsonToken.VALUE_STRING)) {
+            return (Long) ctxt.handleUnexpectedToken(LocalDateTime.class, parser);
+        }
+
+        char[] buffer = parser.getTextCharacters();
+        int start = parser.getTextOffset();
+        int end = start + parser.getTextLength();
+        while (start < end && Character.isWhitespace(buffer[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        if (start == end) {
+            return SensorData.NO_TIMESTAMP;
+        }
+
+        try {
+            return DateTimeCodec.parse(buffer, start, end - start);
+        } catch (DateTimeParseException e) {
+            return (Long) ctxt.handleWeirdStringValue(LocalDateTime.class,
+                    new String(buffer, start, end - start), e.getMessage());
+        }
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext ctxt) {
+        return SensorData.NO_TIMESTAMP;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.util.DateTimeCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 将UTC毫秒时间戳序列化为 "yyyy-MM-dd HH:mm:ss" 格式
+ */
+public class EpochMillisDateTimeSerializer extends StdSerializer<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    public EpochMillisDateTimeSerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (value == null || value == SensorData.NO_TIMESTAMP) {
+            generator.writeNull();
+            return;
+        }
+        char[] buffer = new char[DateTimeCodec.LENGTH];
+        DateTimeCodec.formatTo(value, buffer, 0);
+        generator.writeString(buffer, 0, DateTimeCodec.LENGTH);
+    }
+}
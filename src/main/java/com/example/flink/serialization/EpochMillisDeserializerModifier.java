@@ -0,0 +1,89 @@
+package com.example.flink.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+/**
+ * 把 {@code @JsonDeserialize(using = EpochMillisDateTimeDeserializer.class)} 标注的long字段替换为直接写入基本类型的属性
+ *
+ * <p>Jackson的字段属性先由反序列化器返回Object再写入字段，long时间戳每条消息都会装箱为Long。
+ * 替换后的属性直接调用 {@link EpochMillisDateTimeDeserializer#parse} 并通过 {@link Field#setLong} 写入，
+ * 解析结果和错误处理与原属性相同。
+ */
+public class EpochMillisDeserializerModifier extends BeanDeserializerModifier {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public BeanDeserializerBuilder updateBuilder(DeserializationConfig config, BeanDescription beanDesc,
+                                                 BeanDeserializerBuilder builder) {
+        for (BeanPropertyDefinition definition : beanDesc.findProperties()) {
+            AnnotatedField field = definition.getField();
+            if (field == null || field.getRawType() != long.class) {
+                continue;
+            }
+            JsonDeserialize annotation = field.getAnnotation(JsonDeserialize.class);
+            if (annotation == null || annotation.using() != EpochMillisDateTimeDeserializer.class) {
+                continue;
+            }
+            SettableBeanProperty property = builder.findProperty(definition.getFullName());
+            if (property != null) {
+                ClassUtil.checkAndFixAccess(field.getAnnotated(),
+                        config.isEnabled(MapperFeature.OVERRIDE_PUBLIC_ACCESS_MODIFIERS));
+                builder.addOrReplaceProperty(new EpochMillisProperty(property, field.getAnnotated()), true);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 解析为基本类型long后直接写入字段的属性
+     */
+    static final class EpochMillisProperty extends SettableBeanProperty.Delegating {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Field field;
+
+        EpochMillisProperty(SettableBeanProperty delegate, Field field) {
+            super(delegate);
+            this.field = field;
+        }
+
+        @Override
+        protected SettableBeanProperty withDelegate(SettableBeanProperty delegate) {
+            return new EpochMillisProperty(delegate, field);
+        }
+
+        @Override
+        public void deserializeAndSet(JsonParser parser, DeserializationContext ctxt, Object instance)
+                throws IOException {
+            long millis = EpochMillisDateTimeDeserializer.parse(parser, ctxt);
+            try {
+                field.setLong(instance, millis);
+            } catch (IllegalAccessException e) {
+                _throwAsIOE(parser, e, millis);
+            }
+        }
+
+        @Override
+        public Object deserializeSetAndReturn(JsonParser parser, DeserializationContext ctxt, Object instance)
+                throws IOException {
+            deserializeAndSet(parser, ctxt, instance);
+            return instance;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import com.example.flink.util.JsonUtils;
+import com.example.flink.util.LogRateLimiter;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.EitherTypeInfo;
+import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Kafka消息反序列化 - 直接从字节数组解析为SensorData，不经过中间String
+ *
+ * <p>消息中没有timestamp时使用Kafka记录时间戳补齐。解析成功的记录以 {@code Either.Right} 输出，
+ * 解析失败的记录连同失败原因以 {@code Either.Left} 输出，由下游路由到死信侧输出；空消息只计数后丢弃。
+ * 解析成功、失败和空消息各有计数器和每秒速率（60秒平均），每类错误另有一个计数器，失败日志经过限流且不打印堆栈。
+ */
+public class SensorDataDeserializationSchema
+        implements KafkaRecordDeserializationSchema<Either<DeadLetterRecord, SensorData>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorDataDeserializationSchema.class);
+
+    /**
+     * 每10秒最多输出10条解析失败日志
+     */
+    private static final int LOG_PERMITS = 10;
+    private static final long LOG_INTERVAL_MS = 10_000;
+
+    /**
+     * 日志中消息内容的最大长度
+     */
+    private static final int LOG_PAYLOAD_LENGTH = 256;
+
+    private transient ObjectReader reader;
+    private transient LogRateLimiter logRateLimiter;
+    private transient Counter parsedCounter;
+    private transient Counter failedCounter;
+    private transient Counter emptyPayloadCounter;
+    private transient Map<DeadLetterRecord.ErrorType, Counter> errorCounters;
+
+    @Override
+    public void open(DeserializationSchema.InitializationContext context) throws Exception {
+        reader = JsonUtils.readerFor(SensorData.class);
+        logRateLimiter = new LogRateLimiter(LOG_PERMITS, LOG_INTERVAL_MS);
+
+        MetricGroup metricGroup = context.getMetricGroup().addGroup("deserialization");
+        parsedCounter = registerCounterWithRate(metricGroup, "recordsParsed");
+        failedCounter = registerCounterWithRate(metricGroup, "recordsFailed");
+        emptyPayloadCounter = registerCounterWithRate(metricGroup, "emptyPayload");
+        errorCounters = new EnumMap<>(DeadLetterRecord.ErrorType.class);
+        for (DeadLetterRecord.ErrorType errorType : DeadLetterRecord.ErrorType.values()) {
+            // 迟到数据在窗口算子中产生，不属于解析错误
+            if (errorType == DeadLetterRecord.ErrorType.LATE_DATA) {
+                continue;
+            }
+            errorCounters.put(errorType, metricGroup.addGroup("errorType", errorType.name()).counter("errors"));
+        }
+    }
+
+    @Override
+    public void deserialize(ConsumerRecord<byte[], byte[]> record,
+                            Collector<Either<DeadLetterRecord, SensorData>> out) throws IOException {
+        byte[] payload = record.value();
+        if (isBlank(payload)) {
+            emptyPayloadCounter.inc();
+            return;
+        }
+
+        SensorData sensorData;
+        try {
+            sensorData = reader.readValue(payload);
+        } catch (IOException e) {
+            out.collect(Either.Left(toDeadLetter(record, e)));
+            return;
+        }
+        if (sensorData == null) {
+            // 消息为JSON字面量null时readValue返回null，与其他非对象的JSON值一样按字段错误处理
+            out.collect(Either.Left(toDeadLetter(record, DeadLetterRecord.ErrorType.INVALID_FIELD, "消息不是JSON对象")));
+            return;
+        }
+
+        if (!sensorData.hasTimestamp() && record.timestamp() >= 0) {
+            sensorData.setTimestamp(record.timestamp());
+        }
+        parsedCounter.inc();
+        out.collect(Either.Right(sensorData));
+    }
+
+    @Override
+    public TypeInformation<Either<DeadLetterRecord, SensorData>> getProducedType() {
+        return new EitherTypeInfo<>(
+                TypeInformation.of(DeadLetterRecord.class), TypeInformation.of(SensorData.class));
+    }
+
+    private DeadLetterRecord toDeadLetter(ConsumerRecord<byte[], byte[]> record, IOException e) {
+        String errorMessage = e instanceof JsonProcessingException
+                ? ((JsonProcessingException) e).getOriginalMessage()
+                : e.getMessage();
+        return toDeadLetter(record, classify(e), errorMessage);
+    }
+
+    private DeadLetterRecord toDeadLetter(ConsumerRecord<byte[], byte[]> record,
+                                          DeadLetterRecord.ErrorType errorType, String errorMessage) {
+        String payload = new String(record.value(), StandardCharsets.UTF_8);
+
+        failedCounter.inc();
+        errorCounters.get(errorType).inc();
+        long suppressed = logRateLimiter.tryAcquire();
+        if (suppressed >= 0) {
+            logger.warn("解析JSON失败 - 类型: {}, 原因: {}, 位置: {}-{}@{}, 消息: {}, 此前省略{}条",
+                    errorType, errorMessage, record.topic(), record.partition(), record.offset(),
+                    abbreviate(payload), suppressed);
+        }
+
+        return new DeadLetterRecord(record.topic(), record.partition(), record.offset(), record.timestamp(),
+                errorType, errorMessage, payload);
+    }
+
+    private static Counter registerCounterWithRate(MetricGroup metricGroup, String name) {
+        Counter counter = metricGroup.counter(name);
+        metricGroup.meter(name + "PerSecond", new MeterView(counter, 60));
+        return counter;
+    }
+
+    private static DeadLetterRecord.ErrorType classify(IOException e) {
+        if (e instanceof JsonParseException) {
+            return DeadLetterRecord.ErrorType.MALFORMED_JSON;
+        }
+        if (e instanceof MismatchedInputException) {
+            return DeadLetterRecord.ErrorType.INVALID_FIELD;
+        }
+        return DeadLetterRecord.ErrorType.UNKNOWN;
+    }
+
+    private static String abbreviate(String payload) {
+        return payload.length() <= LOG_PAYLOAD_LENGTH ? payload : payload.substring(0, LOG_PAYLOAD_LENGTH) + "...";
+    }
+
+    private static boolean isBlank(byte[] payload) {
+        if (payload == null) {
+            return true;
+        }
+        for (byte b : payload) {
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
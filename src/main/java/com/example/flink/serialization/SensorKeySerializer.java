@@ -0,0 +1,87 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.SensorKey;
+import org.apache.flink.api.common.typeutils.SimpleTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+import java.io.IOException;
+
+/**
+ * 分组键序列化器
+ *
+ * <p>依次写出template_id和device_id（变长长度 + 字符），没有POJO序列化器的空值标记和子类标记，
+ * 也不需要拼接分隔符。网络传输和状态后端中的每个键都使用这种格式。
+ */
+public final class SensorKeySerializer extends TypeSerializerSingleton<SensorKey> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SensorKeySerializer INSTANCE = new SensorKeySerializer();
+
+    @Override
+    public boolean isImmutableType() {
+        return true;
+    }
+
+    @Override
+    public SensorKey createInstance() {
+        return new SensorKey("", "");
+    }
+
+    @Override
+    public SensorKey copy(SensorKey from) {
+        return from;
+    }
+
+    @Override
+    public SensorKey copy(SensorKey from, SensorKey reuse) {
+        return from;
+    }
+
+    @Override
+    public int getLength() {
+        return -1;
+    }
+
+    @Override
+    public void serialize(SensorKey record, DataOutputView target) throws IOException {
+        StringValue.writeString(record.getTemplateId(), target);
+        StringValue.writeString(record.getDeviceId(), target);
+    }
+
+    @Override
+    public SensorKey deserialize(DataInputView source) throws IOException {
+        String templateId = StringValue.readString(source);
+        return new SensorKey(templateId, StringValue.readString(source));
+    }
+
+    @Override
+    public SensorKey deserialize(SensorKey reuse, DataInputView source) throws IOException {
+        return deserialize(source);
+    }
+
+    @Override
+    public void copy(DataInputView source, DataOutputView target) throws IOException {
+        StringValue.copyString(source, target);
+        StringValue.copyString(source, target);
+    }
+
+    @Override
+    public TypeSerializerSnapshot<SensorKey> snapshotConfiguration() {
+        return new SensorKeySerializerSnapshot();
+    }
+
+    /**
+     * 序列化器快照，格式没有可配置项
+     */
+    public static final class SensorKeySerializerSnapshot extends SimpleTypeSerializerSnapshot<SensorKey> {
+
+        public SensorKeySerializerSnapshot() {
+            super(() -> INSTANCE);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.SensorKey;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * 分组键的类型信息，通过 {@code @TypeInfo} 注解绑定到 {@link SensorKey}
+ */
+public class SensorKeyTypeInfo extends TypeInformation<SensorKey> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SensorKeyTypeInfo INSTANCE = new SensorKeyTypeInfo();
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<SensorKey> getTypeClass() {
+        return SensorKey.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return true;
+    }
+
+    @Override
+    public TypeSerializer<SensorKey> createSerializer(ExecutionConfig config) {
+        return SensorKeySerializer.INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorKey";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SensorKeyTypeInfo;
+    }
+
+    @Override
+    public int hashCode() {
+        return SensorKeyTypeInfo.class.hashCode();
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof SensorKeyTypeInfo;
+    }
+
+    /**
+     * 类型信息工厂
+     */
+    public static class Factory extends TypeInfoFactory<SensorKey> {
+
+        @Override
+        public TypeInformation<SensorKey> createTypeInfo(Type t, Map<String, TypeInformation<?>> genericParameters) {
+            return INSTANCE;
+        }
+    }
+}
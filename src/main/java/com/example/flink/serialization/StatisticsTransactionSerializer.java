@@ -0,0 +1,142 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.sink.TransactionalDatabaseSinkFunction.StatisticsTransaction;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.ListSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 两阶段提交事务对象的序列化器
+ *
+ * <p>事务中的统计数据列表使用 {@code ListSerializer<PojoSerializer>} 序列化，避免List字段退化为Kryo。
+ * 快照基于 {@link CompositeTypeSerializerSnapshot}，SensorStatistics增减字段时沿用POJO序列化器的状态迁移。
+ */
+public final class StatisticsTransactionSerializer extends TypeSerializer<StatisticsTransaction> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TypeSerializer<List<SensorStatistics>> rowsSerializer;
+
+    public StatisticsTransactionSerializer() {
+        this(new ListSerializer<>(
+                TypeInformation.of(SensorStatistics.class).createSerializer(new ExecutionConfig())));
+    }
+
+    StatisticsTransactionSerializer(TypeSerializer<List<SensorStatistics>> rowsSerializer) {
+        this.rowsSerializer = rowsSerializer;
+    }
+
+    @Override
+    public boolean isImmutableType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<StatisticsTransaction> duplicate() {
+        TypeSerializer<List<SensorStatistics>> duplicated = rowsSerializer.duplicate();
+        return duplicated == rowsSerializer ? this : new StatisticsTransactionSerializer(duplicated);
+    }
+
+    @Override
+    public StatisticsTransaction createInstance() {
+        return new StatisticsTransaction(null, new ArrayList<>());
+    }
+
+    @Override
+    public StatisticsTransaction copy(StatisticsTransaction from) {
+        return new StatisticsTransaction(from.getTransactionId(), rowsSerializer.copy(from.getRows()));
+    }
+
+    @Override
+    public StatisticsTransaction copy(StatisticsTransaction from, StatisticsTransaction reuse) {
+        return copy(from);
+    }
+
+    @Override
+    public int getLength() {
+        return -1;
+    }
+
+    @Override
+    public void serialize(StatisticsTransaction record, DataOutputView target) throws IOException {
+        target.writeUTF(record.getTransactionId());
+        rowsSerializer.serialize(record.getRows(), target);
+    }
+
+    @Override
+    public StatisticsTransaction deserialize(DataInputView source) throws IOException {
+        String transactionId = source.readUTF();
+        return new StatisticsTransaction(transactionId, rowsSerializer.deserialize(source));
+    }
+
+    @Override
+    public StatisticsTransaction deserialize(StatisticsTransaction reuse, DataInputView source) throws IOException {
+        return deserialize(source);
+    }
+
+    @Override
+    public void copy(DataInputView source, DataOutputView target) throws IOException {
+        target.writeUTF(source.readUTF());
+        rowsSerializer.copy(source, target);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof StatisticsTransactionSerializer
+                && rowsSerializer.equals(((StatisticsTransactionSerializer) obj).rowsSerializer);
+    }
+
+    @Override
+    public int hashCode() {
+        return rowsSerializer.hashCode();
+    }
+
+    @Override
+    public TypeSerializerSnapshot<StatisticsTransaction> snapshotConfiguration() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * 序列化器快照，用于从检查点/保存点恢复时的兼容性判断
+     */
+    public static final class Snapshot
+            extends CompositeTypeSerializerSnapshot<StatisticsTransaction, StatisticsTransactionSerializer> {
+
+        private static final int CURRENT_VERSION = 1;
+
+        public Snapshot() {
+            super(StatisticsTransactionSerializer.class);
+        }
+
+        Snapshot(StatisticsTransactionSerializer serializer) {
+            super(serializer);
+        }
+
+        @Override
+        protected int getCurrentOuterSnapshotVersion() {
+            return CURRENT_VERSION;
+        }
+
+        @Override
+        protected TypeSerializer<?>[] getNestedSerializers(StatisticsTransactionSerializer outerSerializer) {
+            return new TypeSerializer<?>[]{outerSerializer.rowsSerializer};
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected StatisticsTransactionSerializer createOuterSerializerWithNestedSerializers(
+                TypeSerializer<?>[] nestedSerializers) {
+            return new StatisticsTransactionSerializer((TypeSerializer<List<SensorStatistics>>) nestedSerializers[0]);
+        }
+    }
+}
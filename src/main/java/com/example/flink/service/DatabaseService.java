@@ -2,6 +2,7 @@ package com.example.flink.service;
 
 import com.example.flink.config.FlinkProperties;
 import com.example.flink.model.SensorStatistics;
+import com.example.flink.util.DateTimeCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,11 @@ import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 数据库服务类 - 处理统计数据的CRUD操作
@@ -18,11 +24,99 @@ public class DatabaseService {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
 
-    @Autowired
-    private DataSource dataSource;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * 窗口统计表
+     */
+    public static final String STATISTICS_TABLE = "sensor_statistics";
+
+    /**
+     * 小时汇总表，由窗口统计逐级汇总
+     */
+    public static final String HOURLY_TABLE = "sensor_statistics_hourly";
+
+    /**
+     * 天汇总表，由小时汇总逐级汇总
+     */
+    public static final String DAILY_TABLE = "sensor_statistics_daily";
+
+    /**
+     * upsert语句的插入列，与{@link #setStatementParameters}绑定的参数顺序一致
+     */
+    static final String INSERT_COLUMNS = "template_id, device_id, data_count, value_count, sum_value, min_value, "
+            + "max_value, avg_value, variance_value, window_start, window_end, created_time, updated_time";
+
+    /**
+     * 一行的参数占位符
+     */
+    static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final int PARAMETERS_PER_ROW = 13;
+
+    /**
+     * 精确一次Sink的事务登记表，与统计数据在同一个数据库事务中写入，用于识别重复提交的事务
+     */
+    public static final String TRANSACTION_LOG_TABLE = "sink_transaction_log";
+
+    /**
+     * {@link #commitTransaction}在事务此前已提交过时的返回值
+     */
+    public static final int ALREADY_COMMITTED = -1;
+
+    private final DataSource dataSource;
+
+    private final FlinkProperties flinkProperties;
+
+    /**
+     * 写入的表，汇总表与窗口统计表结构相同
+     */
+    private final String tableName;
+
+    /**
+     * 配置了数据库专用写入方式时使用，否则为null
+     */
+    private final StatisticsBulkWriter bulkWriter;
 
     @Autowired
-    private FlinkProperties flinkProperties;
+    public DatabaseService(DataSource dataSource, FlinkProperties flinkProperties) {
+        this(dataSource, flinkProperties, STATISTICS_TABLE);
+    }
+
+    public DatabaseService(DataSource dataSource, FlinkProperties flinkProperties, String tableName) {
+        this.dataSource = dataSource;
+        this.flinkProperties = flinkProperties;
+        this.tableName = tableName;
+        this.bulkWriter = createBulkWriter();
+    }
+
+    private StatisticsBulkWriter createBulkWriter() {
+        FlinkProperties.Database database = flinkProperties.getDatabase();
+        if ("mysql".equalsIgnoreCase(database.getType())) {
+            String writeMode = database.getMysql().getWriteMode();
+            if (writeMode == null || "batch".equalsIgnoreCase(writeMode)) {
+                return null;
+            }
+            if ("multi-row".equalsIgnoreCase(writeMode)) {
+                return new MySqlBulkStatisticsWriter(this, false);
+            }
+            if ("load-data".equalsIgnoreCase(writeMode)) {
+                return new MySqlBulkStatisticsWriter(this, true);
+            }
+            throw new IllegalArgumentException("不支持的MySQL写入模式: " + writeMode + "，可选: batch, multi-row, load-data");
+        }
+        if ("postgresql".equalsIgnoreCase(database.getType())) {
+            String writeMode = database.getPostgresql().getWriteMode();
+            if (writeMode == null || "upsert".equalsIgnoreCase(writeMode)) {
+                return null;
+            }
+            if ("copy".equalsIgnoreCase(writeMode)) {
+                return new PostgresCopyStatisticsWriter(this);
+            }
+            throw new IllegalArgumentException("不支持的PostgreSQL写入模式: " + writeMode + "，可选: upsert, copy");
+        }
+        return null;
+    }
 
     /**
      * 初始化数据库表结构
@@ -34,19 +128,39 @@ public class DatabaseService {
              Statement statement = connection.createStatement()) {
             
             statement.execute(createTableSql);
-            logger.info("数据库表初始化完成");
+            logger.info("数据库表初始化完成: {}", tableName);
             
         } catch (SQLException e) {
             logger.error("数据库表初始化失败", e);
             throw new RuntimeException("数据库表初始化失败", e);
         }
+        
+        if (isPartitioned()) {
+            new PartitionMaintenanceService(dataSource, flinkProperties).maintain();
+        }
+    }
+
+    /**
+     * 检查表中有写入语句用到的所有列。旧版本创建的表没有数值统计列，建表语句带IF NOT EXISTS不会补齐，
+     * 缺列时在Sink启动阶段失败并提示执行升级脚本，而不是等到第一次写入时才报SQL错误
+     */
+    public void verifyTableColumns() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT " + INSERT_COLUMNS + " FROM " + tableName + " WHERE 1 = 0").close();
+        } catch (SQLException e) {
+            String script = "scripts/migrate-" + flinkProperties.getDatabase().getType().toLowerCase() + ".sql";
+            logger.error("数据库表{}缺少写入所需的列，请先执行升级脚本{}", tableName, script, e);
+            throw new RuntimeException("数据库表" + tableName + "缺少写入所需的列（" + INSERT_COLUMNS
+                    + "），旧版本创建的表请先执行升级脚本" + script, e);
+        }
     }
 
     /**
      * 插入或更新统计数据（Upsert操作）
      */
     public void upsertStatistics(SensorStatistics statistics) {
-        String upsertSql = getUpsertSql();
+        String upsertSql = statistics.isDelta() ? getDeltaUpsertSql() : getUpsertSql();
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(upsertSql)) {
@@ -66,69 +180,312 @@ public class DatabaseService {
      * 批量插入或更新统计数据
      */
     public void batchUpsertStatistics(Iterable<SensorStatistics> statisticsList) {
-        String upsertSql = getUpsertSql();
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(upsertSql)) {
-            
+        batchUpsertStatistics(statisticsList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 批量插入或更新统计数据，在同一个连接和事务内按batchSize分批执行
+     *
+     * <p>配置了数据库专用写入方式时由对应的写入器完成，见{@link PostgresCopyStatisticsWriter}、
+     * {@link MySqlBulkStatisticsWriter}。
+     *
+     * @param statisticsList 统计数据
+     * @param batchSize      每次executeBatch的语句数
+     * @return 数据库报告的影响行数（MySQL中更新已有行计为2；驱动未返回行数的语句计为1）
+     */
+    public int batchUpsertStatistics(Iterable<SensorStatistics> statisticsList, int batchSize) {
+        try (Connection connection = dataSource.getConnection()) {
             connection.setAutoCommit(false);
-            
-            int batchSize = 0;
-            for (SensorStatistics statistics : statisticsList) {
-                setStatementParameters(statement, statistics);
-                statement.addBatch();
-                batchSize++;
-                
-                if (batchSize % 100 == 0) {
-                    statement.executeBatch();
-                    statement.clearBatch();
-                }
-            }
-            
-            if (batchSize % 100 != 0) {
-                statement.executeBatch();
+            try {
+                int affectedRows = writeStatistics(connection, statisticsList, batchSize);
+                connection.commit();
+                return affectedRows;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
-            
-            connection.commit();
-            logger.info("批量统计数据Upsert完成，总数: {}", batchSize);
-            
         } catch (SQLException e) {
             logger.error("批量统计数据Upsert失败", e);
             throw new RuntimeException("批量统计数据Upsert失败", e);
         }
     }
 
+    /**
+     * 幂等地提交一个Sink事务：在同一个数据库事务中先登记事务ID再写入统计数据，事务ID已登记说明此前已经提交过，跳过写入
+     *
+     * <p>迟到增量按累加合并，同一事务重复提交会重复累加。精确一次Sink从检查点恢复时会重新提交已预提交的事务，
+     * 提交重试也可能遇到数据库已提交但确认丢失的情况，因此必须通过该方法提交。登记表见{@link #initializeTransactionLog()}。
+     *
+     * @param transactionId  Sink事务ID
+     * @param statisticsList 统计数据
+     * @param batchSize      每次executeBatch的语句数
+     * @return 数据库报告的影响行数，事务此前已提交过时返回{@link #ALREADY_COMMITTED}
+     */
+    public int commitTransaction(String transactionId, Iterable<SensorStatistics> statisticsList, int batchSize) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int registered;
+                try (PreparedStatement statement = connection.prepareStatement(getRegisterTransactionSql())) {
+                    statement.setString(1, transactionId);
+                    statement.setString(2, tableName);
+                    statement.setLong(3, System.currentTimeMillis());
+                    registered = statement.executeUpdate();
+                }
+                if (registered == 0) {
+                    connection.rollback();
+                    logger.info("事务此前已提交，跳过写入 - 事务ID: {}, 表: {}", transactionId, tableName);
+                    return ALREADY_COMMITTED;
+                }
+                int affectedRows = writeStatistics(connection, statisticsList, batchSize);
+                connection.commit();
+                return affectedRows;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("事务提交失败 - 事务ID: {}", transactionId, e);
+            throw new RuntimeException("事务提交失败", e);
+        }
+    }
+
+    /**
+     * 创建精确一次Sink的事务登记表，作业启动时调用
+     */
+    public void initializeTransactionLog() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(getCreateTransactionLogSql());
+            logger.info("数据库表初始化完成: {}", TRANSACTION_LOG_TABLE);
+        } catch (SQLException e) {
+            logger.error("事务登记表初始化失败", e);
+            throw new RuntimeException("事务登记表初始化失败", e);
+        }
+    }
+
+    /**
+     * 删除登记时间早于committedBefore（毫秒时间戳）的事务ID
+     *
+     * @return 删除的行数
+     */
+    public int purgeTransactionLog(long committedBefore) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM " + TRANSACTION_LOG_TABLE + " WHERE committed_time < ?")) {
+            statement.setLong(1, committedBefore);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("事务登记表清理失败", e);
+            throw new RuntimeException("事务登记表清理失败", e);
+        }
+    }
+
+    /**
+     * 在调用方的连接和事务内写入统计数据，不提交；配置了数据库专用写入方式时由对应的写入器完成
+     */
+    private int writeStatistics(Connection connection, Iterable<SensorStatistics> statisticsList, int batchSize)
+            throws SQLException {
+        int affectedRows = 0;
+        for (List<SensorStatistics> segment : splitAtRewrittenWindows(statisticsList)) {
+            affectedRows += bulkWriter != null
+                    ? bulkWriter.write(connection, segment, batchSize)
+                    : writeSegment(connection, segment, batchSize);
+        }
+        return affectedRows;
+    }
+
+    /**
+     * 各写入方式都先写完整结果再写增量。同一窗口的增量之后又出现完整结果时（如至少一次模式下的重放），
+     * 后面的完整结果会先于前面的增量写入，增量被叠加到它上面；因此在这样的完整结果处切分，各段依次写入，
+     * 保持同一窗口的到达顺序。没有迟到增量时只有一段。
+     */
+    static List<List<SensorStatistics>> splitAtRewrittenWindows(Iterable<SensorStatistics> statisticsList) {
+        List<List<SensorStatistics>> segments = new ArrayList<>();
+        List<SensorStatistics> segment = new ArrayList<>();
+        Set<WindowKey> deltaWindows = new HashSet<>();
+        for (SensorStatistics statistics : statisticsList) {
+            if (statistics.isDelta()) {
+                deltaWindows.add(new WindowKey(statistics));
+            } else if (!deltaWindows.isEmpty() && deltaWindows.contains(new WindowKey(statistics))) {
+                segments.add(segment);
+                segment = new ArrayList<>();
+                deltaWindows.clear();
+            }
+            segment.add(statistics);
+        }
+        if (!segment.isEmpty()) {
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private int writeSegment(Connection connection, List<SensorStatistics> statisticsList, int batchSize)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(getUpsertSql())) {
+            // 迟到增量使用单独的合并语句，只在出现增量时创建
+            PreparedStatement deltaStatement = null;
+            Set<WindowKey> pendingWindows = newPendingWindows();
+            Set<WindowKey> pendingDeltaWindows = newPendingWindows();
+            int count = 0;
+            int pending = 0;
+            int pendingDeltas = 0;
+            int affectedRows = 0;
+            try {
+                for (SensorStatistics statistics : statisticsList) {
+                    count++;
+                    if (!statistics.isDelta()) {
+                        if (repeatsPendingWindow(pendingWindows, statistics)) {
+                            affectedRows += sumAffectedRows(statement.executeBatch());
+                            pending = 0;
+                        }
+                        setStatementParameters(statement, statistics);
+                        statement.addBatch();
+                        if (++pending == batchSize) {
+                            affectedRows += executeBatch(statement, pendingWindows);
+                            pending = 0;
+                        }
+                        continue;
+                    }
+                    
+                    if (deltaStatement == null) {
+                        deltaStatement = connection.prepareStatement(getDeltaUpsertSql());
+                    }
+                    if (repeatsPendingWindow(pendingDeltaWindows, statistics)) {
+                        // 同一窗口的完整结果总是先于它的增量，先执行未提交的覆盖写入
+                        if (pending > 0) {
+                            affectedRows += executeBatch(statement, pendingWindows);
+                            pending = 0;
+                        }
+                        affectedRows += sumAffectedRows(deltaStatement.executeBatch());
+                        pendingDeltas = 0;
+                    }
+                    setStatementParameters(deltaStatement, statistics);
+                    deltaStatement.addBatch();
+                    if (++pendingDeltas == batchSize) {
+                        if (pending > 0) {
+                            affectedRows += executeBatch(statement, pendingWindows);
+                            pending = 0;
+                        }
+                        affectedRows += executeBatch(deltaStatement, pendingDeltaWindows);
+                        pendingDeltas = 0;
+                    }
+                }
+                
+                if (pending > 0) {
+                    affectedRows += sumAffectedRows(statement.executeBatch());
+                }
+                if (pendingDeltas > 0) {
+                    affectedRows += sumAffectedRows(deltaStatement.executeBatch());
+                }
+            } finally {
+                if (deltaStatement != null) {
+                    deltaStatement.close();
+                }
+            }
+            logger.debug("批量统计数据Upsert完成，总数: {}, 影响行数: {}", count, affectedRows);
+            return affectedRows;
+        }
+    }
+
+    /**
+     * PostgreSQL驱动（reWriteBatchedInserts）把一批INSERT改写为多行语句，而一条语句中ON CONFLICT不能两次更新同一行，
+     * 因此要记录当前批次已绑定的窗口；MySQL的多行ON DUPLICATE KEY UPDATE逐行处理，不需要记录，返回null
+     */
+    Set<WindowKey> newPendingWindows() {
+        return "postgresql".equalsIgnoreCase(flinkProperties.getDatabase().getType()) ? new HashSet<>() : null;
+    }
+
+    /**
+     * 记录待绑定的窗口，窗口已在当前批次中时返回true，调用方需先执行已绑定的批次
+     */
+    static boolean repeatsPendingWindow(Set<WindowKey> pendingWindows, SensorStatistics statistics) {
+        if (pendingWindows == null) {
+            return false;
+        }
+        WindowKey key = new WindowKey(statistics);
+        if (pendingWindows.add(key)) {
+            return false;
+        }
+        pendingWindows.clear();
+        pendingWindows.add(key);
+        return true;
+    }
+
+    static int executeBatch(PreparedStatement statement, Set<WindowKey> pendingWindows) throws SQLException {
+        if (pendingWindows != null) {
+            pendingWindows.clear();
+        }
+        return sumAffectedRows(statement.executeBatch());
+    }
+
+    static int sumAffectedRows(int[] updateCounts) {
+        int sum = 0;
+        for (int updateCount : updateCounts) {
+            sum += updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+        }
+        return sum;
+    }
+
+    /**
+     * 开启分区时按window_start范围分区，分区表的主键和唯一键都必须包含分区列，因此主键改为(id, window_start)；
+     * 初始只有兜底分区，具体分区由{@link PartitionMaintenanceService}创建。汇总表数据量小，不分区。
+     *
+     * <p>PostgreSQL的索引名在模式内唯一，汇总表的约束和索引名以表名为前缀。
+     */
     private String getCreateTableSql() {
         String databaseType = flinkProperties.getDatabase().getType();
+        boolean partitioned = isPartitioned();
         
         if ("mysql".equalsIgnoreCase(databaseType)) {
-            return "CREATE TABLE IF NOT EXISTS sensor_statistics (" +
-                    "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                    "id BIGINT AUTO_INCREMENT" + (partitioned ? "," : " PRIMARY KEY,") +
                     "template_id VARCHAR(50) NOT NULL," +
                     "device_id VARCHAR(50) NOT NULL," +
                     "data_count BIGINT NOT NULL DEFAULT 0," +
+                    "value_count BIGINT NOT NULL DEFAULT 0," +
+                    "sum_value DOUBLE NULL," +
+                    "min_value DOUBLE NULL," +
+                    "max_value DOUBLE NULL," +
+                    "avg_value DOUBLE NULL," +
+                    "variance_value DOUBLE NULL," +
                     "window_start DATETIME NOT NULL," +
                     "window_end DATETIME NOT NULL," +
                     "created_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP," +
                     "updated_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                    (partitioned ? "PRIMARY KEY (id, window_start)," : "") +
                     "UNIQUE KEY uk_template_device_window (template_id, device_id, window_start, window_end)," +
                     "INDEX idx_template_device (template_id, device_id)," +
                     "INDEX idx_window_time (window_start, window_end)" +
-                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci" +
+                    (partitioned ? " PARTITION BY RANGE COLUMNS(window_start) (PARTITION "
+                            + PartitionMaintenanceService.MYSQL_MAX_PARTITION + " VALUES LESS THAN (MAXVALUE))" : "");
         } else if ("postgresql".equalsIgnoreCase(databaseType)) {
-            return "CREATE TABLE IF NOT EXISTS sensor_statistics (" +
-                    "id BIGSERIAL PRIMARY KEY," +
+            return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                    "id BIGSERIAL" + (partitioned ? "," : " PRIMARY KEY,") +
                     "template_id VARCHAR(50) NOT NULL," +
                     "device_id VARCHAR(50) NOT NULL," +
                     "data_count BIGINT NOT NULL DEFAULT 0," +
+                    "value_count BIGINT NOT NULL DEFAULT 0," +
+                    "sum_value DOUBLE PRECISION," +
+                    "min_value DOUBLE PRECISION," +
+                    "max_value DOUBLE PRECISION," +
+                    "avg_value DOUBLE PRECISION," +
+                    "variance_value DOUBLE PRECISION," +
                     "window_start TIMESTAMP NOT NULL," +
                     "window_end TIMESTAMP NOT NULL," +
                     "created_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
                     "updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                    "CONSTRAINT uk_template_device_window UNIQUE (template_id, device_id, window_start, window_end)" +
-                    "); " +
-                    "CREATE INDEX IF NOT EXISTS idx_template_device ON sensor_statistics (template_id, device_id); " +
-                    "CREATE INDEX IF NOT EXISTS idx_window_time ON sensor_statistics (window_start, window_end); " +
+                    (partitioned ? "PRIMARY KEY (id, window_start)," : "") +
+                    "CONSTRAINT " + indexName("uk_template_device_window") +
+                    " UNIQUE (template_id, device_id, window_start, window_end)" +
+                    (partitioned ? ") PARTITION BY RANGE (window_start); "
+                            + "CREATE TABLE IF NOT EXISTS " + PartitionMaintenanceService.POSTGRES_DEFAULT_PARTITION
+                            + " PARTITION OF sensor_statistics DEFAULT; " : "); ") +
+                    "CREATE INDEX IF NOT EXISTS " + indexName("idx_template_device") +
+                    " ON " + tableName + " (template_id, device_id); " +
+                    "CREATE INDEX IF NOT EXISTS " + indexName("idx_window_time") +
+                    " ON " + tableName + " (window_start, window_end); " +
                     "CREATE OR REPLACE FUNCTION update_updated_time_column() " +
                     "RETURNS TRIGGER AS $$ " +
                     "BEGIN " +
@@ -136,9 +493,9 @@ public class DatabaseService {
                     "    RETURN NEW; " +
                     "END; " +
                     "$$ language 'plpgsql'; " +
-                    "DROP TRIGGER IF EXISTS update_sensor_statistics_updated_time ON sensor_statistics; " +
-                    "CREATE TRIGGER update_sensor_statistics_updated_time " +
-                    "    BEFORE UPDATE ON sensor_statistics " +
+                    "DROP TRIGGER IF EXISTS update_" + tableName + "_updated_time ON " + tableName + "; " +
+                    "CREATE TRIGGER update_" + tableName + "_updated_time " +
+                    "    BEFORE UPDATE ON " + tableName + " " +
                     "    FOR EACH ROW " +
                     "    EXECUTE FUNCTION update_updated_time_column();";
         } else {
@@ -146,34 +503,224 @@ public class DatabaseService {
         }
     }
 
-    private String getUpsertSql() {
+    private boolean isPartitioned() {
+        return STATISTICS_TABLE.equals(tableName) && flinkProperties.getDatabase().getPartitioning().isEnabled();
+    }
+
+    private String indexName(String name) {
+        return STATISTICS_TABLE.equals(tableName) ? name : tableName + "_" + name;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    String getUpsertSql() {
         String databaseType = flinkProperties.getDatabase().getType();
         
         if ("mysql".equalsIgnoreCase(databaseType)) {
-            return "INSERT INTO sensor_statistics (template_id, device_id, data_count, window_start, window_end, created_time, updated_time) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            return "INSERT INTO " + tableName + " (" + INSERT_COLUMNS + ") " +
+                    "VALUES " + ROW_PLACEHOLDERS + " " +
                     "ON DUPLICATE KEY UPDATE " +
                     "    data_count = VALUES(data_count), " +
+                    "    value_count = VALUES(value_count), " +
+                    "    sum_value = VALUES(sum_value), " +
+                    "    min_value = VALUES(min_value), " +
+                    "    max_value = VALUES(max_value), " +
+                    "    avg_value = VALUES(avg_value), " +
+                    "    variance_value = VALUES(variance_value), " +
                     "    updated_time = VALUES(updated_time)";
         } else if ("postgresql".equalsIgnoreCase(databaseType)) {
-            return "INSERT INTO sensor_statistics (template_id, device_id, data_count, window_start, window_end, created_time, updated_time) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            return "INSERT INTO " + tableName + " (" + INSERT_COLUMNS + ") " +
+                    "VALUES " + ROW_PLACEHOLDERS + " " +
                     "ON CONFLICT (template_id, device_id, window_start, window_end) " +
                     "DO UPDATE SET " +
                     "    data_count = EXCLUDED.data_count, " +
+                    "    value_count = EXCLUDED.value_count, " +
+                    "    sum_value = EXCLUDED.sum_value, " +
+                    "    min_value = EXCLUDED.min_value, " +
+                    "    max_value = EXCLUDED.max_value, " +
+                    "    avg_value = EXCLUDED.avg_value, " +
+                    "    variance_value = EXCLUDED.variance_value, " +
                     "    updated_time = EXCLUDED.updated_time";
         } else {
             throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
         }
     }
 
-    private void setStatementParameters(PreparedStatement statement, SensorStatistics statistics) throws SQLException {
-        statement.setString(1, statistics.getTemplateId());
-        statement.setString(2, statistics.getDeviceId());
-        statement.setLong(3, statistics.getDataCount());
-        statement.setTimestamp(4, Timestamp.valueOf(statistics.getWindowStart()));
-        statement.setTimestamp(5, Timestamp.valueOf(statistics.getWindowEnd()));
-        statement.setTimestamp(6, Timestamp.valueOf(statistics.getCreatedTime()));
-        statement.setTimestamp(7, Timestamp.valueOf(statistics.getUpdatedTime()));
+    private String getCreateTransactionLogSql() {
+        String databaseType = flinkProperties.getDatabase().getType();
+        
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            return "CREATE TABLE IF NOT EXISTS " + TRANSACTION_LOG_TABLE + " (" +
+                    "transaction_id VARCHAR(64) NOT NULL PRIMARY KEY," +
+                    "table_name VARCHAR(64) NOT NULL," +
+                    "committed_time BIGINT NOT NULL," +
+                    "INDEX idx_committed_time (committed_time)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+        } else if ("postgresql".equalsIgnoreCase(databaseType)) {
+            return "CREATE TABLE IF NOT EXISTS " + TRANSACTION_LOG_TABLE + " (" +
+                    "transaction_id VARCHAR(64) NOT NULL PRIMARY KEY," +
+                    "table_name VARCHAR(64) NOT NULL," +
+                    "committed_time BIGINT NOT NULL); " +
+                    "CREATE INDEX IF NOT EXISTS " + TRANSACTION_LOG_TABLE + "_idx_committed_time" +
+                    " ON " + TRANSACTION_LOG_TABLE + " (committed_time);";
+        } else {
+            throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
+        }
+    }
+
+    /**
+     * 登记事务ID的语句，事务ID已存在时不报错、影响行数为0
+     */
+    private String getRegisterTransactionSql() {
+        String databaseType = flinkProperties.getDatabase().getType();
+        
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            return "INSERT IGNORE INTO " + TRANSACTION_LOG_TABLE +
+                    " (transaction_id, table_name, committed_time) VALUES (?, ?, ?)";
+        } else if ("postgresql".equalsIgnoreCase(databaseType)) {
+            return "INSERT INTO " + TRANSACTION_LOG_TABLE +
+                    " (transaction_id, table_name, committed_time) VALUES (?, ?, ?)" +
+                    " ON CONFLICT (transaction_id) DO NOTHING";
+        } else {
+            throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
+        }
+    }
+
+    /**
+     * 迟到增量的合并语句：数量和总和累加，最值取两者中的极值，均值和方差按两组数据合并（与累加器的merge相同）
+     *
+     * <p>均值和方差写成以已有值为基准的增量形式，新值不出现在乘法的左侧，H2的MySQL兼容模式也能解析。
+     *
+     * <p>MySQL按从左到右的顺序赋值且后面的表达式读到已更新的列，因此每个表达式只引用在它之后才赋值的列和它自身；
+     * PostgreSQL中所有表达式都读取更新前的行，两种语义下结果相同。
+     */
+    String getDeltaUpsertSql() {
+        String databaseType = flinkProperties.getDatabase().getType();
+        String old;
+        String excluded;
+        String conflict;
+        
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            old = "";
+            excluded = "VALUES(%s)";
+            conflict = "ON DUPLICATE KEY UPDATE ";
+        } else if ("postgresql".equalsIgnoreCase(databaseType)) {
+            old = tableName + ".";
+            excluded = "EXCLUDED.%s";
+            conflict = "ON CONFLICT (template_id, device_id, window_start, window_end) DO UPDATE SET ";
+        } else {
+            throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
+        }
+        
+        String n1 = old + "value_count";
+        String n2 = String.format(excluded, "value_count");
+        String mean1 = old + "avg_value";
+        String mean2 = String.format(excluded, "avg_value");
+        String var1 = old + "variance_value";
+        String var2 = String.format(excluded, "variance_value");
+        
+        return "INSERT INTO " + tableName + " (" + INSERT_COLUMNS + ") " +
+                "VALUES " + ROW_PLACEHOLDERS + " " +
+                conflict +
+                "    variance_value = CASE WHEN " + n2 + " = 0 THEN " + var1 +
+                "        WHEN " + n1 + " = 0 THEN " + var2 +
+                "        ELSE " + var1 + " - ((" + var1 + " - " + var2 + ") * " + n2 +
+                "            - (" + mean1 + " - " + mean2 + ") * (" + mean1 + " - " + mean2 + ") * " + n1 + " * " + n2 +
+                "            / (" + n1 + " + " + n2 + ")) / (" + n1 + " + " + n2 + ") END, " +
+                "    avg_value = CASE WHEN " + n2 + " = 0 THEN " + mean1 +
+                "        WHEN " + n1 + " = 0 THEN " + mean2 +
+                "        ELSE " + mean1 + " - (" + mean1 + " - " + mean2 + ") * " + n2 + " / (" + n1 + " + " + n2 + ") END, " +
+                mergeColumn(old, excluded, "sum_value", "%1$s + %2$s") + ", " +
+                mergeColumn(old, excluded, "min_value", "LEAST(%1$s, %2$s)") + ", " +
+                mergeColumn(old, excluded, "max_value", "GREATEST(%1$s, %2$s)") + ", " +
+                "    value_count = " + n1 + " + " + n2 + ", " +
+                "    data_count = " + old + "data_count + " + String.format(excluded, "data_count") + ", " +
+                "    updated_time = " + String.format(excluded, "updated_time");
+    }
+
+    /**
+     * 可为空的数值列的合并：两边都有值时按表达式合并，否则取有值的一边
+     */
+    private static String mergeColumn(String old, String excluded, String column, String expression) {
+        String current = old + column;
+        String incoming = String.format(excluded, column);
+        return "    " + column + " = COALESCE(" + String.format(expression, current, incoming) + ", "
+                + current + ", " + incoming + ")";
+    }
+
+    /**
+     * 绑定upsert语句参数，包级可见以便基准测试直接测量
+     */
+    void setStatementParameters(PreparedStatement statement, SensorStatistics statistics) throws SQLException {
+        setStatementParameters(statement, 0, statistics);
+    }
+
+    /**
+     * 从offset之后的位置绑定一行参数，用于多行VALUES语句
+     */
+    void setStatementParameters(PreparedStatement statement, int offset, SensorStatistics statistics)
+            throws SQLException {
+        statement.setString(offset + 1, statistics.getTemplateId());
+        statement.setString(offset + 2, statistics.getDeviceId());
+        statement.setLong(offset + 3, statistics.getDataCount());
+        statement.setLong(offset + 4, statistics.getValueCount() != null ? statistics.getValueCount() : 0L);
+        setNullableDouble(statement, offset + 5, statistics.getSumValue());
+        setNullableDouble(statement, offset + 6, statistics.getMinValue());
+        setNullableDouble(statement, offset + 7, statistics.getMaxValue());
+        setNullableDouble(statement, offset + 8, statistics.getAvgValue());
+        setNullableDouble(statement, offset + 9, statistics.getVarianceValue());
+        // 窗口时间为UTC墙上时间，创建/更新时间为真实时刻
+        statement.setTimestamp(offset + 10, DateTimeCodec.toSqlTimestamp(statistics.getWindowStart()));
+        statement.setTimestamp(offset + 11, DateTimeCodec.toSqlTimestamp(statistics.getWindowEnd()));
+        statement.setTimestamp(offset + 12, new Timestamp(statistics.getCreatedTime()));
+        statement.setTimestamp(offset + 13, new Timestamp(statistics.getUpdatedTime()));
+    }
+
+    private void setNullableDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value != null) {
+            statement.setDouble(index, value);
+        } else {
+            statement.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    /**
+     * 统计结果的唯一键：模板、设备和窗口
+     */
+    public static final class WindowKey {
+        private final String templateId;
+        private final String deviceId;
+        private final long windowStart;
+        private final long windowEnd;
+
+        public WindowKey(SensorStatistics statistics) {
+            this.templateId = statistics.getTemplateId();
+            this.deviceId = statistics.getDeviceId();
+            this.windowStart = statistics.getWindowStart();
+            this.windowEnd = statistics.getWindowEnd();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WindowKey)) {
+                return false;
+            }
+            WindowKey other = (WindowKey) o;
+            return windowStart == other.windowStart
+                    && windowEnd == other.windowEnd
+                    && Objects.equals(templateId, other.templateId)
+                    && Objects.equals(deviceId, other.deviceId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * Objects.hashCode(templateId) + Objects.hashCode(deviceId);
+            return 31 * (31 * result + Long.hashCode(windowStart)) + Long.hashCode(windowEnd);
+        }
     }
-} 
\ No newline at end of file
+}
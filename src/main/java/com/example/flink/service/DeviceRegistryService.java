@@ -0,0 +1,80 @@
+package com.example.flink.service;
+
+import com.example.flink.model.DeviceMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 设备注册表查询服务 - 按设备ID批量读取 device_registry
+ */
+public class DeviceRegistryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceRegistryService.class);
+
+    private static final String SELECT_SQL_PREFIX =
+            "SELECT device_id, model, site, calibration_offset FROM device_registry WHERE device_id IN (";
+
+    private final DataSource dataSource;
+
+    public DeviceRegistryService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 用一条 IN (...) 查询读取多个设备的元数据
+     *
+     * @param deviceIds 设备ID，不能为空
+     * @return 设备ID到元数据的映射，注册表中不存在的设备不包含在结果中
+     */
+    public Map<String, DeviceMetadata> findByDeviceIds(Collection<String> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            throw new IllegalArgumentException("设备ID列表不能为空");
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(getSelectSql(deviceIds.size()))) {
+
+            int index = 1;
+            for (String deviceId : deviceIds) {
+                statement.setString(index++, deviceId);
+            }
+
+            Map<String, DeviceMetadata> result = new HashMap<>(deviceIds.size() * 2);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    double calibrationOffset = resultSet.getDouble("calibration_offset");
+                    boolean calibrationOffsetIsNull = resultSet.wasNull();
+                    DeviceMetadata metadata = new DeviceMetadata(
+                            resultSet.getString("device_id"),
+                            resultSet.getString("model"),
+                            resultSet.getString("site"),
+                            calibrationOffsetIsNull ? null : calibrationOffset);
+                    result.put(metadata.getDeviceId(), metadata);
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            logger.error("查询设备注册表失败，设备数: {}", deviceIds.size(), e);
+            throw new RuntimeException("查询设备注册表失败", e);
+        }
+    }
+
+    private static String getSelectSql(int parameterCount) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL_PREFIX.length() + parameterCount * 2);
+        sql.append(SELECT_SQL_PREFIX);
+        for (int i = 0; i < parameterCount; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.append(')').toString();
+    }
+}
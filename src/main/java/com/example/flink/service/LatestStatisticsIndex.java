@@ -0,0 +1,83 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 每个设备最新窗口统计结果的内存索引 - 按template_id分组，组内按device_id有序，支持单设备查询和按模板扫描
+ *
+ * <p>写入只在算子线程中进行，查询在HTTP线程中进行；两层Map都是无锁读取的并发Map，
+ * 放入索引的统计对象之后不再修改，查询线程读到的总是某一次完整写入的结果，读写之间不需要加锁。
+ */
+public class LatestStatisticsIndex {
+
+    private final Map<String, ConcurrentSkipListMap<String, SensorStatistics>> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 放入一个设备的最新统计结果，调用后不能再修改该对象
+     */
+    public void put(SensorStatistics statistics) {
+        templates.computeIfAbsent(statistics.getTemplateId(), templateId -> new ConcurrentSkipListMap<>())
+                .put(statistics.getDeviceId(), statistics);
+    }
+
+    /**
+     * 查询单个设备的最新统计结果，不存在时返回null
+     */
+    public SensorStatistics get(String templateId, String deviceId) {
+        Map<String, SensorStatistics> devices = templates.get(templateId);
+        return devices != null ? devices.get(deviceId) : null;
+    }
+
+    /**
+     * 按device_id顺序返回一个模板下所有设备的最新统计结果
+     */
+    public List<SensorStatistics> getTemplate(String templateId) {
+        ConcurrentSkipListMap<String, SensorStatistics> devices = templates.get(templateId);
+        return devices != null ? new ArrayList<>(devices.values()) : Collections.emptyList();
+    }
+
+    /**
+     * 索引中的设备数
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, SensorStatistics> devices : templates.values()) {
+            size += devices.size();
+        }
+        return size;
+    }
+
+    /**
+     * 计算一个设备新的最新统计结果：更晚窗口的完整结果替换当前结果，同一窗口的完整结果覆盖当前结果，
+     * 同一窗口的迟到增量与当前结果累加；更早窗口的结果和没有对应窗口的增量不改变最新结果。
+     *
+     * @param current  当前的最新统计结果，可能为null
+     * @param incoming 新到达的窗口统计结果
+     * @return 新的最新统计结果，没有变化时返回current本身
+     */
+    public static SensorStatistics latest(SensorStatistics current, SensorStatistics incoming) {
+        if (!incoming.isDelta()) {
+            return current == null || incoming.getWindowStart() >= current.getWindowStart() ? incoming : current;
+        }
+        if (current == null || incoming.getWindowStart() != current.getWindowStart()) {
+            return current;
+        }
+        SensorStatisticsAccumulator accumulator = SensorStatisticsAccumulator.fromStatistics(current);
+        accumulator.merge(SensorStatisticsAccumulator.fromStatistics(incoming));
+        SensorStatistics merged = accumulator.toStatistics(
+                new SensorKey(current.getTemplateId(), current.getDeviceId()),
+                current.getWindowStart(), current.getWindowEnd());
+        merged.setCreatedTime(current.getCreatedTime());
+        merged.setUpdatedTime(incoming.getUpdatedTime());
+        return merged;
+    }
+}
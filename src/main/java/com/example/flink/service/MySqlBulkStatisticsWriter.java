@@ -0,0 +1,289 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorStatistics;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * MySQL批量写入 - 多行 {@code INSERT ... VALUES (...),(...) ON DUPLICATE KEY UPDATE}，
+ * 或 {@code LOAD DATA LOCAL INFILE} 导入临时表后一条语句合并
+ *
+ * <p>写入前按唯一键uk_template_device_window的列顺序排序（稳定排序，同一窗口保持到达顺序），
+ * 并行的Sink子任务以相同顺序加锁，减少InnoDB的锁等待和死锁。多行语句的行数受max_allowed_packet
+ * 和预处理语句65535个参数的限制。同一窗口在一条语句中出现多次时MySQL按行依次处理，结果与逐条upsert相同。
+ *
+ * <p>LOAD DATA模式需要服务端开启local_infile，数据从内存中的行直接编码为输入流，不落盘。
+ * LOCAL导入时数据转换错误只产生警告，因此临时表与目标表的列类型保持一致。迟到增量依赖目标表中的已有值，
+ * 两种模式下都在完整结果之后用多行增量语句写入。
+ */
+class MySqlBulkStatisticsWriter implements StatisticsBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MySqlBulkStatisticsWriter.class);
+
+    private static final String STAGING_TABLE = "sensor_statistics_staging";
+
+    private static final String CREATE_STAGING_SQL = "CREATE TEMPORARY TABLE IF NOT EXISTS " + STAGING_TABLE + " ("
+            + "seq BIGINT NOT NULL,"
+            + "template_id VARCHAR(50) NOT NULL,"
+            + "device_id VARCHAR(50) NOT NULL,"
+            + "data_count BIGINT NOT NULL,"
+            + "value_count BIGINT NOT NULL,"
+            + "sum_value DOUBLE NULL,"
+            + "min_value DOUBLE NULL,"
+            + "max_value DOUBLE NULL,"
+            + "avg_value DOUBLE NULL,"
+            + "variance_value DOUBLE NULL,"
+            + "window_start DATETIME NOT NULL,"
+            + "window_end DATETIME NOT NULL,"
+            + "created_time DATETIME NOT NULL,"
+            + "updated_time DATETIME NOT NULL"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+
+    private static final String LOAD_SQL = "LOAD DATA LOCAL INFILE 'sensor_statistics.tsv' INTO TABLE " + STAGING_TABLE
+            + " CHARACTER SET utf8mb4 (seq, " + DatabaseService.INSERT_COLUMNS + ")";
+
+    private static final String CLEAR_STAGING_SQL = "DELETE FROM " + STAGING_TABLE;
+
+    /**
+     * 预处理语句的参数个数上限（协议中为2字节无符号数）
+     */
+    private static final int MAX_PLACEHOLDERS = 65535;
+
+    /**
+     * 一行参数的最大字节数：两个VARCHAR(50)按utf8mb4计算，其余列按定长编码，另加语句文本中的占位符
+     */
+    private static final int MAX_ROW_BYTES = 2 * 50 * 4 + 11 * 16 + 48;
+
+    /**
+     * 与唯一键 uk_template_device_window (template_id, device_id, window_start, window_end) 的列顺序一致
+     */
+    private static final Comparator<SensorStatistics> KEY_ORDER = Comparator
+            .comparing(SensorStatistics::getTemplateId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SensorStatistics::getDeviceId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(SensorStatistics::getWindowStart)
+            .thenComparingLong(SensorStatistics::getWindowEnd);
+
+    private final DatabaseService databaseService;
+    private final boolean loadData;
+
+    /**
+     * 服务端的max_allowed_packet，首次写入时查询
+     */
+    private long maxAllowedPacket;
+
+    MySqlBulkStatisticsWriter(DatabaseService databaseService, boolean loadData) {
+        this.databaseService = databaseService;
+        this.loadData = loadData;
+    }
+
+    @Override
+    public int write(Connection connection, Iterable<SensorStatistics> statisticsList, int batchSize)
+            throws SQLException {
+        List<SensorStatistics> rows = new ArrayList<>();
+        List<SensorStatistics> deltas = new ArrayList<>();
+        for (SensorStatistics statistics : statisticsList) {
+            (statistics.isDelta() ? deltas : rows).add(statistics);
+        }
+        rows.sort(KEY_ORDER);
+        deltas.sort(KEY_ORDER);
+
+        int rowsPerStatement = rowsPerStatement(connection, batchSize);
+        int affectedRows = 0;
+        if (!rows.isEmpty()) {
+            affectedRows += loadData
+                    ? loadAndMerge(connection, rows)
+                    : executeMultiRow(connection, databaseService.getUpsertSql(), rows, rowsPerStatement);
+        }
+        if (!deltas.isEmpty()) {
+            affectedRows += executeMultiRow(connection, databaseService.getDeltaUpsertSql(), deltas, rowsPerStatement);
+        }
+
+        logger.debug("MySQL批量写入完成 - 方式: {}, 完整结果: {}, 增量: {}, 每条语句行数: {}, 影响行数: {}",
+                loadData ? "load-data" : "multi-row", rows.size(), deltas.size(), rowsPerStatement, affectedRows);
+        return affectedRows;
+    }
+
+    /**
+     * 每条多行语句的行数：不超过batchSize、参数个数上限和max_allowed_packet
+     */
+    private int rowsPerStatement(Connection connection, int batchSize) throws SQLException {
+        if (maxAllowedPacket == 0) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT @@max_allowed_packet")) {
+                maxAllowedPacket = resultSet.next() ? resultSet.getLong(1) : 4L * 1024 * 1024;
+            }
+            logger.info("MySQL max_allowed_packet: {}, 多行语句最多{}行",
+                    maxAllowedPacket, Math.min(MAX_PLACEHOLDERS / DatabaseService.PARAMETERS_PER_ROW,
+                            maxAllowedPacket / MAX_ROW_BYTES));
+        }
+        long limit = Math.min(MAX_PLACEHOLDERS / DatabaseService.PARAMETERS_PER_ROW, maxAllowedPacket / MAX_ROW_BYTES);
+        return (int) Math.max(1, Math.min(batchSize, limit));
+    }
+
+    private int executeMultiRow(Connection connection, String singleRowSql, List<SensorStatistics> rows,
+                                int rowsPerStatement) throws SQLException {
+        int affectedRows = 0;
+        PreparedStatement fullStatement = null;
+        try {
+            for (int from = 0; from < rows.size(); from += rowsPerStatement) {
+                int count = Math.min(rowsPerStatement, rows.size() - from);
+                if (count == rowsPerStatement) {
+                    // 满行数的语句在一次刷新内复用，只有最后一条按剩余行数单独预处理
+                    if (fullStatement == null) {
+                        fullStatement = connection.prepareStatement(multiRowSql(singleRowSql, count));
+                    }
+                    affectedRows += bindAndExecute(fullStatement, rows, from, count);
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement(multiRowSql(singleRowSql, count))) {
+                        affectedRows += bindAndExecute(statement, rows, from, count);
+                    }
+                }
+            }
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+        return affectedRows;
+    }
+
+    private int bindAndExecute(PreparedStatement statement, List<SensorStatistics> rows, int from, int count)
+            throws SQLException {
+        for (int i = 0; i < count; i++) {
+            databaseService.setStatementParameters(statement, i * DatabaseService.PARAMETERS_PER_ROW, rows.get(from + i));
+        }
+        return statement.executeUpdate();
+    }
+
+    /**
+     * 把单行upsert语句的VALUES扩展为count行
+     */
+    static String multiRowSql(String singleRowSql, int count) {
+        String values = "VALUES " + DatabaseService.ROW_PLACEHOLDERS;
+        int index = singleRowSql.indexOf(values);
+        if (index < 0) {
+            throw new IllegalArgumentException("语句中没有单行VALUES: " + singleRowSql);
+        }
+        StringBuilder builder = new StringBuilder(singleRowSql.length() + count * (DatabaseService.ROW_PLACEHOLDERS.length() + 2));
+        builder.append(singleRowSql, 0, index).append(values);
+        for (int i = 1; i < count; i++) {
+            builder.append(", ").append(DatabaseService.ROW_PLACEHOLDERS);
+        }
+        builder.append(singleRowSql, index + values.length(), singleRowSql.length());
+        return builder.toString();
+    }
+
+    /**
+     * LOAD DATA导入临时表，再按唯一键顺序合并，同一窗口的多行按到达顺序依次更新
+     */
+    private int loadAndMerge(Connection connection, List<SensorStatistics> rows) throws SQLException {
+        String upsertSql = databaseService.getUpsertSql();
+        String mergeSql = "INSERT INTO " + databaseService.getTableName() + " (" + DatabaseService.INSERT_COLUMNS + ") "
+                + "SELECT " + DatabaseService.INSERT_COLUMNS + " FROM " + STAGING_TABLE + " "
+                + "ORDER BY template_id, device_id, window_start, window_end, seq "
+                + upsertSql.substring(upsertSql.indexOf("ON DUPLICATE KEY UPDATE"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+
+            statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(
+                    new RowInputStream(rows, timestampTimeZone(connection)));
+            long loadedRows = statement.executeLargeUpdate(LOAD_SQL);
+            if (loadedRows != rows.size()) {
+                throw new SQLException("LOAD DATA导入行数与待写入行数不一致, 导入: " + loadedRows + ", 待写入: " + rows.size());
+            }
+
+            int affectedRows = statement.executeUpdate(mergeSql);
+            statement.executeUpdate(CLEAR_STAGING_SQL);
+            return affectedRows;
+        }
+    }
+
+    /**
+     * 驱动绑定Timestamp参数时使用的时区：preserveInstants（默认开启）时转换到connectionTimeZone，否则使用JVM默认时区
+     */
+    private static TimeZone timestampTimeZone(Connection connection) throws SQLException {
+        JdbcConnection mysqlConnection = connection.unwrap(JdbcConnection.class);
+        boolean preserveInstants = mysqlConnection.getPropertySet()
+                .getBooleanProperty(PropertyKey.preserveInstants).getValue();
+        return preserveInstants
+                ? mysqlConnection.getSession().getServerSession().getSessionTimeZone()
+                : TimeZone.getDefault();
+    }
+
+    /**
+     * 按需把行编码为LOAD DATA默认格式的字节流，不需要一次生成整批数据
+     */
+    private static final class RowInputStream extends InputStream {
+
+        private final List<SensorStatistics> rows;
+        private final TimeZone timeZone;
+        private final StringBuilder builder = new StringBuilder(256);
+        private int nextRow;
+        private byte[] buffer = new byte[0];
+        private int position;
+
+        private RowInputStream(List<SensorStatistics> rows, TimeZone timeZone) {
+            this.rows = rows;
+            this.timeZone = timeZone;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int written = 0;
+            while (written < length && fill()) {
+                int count = Math.min(length - written, buffer.length - position);
+                System.arraycopy(buffer, position, target, offset + written, count);
+                position += count;
+                written += count;
+            }
+            return written == 0 ? -1 : written;
+        }
+
+        /**
+         * 当前缓冲读完时编码下一批行，没有更多数据时返回false
+         */
+        private boolean fill() {
+            if (position < buffer.length) {
+                return true;
+            }
+            if (nextRow >= rows.size()) {
+                return false;
+            }
+            builder.setLength(0);
+            while (nextRow < rows.size() && builder.length() < 64 * 1024) {
+                StatisticsRowEncoder.appendRow(builder, nextRow, rows.get(nextRow), timeZone);
+                nextRow++;
+            }
+            buffer = builder.toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+}
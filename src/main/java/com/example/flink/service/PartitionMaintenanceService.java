@@ -0,0 +1,337 @@
+package com.example.flink.service;
+
+import com.example.flink.config.FlinkProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * sensor_statistics分区维护 - 预建未来分区，删除超过保留期的分区
+ *
+ * <p>分区按window_start的UTC日期切分（window_start存储的就是UTC墙上时间），分区名包含分区的起始日期：
+ * MySQL为 pYYYYMMDD，PostgreSQL为 sensor_statistics_pYYYYMMDD。
+ * MySQL表始终保留 pmax (MAXVALUE) 分区，新分区用 REORGANIZE PARTITION pmax 拆出，第一个分区同时容纳更早的数据；
+ * PostgreSQL表保留DEFAULT分区接收没有对应分区的窗口。删除分区是元数据操作，代替按时间范围的大批量DELETE。
+ */
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    static final String MYSQL_MAX_PARTITION = "pmax";
+
+    static final String POSTGRES_DEFAULT_PARTITION = "sensor_statistics_default";
+
+    private static final String POSTGRES_PARTITION_PREFIX = "sensor_statistics_";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("(?:sensor_statistics_)?p(\\d{8})");
+
+    private static final String MYSQL_LIST_SQL = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sensor_statistics' AND PARTITION_NAME IS NOT NULL";
+
+    private static final String POSTGRES_KIND_SQL = "SELECT relkind FROM pg_class WHERE oid = to_regclass('sensor_statistics')";
+
+    private static final String POSTGRES_LIST_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('sensor_statistics')";
+
+    private final DataSource dataSource;
+
+    private final FlinkProperties flinkProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    public PartitionMaintenanceService(DataSource dataSource, FlinkProperties flinkProperties) {
+        this.dataSource = dataSource;
+        this.flinkProperties = flinkProperties;
+    }
+
+    /**
+     * 按maintenance-interval定时执行维护，执行失败只记录日志，下次重试
+     */
+    public void start() {
+        long interval = getPartitioning().getMaintenanceInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                maintain();
+            } catch (RuntimeException e) {
+                // 错误已在maintain中记录
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("分区定时维护已启动 - 间隔: {}ms", interval);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 预建当前及未来分区并删除过期分区，表不是分区表时跳过
+     */
+    public void maintain() {
+        maintain(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    void maintain(LocalDate today) {
+        FlinkProperties.Database.Partitioning partitioning = getPartitioning();
+        boolean mysql = isMySql();
+
+        try (Connection connection = dataSource.getConnection()) {
+            List<LocalDate> existing = mysql ? listMySqlPartitions(connection) : listPostgresPartitions(connection);
+            if (existing == null) {
+                logger.warn("sensor_statistics不是分区表，跳过分区维护（分区只对新建的表生效）");
+                return;
+            }
+
+            String interval = partitioning.getInterval();
+            List<LocalDate> created = partitionsToCreate(existing, today, interval,
+                    partitioning.getFuturePartitions());
+            List<LocalDate> dropped = partitionsToDrop(existing, today, interval, partitioning.getRetentionDays());
+            try (Statement statement = connection.createStatement()) {
+                if (mysql) {
+                    if (!created.isEmpty()) {
+                        statement.execute(getMySqlReorganizeSql(created, interval));
+                    }
+                    if (!dropped.isEmpty()) {
+                        statement.execute(getMySqlDropSql(dropped));
+                    }
+                } else {
+                    for (LocalDate start : created) {
+                        createPostgresPartition(connection, start, interval);
+                    }
+                    for (LocalDate start : dropped) {
+                        statement.execute("DROP TABLE IF EXISTS " + partitionName(start, false));
+                    }
+                }
+            }
+            int purged = mysql ? 0 : purgePostgresDefaultPartition(connection, today, partitioning.getRetentionDays());
+
+            logger.info("分区维护完成 - 已有分区: {}, 新建分区: {}, 删除分区: {}, 默认分区清理行数: {}",
+                    existing.size(), created.size(), dropped.size(), purged);
+        } catch (SQLException e) {
+            logger.error("分区维护失败", e);
+            throw new RuntimeException("分区维护失败", e);
+        }
+    }
+
+    /**
+     * 需要新建的分区：从已有最后一个分区之后（不早于当前分区）到当前分区之后的futurePartitions个分区
+     */
+    static List<LocalDate> partitionsToCreate(Collection<LocalDate> existing, LocalDate today,
+                                              String interval, int futurePartitions) {
+        LocalDate current = partitionStart(today, interval);
+        LocalDate start = current;
+        if (!existing.isEmpty()) {
+            LocalDate afterLast = nextPartition(Collections.max(existing), interval);
+            if (afterLast.isAfter(start)) {
+                start = afterLast;
+            }
+        }
+        LocalDate last = current;
+        for (int i = 0; i < futurePartitions; i++) {
+            last = nextPartition(last, interval);
+        }
+
+        List<LocalDate> result = new ArrayList<>();
+        for (LocalDate partition = start; !partition.isAfter(last); partition = nextPartition(partition, interval)) {
+            result.add(partition);
+        }
+        return result;
+    }
+
+    /**
+     * 需要删除的分区：分区结束日期不晚于今天减去retentionDays
+     */
+    static List<LocalDate> partitionsToDrop(Collection<LocalDate> existing, LocalDate today,
+                                            String interval, int retentionDays) {
+        List<LocalDate> result = new ArrayList<>();
+        if (retentionDays <= 0) {
+            return result;
+        }
+        LocalDate cutoff = today.minusDays(retentionDays);
+        for (LocalDate partition : existing) {
+            if (!nextPartition(partition, interval).isAfter(cutoff)) {
+                result.add(partition);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    static LocalDate partitionStart(LocalDate date, String interval) {
+        if ("day".equalsIgnoreCase(interval)) {
+            return date;
+        }
+        if ("month".equalsIgnoreCase(interval)) {
+            return date.withDayOfMonth(1);
+        }
+        throw new IllegalArgumentException("不支持的分区粒度: " + interval + "，可选: day, month");
+    }
+
+    static LocalDate nextPartition(LocalDate start, String interval) {
+        return "month".equalsIgnoreCase(interval) ? start.plusMonths(1) : partitionStart(start, interval).plusDays(1);
+    }
+
+    static String partitionName(LocalDate start, boolean mysql) {
+        String name = "p" + start.format(DateTimeFormatter.BASIC_ISO_DATE);
+        return mysql ? name : POSTGRES_PARTITION_PREFIX + name;
+    }
+
+    static String getMySqlReorganizeSql(List<LocalDate> partitions, String interval) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE sensor_statistics REORGANIZE PARTITION ")
+                .append(MYSQL_MAX_PARTITION).append(" INTO (");
+        for (LocalDate start : partitions) {
+            sql.append("PARTITION ").append(partitionName(start, true))
+                    .append(" VALUES LESS THAN ('").append(boundary(nextPartition(start, interval))).append("'), ");
+        }
+        return sql.append("PARTITION ").append(MYSQL_MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE))").toString();
+    }
+
+    private static String getMySqlDropSql(List<LocalDate> partitions) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE sensor_statistics DROP PARTITION ");
+        for (int i = 0; i < partitions.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(partitionName(partitions.get(i), true));
+        }
+        return sql.toString();
+    }
+
+    static String getPostgresCreateSql(LocalDate start, String interval) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(start, false)
+                + " PARTITION OF sensor_statistics FOR VALUES FROM ('" + boundary(start)
+                + "') TO ('" + boundary(nextPartition(start, interval)) + "')";
+    }
+
+    /**
+     * 新分区的范围内已有写入DEFAULT分区的行时PostgreSQL拒绝创建分区，因此在同一事务内先把这些行移出，
+     * 建好分区后再经父表写回
+     */
+    private static void createPostgresPartition(Connection connection, LocalDate start, String interval)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE sensor_statistics_moved ON COMMIT DROP AS "
+                    + "WITH moved AS (DELETE FROM " + POSTGRES_DEFAULT_PARTITION
+                    + " WHERE window_start >= '" + boundary(start) + "' AND window_start < '"
+                    + boundary(nextPartition(start, interval)) + "' RETURNING *) SELECT * FROM moved");
+            statement.execute(getPostgresCreateSql(start, interval));
+            int moved = statement.executeUpdate("INSERT INTO sensor_statistics SELECT * FROM sensor_statistics_moved");
+            connection.commit();
+            if (moved > 0) {
+                logger.info("默认分区中的{}行已移入新分区 {}", moved, partitionName(start, false));
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String boundary(LocalDate date) {
+        return date + " 00:00:00";
+    }
+
+    /**
+     * @return 已有分区的起始日期，表不是分区表时返回null
+     */
+    private static List<LocalDate> listMySqlPartitions(Connection connection) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(MYSQL_LIST_SQL)) {
+            while (resultSet.next()) {
+                names.add(resultSet.getString(1));
+            }
+        }
+        return names.isEmpty() ? null : parsePartitionNames(names);
+    }
+
+    private static List<LocalDate> listPostgresPartitions(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(POSTGRES_KIND_SQL)) {
+                if (!resultSet.next() || !"p".equals(resultSet.getString(1))) {
+                    return null;
+                }
+            }
+            List<String> names = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery(POSTGRES_LIST_SQL)) {
+                while (resultSet.next()) {
+                    names.add(resultSet.getString(1));
+                }
+            }
+            return parsePartitionNames(names);
+        }
+    }
+
+    /**
+     * 按命名规则解析分区起始日期，pmax、DEFAULT分区和手工创建的其他分区不参与维护
+     */
+    static List<LocalDate> parsePartitionNames(Collection<String> names) {
+        List<LocalDate> result = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                result.add(LocalDate.parse(matcher.group(1), DateTimeFormatter.BASIC_ISO_DATE));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * 没有对应分区时写入DEFAULT分区的窗口无法随分区删除，按保留期删除
+     */
+    private static int purgePostgresDefaultPartition(Connection connection, LocalDate today, int retentionDays)
+            throws SQLException {
+        if (retentionDays <= 0) {
+            return 0;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM " + POSTGRES_DEFAULT_PARTITION + " WHERE window_start < ?")) {
+            statement.setTimestamp(1, Timestamp.valueOf(today.minusDays(retentionDays).atStartOfDay()));
+            return statement.executeUpdate();
+        }
+    }
+
+    private boolean isMySql() {
+        String databaseType = flinkProperties.getDatabase().getType();
+        if ("mysql".equalsIgnoreCase(databaseType)) {
+            return true;
+        }
+        if ("postgresql".equalsIgnoreCase(databaseType)) {
+            return false;
+        }
+        throw new IllegalArgumentException("不支持的数据库类型: " + databaseType);
+    }
+
+    private FlinkProperties.Database.Partitioning getPartitioning() {
+        return flinkProperties.getDatabase().getPartitioning();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorStatistics;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * PostgreSQL批量写入 - COPY到临时表后一条语句合并到统计表
+ *
+ * <p>每次写入把完整窗口结果以COPY文本格式流式写入会话级临时表，
+ * 再用一条 {@code INSERT ... SELECT ... ON CONFLICT DO UPDATE} 合并到目标表。临时表随连接池中的连接保留，不写WAL。
+ * 一次刷新按 {@link DatabaseService#splitAtRewrittenWindows} 切分后会在同一个事务内多次写入，
+ * 因此每次写入前先清空临时表，不能依赖提交时的自动清空（ON COMMIT DELETE ROWS），
+ * 否则后一段会再次合并前一段的完整结果，覆盖其后的增量。
+ *
+ * <p>同一批中同一窗口出现多次时只合并最后一条（ON CONFLICT不允许一条语句更新同一行两次），
+ * 创建时间取第一条，结果与逐条upsert相同。迟到增量依赖目标表中的已有值，仍在合并之后用增量upsert语句批量执行。
+ */
+class PostgresCopyStatisticsWriter implements StatisticsBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresCopyStatisticsWriter.class);
+
+    private static final String STAGING_TABLE = "sensor_statistics_staging";
+
+    private static final String CREATE_STAGING_SQL = "CREATE TEMPORARY TABLE IF NOT EXISTS " + STAGING_TABLE + " ("
+            + "seq BIGINT NOT NULL,"
+            + "template_id VARCHAR(50) NOT NULL,"
+            + "device_id VARCHAR(50) NOT NULL,"
+            + "data_count BIGINT NOT NULL,"
+            + "value_count BIGINT NOT NULL,"
+            + "sum_value DOUBLE PRECISION,"
+            + "min_value DOUBLE PRECISION,"
+            + "max_value DOUBLE PRECISION,"
+            + "avg_value DOUBLE PRECISION,"
+            + "variance_value DOUBLE PRECISION,"
+            + "window_start TIMESTAMP NOT NULL,"
+            + "window_end TIMESTAMP NOT NULL,"
+            + "created_time TIMESTAMP NOT NULL,"
+            + "updated_time TIMESTAMP NOT NULL"
+            + ") ON COMMIT DELETE ROWS";
+
+    private static final String CLEAR_STAGING_SQL = "DELETE FROM " + STAGING_TABLE;
+
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE + " (seq, " + DatabaseService.INSERT_COLUMNS + ") FROM STDIN";
+
+    private static final String MERGE_SQL = "INSERT INTO %s (" + DatabaseService.INSERT_COLUMNS + ") "
+            + "SELECT DISTINCT ON (template_id, device_id, window_start, window_end) "
+            + "    template_id, device_id, data_count, value_count, sum_value, min_value, "
+            + "    max_value, avg_value, variance_value, window_start, window_end, "
+            + "    first_value(created_time) OVER (PARTITION BY template_id, device_id, window_start, window_end "
+            + "        ORDER BY seq), updated_time "
+            + "FROM " + STAGING_TABLE + " "
+            + "ORDER BY template_id, device_id, window_start, window_end, seq DESC "
+            + "ON CONFLICT (template_id, device_id, window_start, window_end) "
+            + "DO UPDATE SET "
+            + "    data_count = EXCLUDED.data_count, "
+            + "    value_count = EXCLUDED.value_count, "
+            + "    sum_value = EXCLUDED.sum_value, "
+            + "    min_value = EXCLUDED.min_value, "
+            + "    max_value = EXCLUDED.max_value, "
+            + "    avg_value = EXCLUDED.avg_value, "
+            + "    variance_value = EXCLUDED.variance_value, "
+            + "    updated_time = EXCLUDED.updated_time";
+
+    /**
+     * PostgreSQL驱动按JVM默认时区把Timestamp写为TIMESTAMP字面值
+     */
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+
+    /**
+     * 攒够该字符数后编码并发送一次，COPY数据不需要整批驻留内存
+     */
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    private final DatabaseService databaseService;
+
+    private final String mergeSql;
+
+    PostgresCopyStatisticsWriter(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+        this.mergeSql = String.format(MERGE_SQL, databaseService.getTableName());
+    }
+
+    @Override
+    public int write(Connection connection, Iterable<SensorStatistics> statisticsList, int batchSize) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+            // 同一事务内可能多次写入，先清空上一次写入暂存的行
+            statement.executeUpdate(CLEAR_STAGING_SQL);
+        }
+
+        List<SensorStatistics> deltas = new ArrayList<>();
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        long copiedRows;
+        try {
+            StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 512);
+            long seq = 0;
+            for (SensorStatistics statistics : statisticsList) {
+                if (statistics.isDelta()) {
+                    deltas.add(statistics);
+                    continue;
+                }
+                StatisticsRowEncoder.appendRow(chunk, seq++, statistics, TIME_ZONE);
+                if (chunk.length() >= CHUNK_CHARS) {
+                    writeChunk(copyIn, chunk);
+                }
+            }
+            writeChunk(copyIn, chunk);
+            copiedRows = copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        int affectedRows = 0;
+        if (copiedRows > 0) {
+            try (Statement statement = connection.createStatement()) {
+                affectedRows = statement.executeUpdate(mergeSql);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            affectedRows += writeDeltas(connection, deltas, batchSize);
+        }
+
+        logger.debug("COPY写入完成 - 暂存行数: {}, 增量条数: {}, 影响行数: {}", copiedRows, deltas.size(), affectedRows);
+        return affectedRows;
+    }
+
+    /**
+     * 同一窗口的完整结果总是先于它的增量，增量在合并之后执行
+     */
+    private int writeDeltas(Connection connection, List<SensorStatistics> deltas, int batchSize) throws SQLException {
+        int affectedRows = 0;
+        Set<DatabaseService.WindowKey> pendingWindows = databaseService.newPendingWindows();
+        try (PreparedStatement statement = connection.prepareStatement(databaseService.getDeltaUpsertSql())) {
+            int pending = 0;
+            for (SensorStatistics statistics : deltas) {
+                if (DatabaseService.repeatsPendingWindow(pendingWindows, statistics)) {
+                    affectedRows += DatabaseService.sumAffectedRows(statement.executeBatch());
+                    pending = 0;
+                }
+                databaseService.setStatementParameters(statement, statistics);
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    affectedRows += DatabaseService.executeBatch(statement, pendingWindows);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                affectedRows += DatabaseService.sumAffectedRows(statement.executeBatch());
+            }
+        }
+        return affectedRows;
+    }
+
+    private static void writeChunk(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorStatistics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 数据库专用的批量写入方式，替代逐条绑定的批量upsert
+ */
+interface StatisticsBulkWriter {
+
+    /**
+     * 在调用方的事务内写入一批统计数据，由调用方负责提交或回滚
+     *
+     * @param connection     已关闭自动提交的连接
+     * @param statisticsList 统计数据，同一窗口的完整结果先于它的增量
+     * @param batchSize      单条语句或单个批次的最大行数
+     * @return 数据库报告的影响行数
+     */
+    int write(Connection connection, Iterable<SensorStatistics> statisticsList, int batchSize) throws SQLException;
+}
@@ -0,0 +1,176 @@
+package com.example.flink.service;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.util.JsonUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 最新统计查询服务 - 基于JDK内置HttpServer，以JSON返回 {@link LatestStatisticsIndex} 中的结果
+ *
+ * <ul>
+ *   <li>GET /statistics/{templateId}/{deviceId}：单个设备的最新统计结果，不存在时返回404</li>
+ *   <li>GET /statistics/{templateId}：模板下所有设备的最新统计结果，按device_id排序</li>
+ * </ul>
+ *
+ * <p>同一JVM（TaskManager）内的子任务通过 {@link #acquire} 共享一个服务和索引，最后一个子任务 {@link #release} 时关闭。
+ * 请求在独立的线程池中处理，JSON编码也在这些线程中完成，不占用算子线程。
+ */
+public class StatisticsQueryServer implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsQueryServer.class);
+
+    public static final String CONTEXT_PATH = "/statistics";
+
+    private static StatisticsQueryServer shared;
+    private static int references;
+
+    static {
+        // JDK HttpServer默认不关闭Nagle算法，响应头和响应体分开写出时会等待客户端的延迟确认，每个请求多出约40毫秒；
+        // 该属性在JVM内第一次创建HttpServer时读取，已显式配置时不覆盖
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final LatestStatisticsIndex index;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public StatisticsQueryServer(LatestStatisticsIndex index, String host, int port, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("查询服务线程数必须为正数: " + threads);
+        }
+        this.index = index;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "statistics-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(CONTEXT_PATH, this);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * 获取当前JVM共享的查询服务，第一次调用时创建并启动
+     */
+    public static synchronized StatisticsQueryServer acquire(FlinkProperties.Flink.Serving servingConfig)
+            throws IOException {
+        if (shared == null) {
+            StatisticsQueryServer server = new StatisticsQueryServer(new LatestStatisticsIndex(),
+                    servingConfig.getHost(), servingConfig.getPort(), servingConfig.getThreads());
+            server.start();
+            shared = server;
+        }
+        references++;
+        return shared;
+    }
+
+    /**
+     * 释放共享的查询服务，没有子任务使用时关闭服务并丢弃索引
+     */
+    public static synchronized void release(StatisticsQueryServer server) {
+        if (server != shared) {
+            return;
+        }
+        if (--references == 0) {
+            shared.stop();
+            shared = null;
+        }
+    }
+
+    public void start() {
+        server.start();
+        logger.info("最新统计查询服务已启动 - 地址: {}", server.getAddress());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("最新统计查询服务已关闭 - 地址: {}", server.getAddress());
+    }
+
+    public LatestStatisticsIndex getIndex() {
+        return index;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendJson(exchange, 405, error("只支持GET请求"));
+                return;
+            }
+            List<String> segments = parsePath(exchange.getRequestURI().getRawPath());
+            if (segments.size() == 1) {
+                sendJson(exchange, 200, index.getTemplate(segments.get(0)));
+            } else if (segments.size() == 2) {
+                SensorStatistics statistics = index.get(segments.get(0), segments.get(1));
+                if (statistics != null) {
+                    sendJson(exchange, 200, statistics);
+                } else {
+                    sendJson(exchange, 404, error("设备没有统计结果"));
+                }
+            } else {
+                sendJson(exchange, 404, error("请求路径应为 " + CONTEXT_PATH + "/{templateId}[/{deviceId}]"));
+            }
+        } catch (Exception e) {
+            logger.warn("处理统计查询失败 - 路径: {}", exchange.getRequestURI(), e);
+            sendJson(exchange, 500, error("查询失败"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 解析 /statistics 之后的路径段，各段分别做URL解码，因此ID中编码后的斜杠不会被当作分隔符
+     */
+    private static List<String> parsePath(String rawPath) throws UnsupportedEncodingException {
+        List<String> segments = new ArrayList<>();
+        if (!rawPath.startsWith(CONTEXT_PATH + "/")) {
+            return segments;
+        }
+        for (String segment : rawPath.substring(CONTEXT_PATH.length()).split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment.replace("+", "%2B"), "UTF-8"));
+            }
+        }
+        return segments;
+    }
+
+    private static Object error(String message) {
+        return Collections.singletonMap("error", message);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JsonUtils.getObjectMapper().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
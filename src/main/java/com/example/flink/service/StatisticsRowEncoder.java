@@ -0,0 +1,102 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.util.DateTimeCodec;
+
+import java.util.TimeZone;
+
+/**
+ * 统计结果的制表符分隔文本编码 - PostgreSQL的COPY文本格式与MySQL LOAD DATA的默认格式相同
+ * （反斜杠转义，\N表示NULL），两种批量导入共用
+ */
+final class StatisticsRowEncoder {
+
+    private StatisticsRowEncoder() {
+    }
+
+    /**
+     * 追加一行：列以制表符分隔，NULL写为\N，第一列为批内序号
+     *
+     * <p>时间列按JDBC驱动绑定Timestamp参数时的时区写出，与{@link DatabaseService#setStatementParameters}
+     * 写入的字面值相同：窗口时间为UTC墙上时间对应的时刻，创建/更新时间为真实时刻。
+     *
+     * @param timeZone 驱动把Timestamp转换为字面值时使用的时区
+     */
+    static void appendRow(StringBuilder builder, long seq, SensorStatistics statistics, TimeZone timeZone) {
+        builder.append(seq).append('\t');
+        appendText(builder, statistics.getTemplateId());
+        builder.append('\t');
+        appendText(builder, statistics.getDeviceId());
+        builder.append('\t').append(statistics.getDataCount());
+        builder.append('\t').append(statistics.getValueCount() != null ? statistics.getValueCount() : 0L);
+        builder.append('\t');
+        appendDouble(builder, statistics.getSumValue());
+        builder.append('\t');
+        appendDouble(builder, statistics.getMinValue());
+        builder.append('\t');
+        appendDouble(builder, statistics.getMaxValue());
+        builder.append('\t');
+        appendDouble(builder, statistics.getAvgValue());
+        builder.append('\t');
+        appendDouble(builder, statistics.getVarianceValue());
+        builder.append('\t');
+        appendTimestamp(builder, DateTimeCodec.toSqlTimestamp(statistics.getWindowStart()).getTime(), timeZone);
+        builder.append('\t');
+        appendTimestamp(builder, DateTimeCodec.toSqlTimestamp(statistics.getWindowEnd()).getTime(), timeZone);
+        builder.append('\t');
+        appendTimestamp(builder, statistics.getCreatedTime(), timeZone);
+        builder.append('\t');
+        appendTimestamp(builder, statistics.getUpdatedTime(), timeZone);
+        builder.append('\n');
+    }
+
+    /**
+     * 按给定时区写出 yyyy-MM-dd HH:mm:ss.SSS
+     */
+    private static void appendTimestamp(StringBuilder builder, long epochMillis, TimeZone timeZone) {
+        long localMillis = epochMillis + timeZone.getOffset(epochMillis);
+        char[] buffer = new char[DateTimeCodec.LENGTH + 4];
+        DateTimeCodec.formatTo(localMillis, buffer, 0);
+        int millis = (int) Math.floorMod(localMillis, 1000L);
+        buffer[DateTimeCodec.LENGTH] = '.';
+        buffer[DateTimeCodec.LENGTH + 1] = (char) ('0' + millis / 100);
+        buffer[DateTimeCodec.LENGTH + 2] = (char) ('0' + millis / 10 % 10);
+        buffer[DateTimeCodec.LENGTH + 3] = (char) ('0' + millis % 10);
+        builder.append(buffer);
+    }
+
+    private static void appendText(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    private static void appendDouble(StringBuilder builder, Double value) {
+        if (value == null) {
+            builder.append("\\N");
+        } else {
+            // Double.toString的科学计数法两种数据库都能解析
+            builder.append(value.doubleValue());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.flink.sink;
+
+import com.example.flink.model.Alert;
+import com.example.flink.util.JsonUtils;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 告警日志Sink - 每条告警以一行JSON写入名为 alert 的日志
+ *
+ * <p>logback-spring.xml 中该日志单独输出到 alert 滚动文件，不进入应用日志。
+ */
+public class AlertLogSinkFunction implements SinkFunction<Alert> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger alertLogger = LoggerFactory.getLogger("alert");
+
+    @Override
+    public void invoke(Alert alert, Context context) {
+        alertLogger.info(JsonUtils.toJsonSafe(alert));
+    }
+}
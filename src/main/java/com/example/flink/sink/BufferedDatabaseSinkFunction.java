@@ -0,0 +1,201 @@
+package com.example.flink.sink;
+
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.metrics.SinkMetrics;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService;
+import com.example.flink.service.PartitionMaintenanceService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓冲批量写入的数据库Sink
+ *
+ * <p>每个子任务在内存中缓冲统计数据，达到批量大小、到达刷新间隔或执行检查点时，
+ * 通过{@link DatabaseService#batchUpsertStatistics(Iterable, int)}批量写入数据库。
+ * 检查点前缓冲区一定会被清空，因此不需要额外的状态即可保证不丢数据（at-least-once）。
+ * 完整结果按upsert覆盖写入，重放是幂等的；但窗口允许延迟大于0时迟到增量按累加合并，
+ * 故障恢复后重放的增量会被重复累加，此时启动会输出警告，需要精确结果时应使用
+ * {@link TransactionalDatabaseSinkFunction}（exactly-once模式）。
+ *
+ * <p>开启写入合并（flink.sink.coalesce）时，缓冲区按唯一键合并同一窗口的多次更新，
+ * 批量大小按合并后的行数计算，见{@link CoalescingStatisticsBuffer}。开启分区时由0号子任务定时维护分区。
+ */
+public class BufferedDatabaseSinkFunction extends RichSinkFunction<SensorStatistics>
+        implements CheckpointedFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedDatabaseSinkFunction.class);
+
+    private final FlinkProperties flinkProperties;
+
+    private final String tableName;
+
+    private transient HikariDataSource dataSource;
+    private transient DatabaseService databaseService;
+    private transient SinkMetrics sinkMetrics;
+    private transient CoalescingStatisticsBuffer buffer;
+    private transient ScheduledExecutorService scheduler;
+    private transient ScheduledFuture<?> scheduledFuture;
+    private transient volatile Exception flushException;
+    private transient PartitionMaintenanceService partitionMaintenance;
+
+    public BufferedDatabaseSinkFunction(FlinkProperties flinkProperties) {
+        this(flinkProperties, DatabaseService.STATISTICS_TABLE);
+    }
+
+    public BufferedDatabaseSinkFunction(FlinkProperties flinkProperties, String tableName) {
+        this.flinkProperties = flinkProperties;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        this.databaseService = createDatabaseService();
+        databaseService.verifyTableColumns();
+        this.sinkMetrics = new SinkMetrics(getRuntimeContext().getMetricGroup());
+        this.buffer = new CoalescingStatisticsBuffer(getSinkConfig().getBatchSize(), getSinkConfig().isCoalesce());
+
+        long flushInterval = getSinkConfig().getFlushInterval();
+        if (flushInterval > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "database-sink-flusher-"
+                        + getRuntimeContext().getIndexOfThisSubtask());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduledFuture = scheduler.scheduleWithFixedDelay(() -> {
+                synchronized (BufferedDatabaseSinkFunction.this) {
+                    try {
+                        flush();
+                    } catch (Exception e) {
+                        flushException = e;
+                    }
+                }
+            }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+
+        if (getRuntimeContext().getIndexOfThisSubtask() == 0 && DatabaseService.STATISTICS_TABLE.equals(tableName)
+                && flinkProperties.getDatabase().getPartitioning().isEnabled()) {
+            this.partitionMaintenance = new PartitionMaintenanceService(dataSource, flinkProperties);
+            partitionMaintenance.start();
+        }
+
+        int allowedLateness = flinkProperties.getFlink().getWindow().getAllowedLateness();
+        if (allowedLateness > 0 && getRuntimeContext().getIndexOfThisSubtask() == 0) {
+            logger.warn("窗口允许延迟为{}秒，迟到增量按累加写入表{}；buffered模式为至少一次，故障恢复后重放的增量会重复累加，"
+                    + "需要精确结果时请使用exactly-once模式", allowedLateness, tableName);
+        }
+
+        logger.info("缓冲数据库Sink初始化完成 - 表: {}, 批量大小: {}, 刷新间隔: {}ms, 写入合并: {}",
+                tableName, getSinkConfig().getBatchSize(), flushInterval, getSinkConfig().isCoalesce());
+    }
+
+    @Override
+    public synchronized void invoke(SensorStatistics statistics, Context context) throws Exception {
+        checkFlushException();
+
+        statistics.setUpdatedTime(System.currentTimeMillis());
+        buffer.add(statistics);
+
+        if (buffer.size() >= getSinkConfig().getBatchSize()) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void snapshotState(FunctionSnapshotContext context) throws Exception {
+        checkFlushException();
+        flush();
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        // 检查点时缓冲区已清空，无需恢复状态
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+            scheduler.shutdown();
+        }
+        if (partitionMaintenance != null) {
+            partitionMaintenance.close();
+        }
+
+        try {
+            if (buffer != null && flushException == null) {
+                synchronized (this) {
+                    flush();
+                }
+            }
+        } finally {
+            if (dataSource != null) {
+                dataSource.close();
+            }
+            super.close();
+        }
+    }
+
+    private void flush() throws Exception {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        int maxRetries = getSinkConfig().getMaxRetries();
+        for (int attempt = 0; ; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+                int affectedRows = databaseService.batchUpsertStatistics(buffer.getRows(),
+                        getSinkConfig().getBatchSize());
+                sinkMetrics.recordBatch(buffer.size(), affectedRows, System.currentTimeMillis() - start);
+                sinkMetrics.recordReceived(buffer.getReceivedRows());
+                logger.debug("统计数据批量写入成功，收到条数: {}, 写入条数: {}, 影响行数: {}",
+                        buffer.getReceivedRows(), buffer.size(), affectedRows);
+                buffer.clear();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    logger.error("统计数据批量写入失败，已重试{}次，条数: {}", attempt, buffer.size(), e);
+                    throw e;
+                }
+                logger.warn("统计数据批量写入失败，第{}次重试", attempt + 1, e);
+                sinkMetrics.recordRetry();
+                Thread.sleep(1000L * (attempt + 1));
+            }
+        }
+    }
+
+    /**
+     * 创建连接池和数据库服务，测试中替换为不连接数据库的实现
+     */
+    DatabaseService createDatabaseService() {
+        this.dataSource = DataSourceConfig.createDataSource(flinkProperties, getRuntimeContext().getMetricGroup());
+        return new DatabaseService(dataSource, flinkProperties, tableName);
+    }
+
+    private void checkFlushException() throws Exception {
+        if (flushException != null) {
+            throw new RuntimeException("统计数据定时写入失败", flushException);
+        }
+    }
+
+    private FlinkProperties.Flink.Sink getSinkConfig() {
+        return flinkProperties.getFlink().getSink();
+    }
+}
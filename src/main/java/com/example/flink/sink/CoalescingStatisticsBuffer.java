@@ -0,0 +1,146 @@
+package com.example.flink.sink;
+
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService.WindowKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * 按唯一键合并的写入缓冲区 - 同一窗口在一次刷新内的多次更新只写入一行
+ *
+ * <p>完整结果后写覆盖先写（与upsert覆盖相同），迟到增量与缓冲中的结果按累加器的merge合并，
+ * 合并结果的写入效果与逐条upsert相同。创建时间保留第一条，更新时间取最后一条。
+ * 合并时生成新对象，不修改传入的统计数据（精确一次模式下它们属于检查点状态）。
+ *
+ * <p>关闭合并时退化为按到达顺序保存的列表。
+ */
+class CoalescingStatisticsBuffer {
+
+    private final List<SensorStatistics> rows;
+    private final Map<WindowKey, Integer> positions;
+    private int receivedRows;
+
+    CoalescingStatisticsBuffer(int expectedSize, boolean coalesce) {
+        this.rows = new ArrayList<>(expectedSize);
+        this.positions = coalesce ? new HashMap<>(Math.max(16, expectedSize * 4 / 3 + 1)) : null;
+    }
+
+    void add(SensorStatistics statistics) {
+        receivedRows++;
+        if (positions != null) {
+            Integer position = positions.putIfAbsent(new WindowKey(statistics), rows.size());
+            if (position != null) {
+                rows.set(position, coalesce(rows.get(position), statistics));
+                return;
+            }
+        }
+        rows.add(statistics);
+    }
+
+    /**
+     * 合并后待写入的行，按每个窗口首次出现的顺序
+     */
+    List<SensorStatistics> getRows() {
+        return rows;
+    }
+
+    /**
+     * 合并后待写入的行数
+     */
+    int size() {
+        return rows.size();
+    }
+
+    boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * 上次清空以来收到的统计数据条数
+     */
+    int getReceivedRows() {
+        return receivedRows;
+    }
+
+    void clear() {
+        rows.clear();
+        if (positions != null) {
+            positions.clear();
+        }
+        receivedRows = 0;
+    }
+
+    private static SensorStatistics coalesce(SensorStatistics buffered, SensorStatistics incoming) {
+        SensorStatistics result;
+        if (incoming.isDelta()) {
+            result = copy(buffered);
+            mergeDelta(result, incoming);
+        } else {
+            result = copy(incoming);
+        }
+        result.setCreatedTime(buffered.getCreatedTime());
+        result.setUpdatedTime(incoming.getUpdatedTime());
+        return result;
+    }
+
+    /**
+     * 与增量upsert语句相同的合并：数量和总和累加，最值取极值，均值和方差按两组数据合并；
+     * 结果仍是完整结果还是增量取决于缓冲中的一条
+     */
+    private static void mergeDelta(SensorStatistics target, SensorStatistics delta) {
+        long n1 = valueCount(target);
+        long n2 = valueCount(delta);
+        if (n1 == 0) {
+            target.setAvgValue(delta.getAvgValue());
+            target.setVarianceValue(delta.getVarianceValue());
+        } else if (n2 > 0) {
+            double mean1 = target.getAvgValue();
+            double mean2 = delta.getAvgValue();
+            double var1 = target.getVarianceValue();
+            double var2 = delta.getVarianceValue();
+            double n = n1 + n2;
+            double meanDelta = mean2 - mean1;
+            target.setAvgValue(mean1 + meanDelta * n2 / n);
+            target.setVarianceValue((var1 * n1 + var2 * n2) / n + meanDelta * meanDelta * n1 * n2 / (n * n));
+        }
+        target.setSumValue(mergeNullable(target.getSumValue(), delta.getSumValue(), Double::sum));
+        target.setMinValue(mergeNullable(target.getMinValue(), delta.getMinValue(), Math::min));
+        target.setMaxValue(mergeNullable(target.getMaxValue(), delta.getMaxValue(), Math::max));
+        target.setValueCount(n1 + n2);
+        target.setDataCount(target.getDataCount() + delta.getDataCount());
+    }
+
+    private static long valueCount(SensorStatistics statistics) {
+        return statistics.getValueCount() != null ? statistics.getValueCount() : 0L;
+    }
+
+    private static Double mergeNullable(Double current, Double incoming, DoubleBinaryOperator operator) {
+        if (current == null) {
+            return incoming;
+        }
+        if (incoming == null) {
+            return current;
+        }
+        return operator.applyAsDouble(current, incoming);
+    }
+
+    private static SensorStatistics copy(SensorStatistics source) {
+        SensorStatistics copy = new SensorStatistics(source.getTemplateId(), source.getDeviceId(),
+                source.getDataCount(), source.getWindowStart(), source.getWindowEnd());
+        copy.setId(source.getId());
+        copy.setValueCount(source.getValueCount());
+        copy.setSumValue(source.getSumValue());
+        copy.setMinValue(source.getMinValue());
+        copy.setMaxValue(source.getMaxValue());
+        copy.setAvgValue(source.getAvgValue());
+        copy.setVarianceValue(source.getVarianceValue());
+        copy.setCreatedTime(source.getCreatedTime());
+        copy.setUpdatedTime(source.getUpdatedTime());
+        copy.setDelta(source.isDelta());
+        return copy;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.flink.sink;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.util.JsonUtils;
+import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 死信日志Sink - 每条死信以一行JSON写入名为 dead-letter 的日志
+ *
+ * <p>logback-spring.xml 中该日志单独输出到 dead-letter 滚动文件，不进入应用日志。
+ */
+public class DeadLetterLogSinkFunction implements SinkFunction<DeadLetterRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger deadLetterLogger = LoggerFactory.getLogger("dead-letter");
+
+    @Override
+    public void invoke(DeadLetterRecord record, Context context) {
+        deadLetterLogger.info(JsonUtils.toJsonSafe(record));
+    }
+}
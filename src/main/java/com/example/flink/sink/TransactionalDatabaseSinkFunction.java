@@ -0,0 +1,233 @@
+package com.example.flink.sink;
+
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.metrics.SinkMetrics;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.serialization.StatisticsTransactionSerializer;
+import com.example.flink.service.DatabaseService;
+import com.example.flink.service.PartitionMaintenanceService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.flink.api.common.typeutils.base.VoidSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.functions.sink.TwoPhaseCommitSinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 精确一次语义的数据库Sink - 基于两阶段提交
+ *
+ * <p>每个检查点周期对应一个事务：周期内的统计数据暂存在事务对象中，随检查点一起持久化（预提交），
+ * 检查点完成后在一个数据库事务内批量写入（提交）。作业从检查点恢复时，已预提交的事务会被重新提交，
+ * 其中可能有已经写入数据库的事务；迟到增量按累加合并，重复写入会重复累加。因此提交时在同一个数据库事务中
+ * 把事务ID登记到{@link DatabaseService#TRANSACTION_LOG_TABLE}，已登记的事务直接跳过，
+ * 见{@link DatabaseService#commitTransaction}。登记的事务ID保留flink.sink.transaction-retention后定时清理。
+ *
+ * <p>开启写入合并（flink.sink.coalesce）时，提交前按唯一键合并同一窗口的多次更新；
+ * 事务对象中保存的仍是原始数据，重新提交时得到相同的合并结果。开启分区时由0号子任务定时维护分区。
+ */
+public class TransactionalDatabaseSinkFunction extends TwoPhaseCommitSinkFunction<
+        SensorStatistics, TransactionalDatabaseSinkFunction.StatisticsTransaction, Void> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionalDatabaseSinkFunction.class);
+
+    private static final long PURGE_INTERVAL = 3600000;
+
+    private final FlinkProperties flinkProperties;
+
+    private final String tableName;
+
+    private transient HikariDataSource dataSource;
+    private transient DatabaseService databaseService;
+    private transient SinkMetrics sinkMetrics;
+    private transient PartitionMaintenanceService partitionMaintenance;
+    private transient long lastPurgeTime;
+
+    public TransactionalDatabaseSinkFunction(FlinkProperties flinkProperties) {
+        this(flinkProperties, DatabaseService.STATISTICS_TABLE);
+    }
+
+    public TransactionalDatabaseSinkFunction(FlinkProperties flinkProperties, String tableName) {
+        super(new StatisticsTransactionSerializer(), VoidSerializer.INSTANCE);
+        this.flinkProperties = flinkProperties;
+        this.tableName = tableName;
+    }
+
+    @Override
+    protected StatisticsTransaction beginTransaction() {
+        return new StatisticsTransaction(UUID.randomUUID().toString(), new ArrayList<>());
+    }
+
+    @Override
+    protected void invoke(StatisticsTransaction transaction, SensorStatistics statistics, Context context) {
+        statistics.setUpdatedTime(System.currentTimeMillis());
+        transaction.getRows().add(statistics);
+    }
+
+    @Override
+    protected void preCommit(StatisticsTransaction transaction) {
+        // 事务数据随检查点状态持久化，无需额外操作
+    }
+
+    @Override
+    protected void commit(StatisticsTransaction transaction) {
+        if (transaction.getRows().isEmpty()) {
+            return;
+        }
+
+        FlinkProperties.Flink.Sink sinkConfig = flinkProperties.getFlink().getSink();
+        DatabaseService service = getDatabaseService();
+        CoalescingStatisticsBuffer buffer = new CoalescingStatisticsBuffer(
+                transaction.getRows().size(), sinkConfig.isCoalesce());
+        for (SensorStatistics statistics : transaction.getRows()) {
+            buffer.add(statistics);
+        }
+        for (int attempt = 0; ; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+                int affectedRows = service.commitTransaction(
+                        transaction.getTransactionId(), buffer.getRows(), sinkConfig.getBatchSize());
+                if (affectedRows == DatabaseService.ALREADY_COMMITTED) {
+                    return;
+                }
+                sinkMetrics.recordBatch(buffer.size(), affectedRows, System.currentTimeMillis() - start);
+                sinkMetrics.recordReceived(buffer.getReceivedRows());
+                logger.debug("事务提交成功 - 事务ID: {}, 收到条数: {}, 写入条数: {}, 影响行数: {}",
+                        transaction.getTransactionId(), buffer.getReceivedRows(), buffer.size(), affectedRows);
+                purgeTransactionLog();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= sinkConfig.getMaxRetries()) {
+                    logger.error("事务提交失败，已重试{}次 - 事务ID: {}", attempt, transaction.getTransactionId(), e);
+                    throw e;
+                }
+                logger.warn("事务提交失败，第{}次重试 - 事务ID: {}", attempt + 1, transaction.getTransactionId(), e);
+                sinkMetrics.recordRetry();
+                try {
+                    Thread.sleep(1000L * (attempt + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 每小时最多清理一次超过保留时间的事务ID，清理失败不影响提交
+     */
+    private void purgeTransactionLog() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeTime < PURGE_INTERVAL) {
+            return;
+        }
+        lastPurgeTime = now;
+        try {
+            int purged = databaseService.purgeTransactionLog(
+                    now - flinkProperties.getFlink().getSink().getTransactionRetention());
+            logger.debug("已清理过期的事务ID - 条数: {}", purged);
+        } catch (RuntimeException e) {
+            logger.warn("清理过期的事务ID失败", e);
+        }
+    }
+
+    @Override
+    protected void abort(StatisticsTransaction transaction) {
+        logger.debug("事务已丢弃 - 事务ID: {}, 条数: {}", transaction.getTransactionId(), transaction.getRows().size());
+        transaction.getRows().clear();
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        super.open(parameters);
+        // 启动时即检查表结构，不等到第一个检查点完成
+        getDatabaseService();
+        if (getRuntimeContext().getIndexOfThisSubtask() == 0 && DatabaseService.STATISTICS_TABLE.equals(tableName)
+                && flinkProperties.getDatabase().getPartitioning().isEnabled()) {
+            partitionMaintenance = new PartitionMaintenanceService(dataSource, flinkProperties);
+            partitionMaintenance.start();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            super.close();
+        } finally {
+            if (partitionMaintenance != null) {
+                partitionMaintenance.close();
+            }
+            if (dataSource != null) {
+                dataSource.close();
+            }
+        }
+    }
+
+    /**
+     * 恢复时commit可能先于open被调用，因此延迟创建连接池和Sink指标，创建时检查表结构
+     */
+    private DatabaseService getDatabaseService() {
+        if (databaseService == null) {
+            DatabaseService service = createDatabaseService();
+            service.verifyTableColumns();
+            sinkMetrics = new SinkMetrics(getRuntimeContext().getMetricGroup());
+            databaseService = service;
+        }
+        return databaseService;
+    }
+
+    /**
+     * 创建连接池和数据库服务，测试中替换为不连接数据库的实现
+     */
+    DatabaseService createDatabaseService() {
+        dataSource = DataSourceConfig.createDataSource(flinkProperties, getRuntimeContext().getMetricGroup());
+        return new DatabaseService(dataSource, flinkProperties, tableName);
+    }
+
+    /**
+     * 一个检查点周期内待提交的统计数据
+     */
+    public static class StatisticsTransaction {
+
+        private String transactionId;
+        private List<SensorStatistics> rows;
+
+        public StatisticsTransaction() {
+        }
+
+        public StatisticsTransaction(String transactionId, List<SensorStatistics> rows) {
+            this.transactionId = transactionId;
+            this.rows = rows;
+        }
+
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        public void setTransactionId(String transactionId) {
+            this.transactionId = transactionId;
+        }
+
+        public List<SensorStatistics> getRows() {
+            return rows;
+        }
+
+        public void setRows(List<SensorStatistics> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public String toString() {
+            return "StatisticsTransaction{" +
+                    "transactionId='" + transactionId + '\'' +
+                    ", rows=" + rows.size() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.flink.util;
+
+import java.sql.Timestamp;
+import java.time.format.DateTimeParseException;
+import java.util.TimeZone;
+
+/**
+ * 固定格式时间编解码工具 - 处理 "yyyy-MM-dd HH:mm:ss" 与UTC毫秒时间戳之间的转换
+ *
+ * <p>手写解析和格式化，不创建LocalDateTime、DateTimeFormatter等中间对象，解析过程不分配内存。
+ * 解析规则与Jackson按 {@code @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")} 解析LocalDateTime一致
+ * （SMART解析：日期超过当月天数时取当月最后一天，24:00:00表示次日零点），仅支持4位年份。
+ */
+public final class DateTimeCodec {
+
+    /**
+     * 格式化后的字符串长度
+     */
+    public static final int LENGTH = 19;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * MILLIS_PER_SECOND;
+
+    /**
+     * TimeZone.getDefault()每次返回副本，这里缓存JVM启动时的默认时区
+     */
+    private static final TimeZone DEFAULT_TIME_ZONE = TimeZone.getDefault();
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * 解析时间字符串为UTC毫秒时间戳
+     *
+     * @param text 时间字符串
+     * @return 毫秒时间戳
+     * @throws DateTimeParseException 格式不正确
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * 解析时间字符串中[start, end)区间为UTC毫秒时间戳
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        if (end - start != LENGTH
+                || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+                || text.charAt(start + 10) != ' '
+                || text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':') {
+            throw parseError(text.subSequence(start, end).toString());
+        }
+
+        long epochMillis = toEpochMillis(
+                digits(text, start, 4),
+                digits(text, start + 5, 2),
+                digits(text, start + 8, 2),
+                digits(text, start + 11, 2),
+                digits(text, start + 14, 2),
+                digits(text, start + 17, 2));
+        if (epochMillis == Long.MIN_VALUE) {
+            throw parseError(text.subSequence(start, end).toString());
+        }
+        return epochMillis;
+    }
+
+    /**
+     * 解析字符数组中[offset, offset + length)区间，便于直接读取JsonParser的字符缓冲区
+     */
+    public static long parse(char[] buffer, int offset, int length) {
+        if (length != LENGTH
+                || buffer[offset + 4] != '-' || buffer[offset + 7] != '-'
+                || buffer[offset + 10] != ' '
+                || buffer[offset + 13] != ':' || buffer[offset + 16] != ':') {
+            throw parseError(new String(buffer, offset, length));
+        }
+
+        long epochMillis = toEpochMillis(
+                digits(buffer, offset, 4),
+                digits(buffer, offset + 5, 2),
+                digits(buffer, offset + 8, 2),
+                digits(buffer, offset + 11, 2),
+                digits(buffer, offset + 14, 2),
+                digits(buffer, offset + 17, 2));
+        if (epochMillis == Long.MIN_VALUE) {
+            throw parseError(new String(buffer, offset, length));
+        }
+        return epochMillis;
+    }
+
+    /**
+     * 格式化UTC毫秒时间戳，毫秒部分被截断
+     */
+    public static String format(long epochMillis) {
+        char[] buffer = new char[LENGTH];
+        formatTo(epochMillis, buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * 格式化UTC毫秒时间戳到字符数组，写入LENGTH个字符
+     */
+    public static void formatTo(long epochMillis, char[] buffer, int offset) {
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(epochMillis, MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+
+        // Howard Hinnant civil_from_days
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        writeDigits(buffer, offset, year, 4);
+        buffer[offset + 4] = '-';
+        writeDigits(buffer, offset + 5, month, 2);
+        buffer[offset + 7] = '-';
+        writeDigits(buffer, offset + 8, day, 2);
+        buffer[offset + 10] = ' ';
+        writeDigits(buffer, offset + 11, secondOfDay / 3600, 2);
+        buffer[offset + 13] = ':';
+        writeDigits(buffer, offset + 14, secondOfDay / 60 % 60, 2);
+        buffer[offset + 16] = ':';
+        writeDigits(buffer, offset + 17, secondOfDay % 60, 2);
+    }
+
+    /**
+     * 将表示UTC墙上时间的毫秒时间戳转换为JDBC Timestamp
+     *
+     * <p>与 {@code Timestamp.valueOf(LocalDateTime)} 一样按JVM默认时区解释墙上时间，
+     * 保证写入数据库的字面值与UTC墙上时间相同。
+     */
+    public static Timestamp toSqlTimestamp(long wallClockMillis) {
+        long instant = wallClockMillis - DEFAULT_TIME_ZONE.getOffset(wallClockMillis);
+        return new Timestamp(wallClockMillis - DEFAULT_TIME_ZONE.getOffset(instant));
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        // Howard Hinnant days_from_civil
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long mp = month > 2 ? month - 3 : month + 9;
+        long doy = (153 * mp + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int monthLength(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * 校验各字段并转换为毫秒时间戳，字段非法时返回Long.MIN_VALUE
+     */
+    private static long toEpochMillis(int year, int month, int day, int hour, int minute, int second) {
+        boolean endOfDay = hour == 24 && minute == 0 && second == 0;
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || (hour > 23 && !endOfDay) || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        int monthLength = monthLength(year, month);
+        if (day > monthLength) {
+            day = monthLength;
+        }
+
+        long seconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600L + minute * 60L + second;
+        return seconds * MILLIS_PER_SECOND;
+    }
+
+    /**
+     * 读取定长数字，包含非数字字符时返回-1
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(char[] buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static DateTimeParseException parseError(String value) {
+        return new DateTimeParseException("时间格式应为 yyyy-MM-dd HH:mm:ss: " + value, value, 0);
+    }
+}
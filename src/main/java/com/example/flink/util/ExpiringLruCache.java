@@ -0,0 +1,75 @@
+package com.example.flink.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有容量上限和过期时间的LRU缓存
+ *
+ * <p>超过容量时淘汰最久未访问的条目，写入超过ttl的条目在读取时视为不存在并移除。
+ * 时间由调用方传入，便于测试；非线程安全，并发访问需要调用方加锁。
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * @param maxSize   最大条目数
+     * @param ttlMillis 条目写入后的有效时长（毫秒）
+     */
+    public ExpiringLruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("缓存容量和过期时间必须为正数");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 读取未过期的条目
+     *
+     * @return 条目的值，不存在或已过期时返回null
+     */
+    public V get(K key, long now) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.writeTime >= ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value, long now) {
+        entries.put(key, new Entry<>(value, now));
+    }
+
+    /**
+     * 当前条目数，包含尚未被读取移除的过期条目
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long writeTime;
+
+        private Entry(V value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.flink.util;
 
+import com.example.flink.serialization.EpochMillisDeserializerModifier;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +26,9 @@ public class JsonUtils {
         
         // 注册Java 8时间模块
         objectMapper.registerModule(new JavaTimeModule());
+
+        // 毫秒时间戳字段直接解析为long，不装箱
+        objectMapper.registerModule(new SimpleModule().setDeserializerModifier(new EpochMillisDeserializerModifier()));
         
         // 配置反序列化选项
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -72,7 +79,7 @@ public class JsonUtils {
      * @throws JsonProcessingException 反序列化异常
      */
     public static <T> T fromJson(String json, Class<T> clazz) throws JsonProcessingException {
-        if (json == null || json.trim().isEmpty()) {
+        if (StringUtils.isBlank(json)) {
             return null;
         }
         return objectMapper.readValue(json, clazz);
@@ -130,6 +137,16 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * 获取指定类型的ObjectReader，ObjectReader线程安全且可复用，适合在算子中缓存后直接解析字节数组
+     *
+     * @param clazz 目标类型
+     * @return ObjectReader实例
+     */
+    public static ObjectReader readerFor(Class<?> clazz) {
+        return objectMapper.readerFor(clazz);
+    }
+
     /**
      * 获取ObjectMapper实例
      *
@@ -0,0 +1,50 @@
+package com.example.flink.util;
+
+/**
+ * 日志限流器 - 每个时间窗口内最多允许输出指定条数的日志，其余日志被计数后省略
+ *
+ * <p>用于高频出错的路径（如逐条解析失败），避免错误批次中每条记录都打印日志拖慢处理。
+ * 非线程安全，每个算子实例各自持有一个。
+ */
+public class LogRateLimiter {
+
+    private final int permitsPerInterval;
+    private final long intervalMillis;
+
+    private long intervalStart = Long.MIN_VALUE;
+    private int used;
+    private long suppressed;
+
+    /**
+     * @param permitsPerInterval 每个时间窗口允许的日志条数
+     * @param intervalMillis     时间窗口长度（毫秒）
+     */
+    public LogRateLimiter(int permitsPerInterval, long intervalMillis) {
+        if (permitsPerInterval <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("日志限流参数必须为正数");
+        }
+        this.permitsPerInterval = permitsPerInterval;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * 尝试获取一次输出日志的许可
+     *
+     * @return 允许输出时返回自上次输出以来被省略的日志条数（不小于0），不允许输出时返回-1
+     */
+    public long tryAcquire() {
+        long now = System.currentTimeMillis();
+        if (now - intervalStart >= intervalMillis) {
+            intervalStart = now;
+            used = 0;
+        }
+        if (used >= permitsPerInterval) {
+            suppressed++;
+            return -1;
+        }
+        used++;
+        long result = suppressed;
+        suppressed = 0;
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.flink.function;
+
+import com.example.flink.model.Alert;
+import com.example.flink.model.AlertRule;
+import com.example.flink.model.SensorData;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * AlertRuleIndex规则编译和评估测试
+ */
+public class AlertRuleIndexTest {
+
+    private static final String TEMPLATE = "template_001";
+
+    @Test
+    public void thresholdRulesFireOnlyWhenCrossed() {
+        AlertRuleIndex index = AlertRuleIndex.compile(Arrays.asList(
+                rule("above-50", AlertRule.Type.THRESHOLD_ABOVE, 50.0),
+                rule("above-80", AlertRule.Type.THRESHOLD_ABOVE, 80.0),
+                rule("above-30", AlertRule.Type.THRESHOLD_ABOVE, 30.0),
+                rule("below-10", AlertRule.Type.THRESHOLD_BELOW, 10.0),
+                rule("below-0", AlertRule.Type.THRESHOLD_BELOW, 0.0)));
+
+        assertEquals(Arrays.asList("above-30", "above-50"), firedRuleIds(index, data(60.0, 1000, null), null));
+        assertEquals(Collections.emptyList(), firedRuleIds(index, data(30.0, 1000, null), null));
+        assertEquals(Collections.singletonList("below-10"), firedRuleIds(index, data(5.0, 1000, null), null));
+        assertEquals(Arrays.asList("below-0", "below-10"), firedRuleIds(index, data(-1.0, 1000, null), null));
+        assertEquals(Collections.emptyList(), firedRuleIds(index, data(null, 1000, null), null));
+    }
+
+    @Test
+    public void historyRulesCompareWithPreviousReading() {
+        AlertRuleIndex index = AlertRuleIndex.compile(Arrays.asList(
+                rule("rate-5", AlertRule.Type.RATE_OF_CHANGE, 5.0),
+                rule("status", AlertRule.Type.STATUS_CHANGE, null)));
+        AlertRuleIndex.TemplateRules templateRules = index.get(TEMPLATE);
+        assertTrue(templateRules.needsHistory());
+
+        SensorData previous = data(10.0, 1000, "normal");
+        // 2秒变化20，每秒10
+        assertEquals(Collections.singletonList("rate-5"), firedRuleIds(index, data(30.0, 3000, "normal"), previous));
+        assertEquals(Collections.singletonList("status"), firedRuleIds(index, data(11.0, 3000, "error"), previous));
+        assertEquals(Collections.emptyList(), firedRuleIds(index, data(30.0, 3000, "normal"), null));
+        assertEquals(Collections.emptyList(), firedRuleIds(index, data(30.0, 1000, "normal"), previous));
+    }
+
+    @Test
+    public void templatesWithoutRulesAreSkipped() {
+        AlertRuleIndex index = AlertRuleIndex.compile(Arrays.asList(
+                rule("above-50", AlertRule.Type.THRESHOLD_ABOVE, 50.0),
+                rule("invalid", AlertRule.Type.THRESHOLD_ABOVE, null)));
+
+        assertEquals(1, index.getRuleCount());
+        assertNull(index.get("template_002"));
+        assertFalse(index.get(TEMPLATE).needsHistory());
+    }
+
+    private static List<String> firedRuleIds(AlertRuleIndex index, SensorData current, SensorData previous) {
+        List<Alert> alerts = new ArrayList<>();
+        index.get(TEMPLATE).evaluate(current, previous, alerts::add);
+        return alerts.stream().map(Alert::getRuleId).sorted().collect(Collectors.toList());
+    }
+
+    private static AlertRule rule(String ruleId, AlertRule.Type type, Double threshold) {
+        return new AlertRule(ruleId, TEMPLATE, type, threshold);
+    }
+
+    private static SensorData data(Double value, long timestamp, String status) {
+        return new SensorData(TEMPLATE, "device_001", value, timestamp, "room_101", status);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.flink.function;
+
+import com.example.flink.FlinkStreamingApplication;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DeltaEventTimeTrigger与DeltaStatisticsWindowFunction组合的输出测试：窗口结束时输出完整结果，
+ * 允许延迟内的迟到记录逐次以增量输出，完整结果与所有增量合并后等于全部记录的统计
+ */
+public class DeltaStatisticsWindowFunctionTest {
+
+    private static final long WINDOW_SIZE = 60_000;
+
+    private static final long ALLOWED_LATENESS = 30_000;
+
+    private static final SensorKey KEY = new SensorKey("t1", "d1");
+
+    private KeyedOneInputStreamOperatorTestHarness<SensorKey, SensorData, SensorStatistics> harness;
+
+    @Before
+    public void setUp() throws Exception {
+        harness = new KeyedOneInputStreamOperatorTestHarness<>(createWindowOperator(),
+                new FlinkStreamingApplication.SensorDataKeySelector(), TypeInformation.of(SensorKey.class));
+        harness.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @Test
+    public void firstFiringIsFullAndLateFiringsAreDeltas() throws Exception {
+        process(1_000, 1.0);
+        process(2_000, 2.0);
+        harness.processWatermark(WINDOW_SIZE - 2);
+        assertTrue(harness.extractOutputValues().isEmpty());
+
+        harness.processWatermark(WINDOW_SIZE - 1);
+        process(3_000, 4.0);
+        process(4_000, null);
+
+        List<SensorStatistics> output = harness.extractOutputValues();
+        assertEquals(3, output.size());
+        assertFalse(output.get(0).isDelta());
+        assertStatistics(statistics(1.0, 2.0), output.get(0));
+        assertTrue(output.get(1).isDelta());
+        assertStatistics(statistics(4.0), output.get(1));
+        assertTrue(output.get(2).isDelta());
+        assertStatistics(statistics((Double) null), output.get(2));
+
+        SensorStatisticsAccumulator merged = SensorStatisticsAccumulator.fromStatistics(output.get(0));
+        merged.merge(SensorStatisticsAccumulator.fromStatistics(output.get(1)));
+        merged.merge(SensorStatisticsAccumulator.fromStatistics(output.get(2)));
+        assertStatistics(statistics(1.0, 2.0, 4.0, null), merged.toStatistics(KEY, 0, WINDOW_SIZE));
+    }
+
+    @Test
+    public void recordsAfterAllowedLatenessAreDroppedAndStateIsCleared() throws Exception {
+        process(1_000, 1.0);
+        harness.processWatermark(WINDOW_SIZE - 1 + ALLOWED_LATENESS);
+        process(2_000, 2.0);
+
+        List<SensorStatistics> output = harness.extractOutputValues();
+        assertEquals(1, output.size());
+        assertFalse(output.get(0).isDelta());
+        assertEquals(0, harness.numKeyedStateEntries());
+
+        // 清除后的下一个窗口仍从完整结果开始
+        process(WINDOW_SIZE + 1_000, 3.0);
+        harness.processWatermark(2 * WINDOW_SIZE - 1);
+        output = harness.extractOutputValues();
+        assertEquals(2, output.size());
+        assertFalse(output.get(1).isDelta());
+        assertEquals(WINDOW_SIZE, output.get(1).getWindowStart());
+        assertStatistics(statistics(3.0), output.get(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static OneInputStreamOperator<SensorData, SensorStatistics> createWindowOperator() {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        SingleOutputStreamOperator<SensorStatistics> windowed = env
+                .fromElements(SensorData.class, new SensorData())
+                .keyBy(new FlinkStreamingApplication.SensorDataKeySelector())
+                .window(TumblingEventTimeWindows.of(Time.milliseconds(WINDOW_SIZE)))
+                .allowedLateness(Time.milliseconds(ALLOWED_LATENESS))
+                .trigger(new DeltaEventTimeTrigger())
+                .aggregate(new SensorStatisticsAggregateFunction(), new DeltaStatisticsWindowFunction());
+        OneInputTransformation<SensorData, SensorStatistics> transformation =
+                (OneInputTransformation<SensorData, SensorStatistics>) windowed.getTransformation();
+        return (OneInputStreamOperator<SensorData, SensorStatistics>)
+                ((SimpleOperatorFactory<SensorStatistics>) transformation.getOperatorFactory()).getOperator();
+    }
+
+    private void process(long timestamp, Double value) throws Exception {
+        harness.processElement(new StreamRecord<>(
+                new SensorData(KEY.getTemplateId(), KEY.getDeviceId(), value, timestamp, "l1", "ok"), timestamp));
+    }
+
+    private static SensorStatistics statistics(Double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (Double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            accumulator.add(data);
+        }
+        return accumulator.toStatistics(KEY, 0, WINDOW_SIZE);
+    }
+
+    private static void assertStatistics(SensorStatistics expected, SensorStatistics actual) {
+        assertEquals(expected.getDataCount(), actual.getDataCount());
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(expected.getMinValue(), actual.getMinValue());
+        assertEquals(expected.getMaxValue(), actual.getMaxValue());
+        if (expected.getValueCount() == 0) {
+            assertNull(actual.getSumValue());
+            assertNull(actual.getAvgValue());
+            return;
+        }
+        assertEquals(expected.getSumValue(), actual.getSumValue(), 1e-9);
+        assertEquals(expected.getAvgValue(), actual.getAvgValue(), 1e-9);
+        assertEquals(expected.getVarianceValue(), actual.getVarianceValue(), 1e-9);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.flink.function;
+
+import com.example.flink.FlinkStreamingApplication;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.datastream.WindowedStream;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.util.OutputTag;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 窗格滑动窗口与Flink原生滑动窗口的对比测试：同一组乱序输入和水印下，每一步输出的窗口结果、迟到增量
+ * 和迟到侧输出都应一致
+ */
+public class PaneSlidingWindowFunctionTest {
+
+    private static final long SIZE = 60_000;
+
+    private static final long SLIDE = 20_000;
+
+    /**
+     * 水印落后于最大事件时间的时长，水印为 最大事件时间 - OUT_OF_ORDERNESS - 1，与BoundedOutOfOrdernessWatermarks相同
+     */
+    private static final long OUT_OF_ORDERNESS = 10_000;
+
+    private static final OutputTag<SensorData> LATE_TAG = new OutputTag<SensorData>("late") {
+    };
+
+    @Test
+    public void matchesNativeSlidingWindowsWithoutAllowedLateness() throws Exception {
+        List<String> late = assertSameOutput(0);
+        assertTrue("测试数据应包含迟到记录", late.size() > 10);
+    }
+
+    @Test
+    public void matchesNativeSlidingWindowsWithAllowedLateness() throws Exception {
+        List<String> late = assertSameOutput(30_000);
+        assertTrue("测试数据应包含超过允许延迟的记录", late.size() > 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowSizeMustBeMultipleOfSlide() {
+        PaneSlidingWindowFunction.forSensorData(SIZE, 25_000, 0, LATE_TAG);
+    }
+
+    /**
+     * 逐条输入记录并推进水印，每一步比较两个算子新产生的输出，返回迟到侧输出
+     */
+    private static List<String> assertSameOutput(long allowedLateness) throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<SensorKey, SensorData, SensorStatistics> pane =
+                     createHarness(new KeyedProcessOperator<>(
+                             PaneSlidingWindowFunction.forSensorData(SIZE, SLIDE, allowedLateness, LATE_TAG)));
+             KeyedOneInputStreamOperatorTestHarness<SensorKey, SensorData, SensorStatistics> nativeWindows =
+                     createHarness(createNativeWindowOperator(allowedLateness))) {
+            pane.open();
+            nativeWindows.open();
+
+            long maxTimestamp = Long.MIN_VALUE;
+            int fullResults = 0;
+            int deltas = 0;
+            List<SensorData> input = generateInput();
+            for (int i = 0; i < input.size(); i++) {
+                SensorData data = input.get(i);
+                pane.processElement(new StreamRecord<>(data, data.getTimestamp()));
+                nativeWindows.processElement(new StreamRecord<>(data, data.getTimestamp()));
+                maxTimestamp = Math.max(maxTimestamp, data.getTimestamp());
+                pane.processWatermark(maxTimestamp - OUT_OF_ORDERNESS - 1);
+                nativeWindows.processWatermark(maxTimestamp - OUT_OF_ORDERNESS - 1);
+
+                List<String> expected = drain(nativeWindows);
+                assertEquals("第" + i + "条记录之后", expected, drain(pane));
+                for (String row : expected) {
+                    if (row.contains("|delta|")) {
+                        deltas++;
+                    } else {
+                        fullResults++;
+                    }
+                }
+            }
+            pane.processWatermark(Long.MAX_VALUE);
+            nativeWindows.processWatermark(Long.MAX_VALUE);
+            assertEquals(drain(nativeWindows), drain(pane));
+
+            assertTrue(fullResults > 100);
+            assertEquals(allowedLateness > 0, deltas > 0);
+            List<String> late = lateRecords(nativeWindows);
+            assertEquals(late, lateRecords(pane));
+            return late;
+        }
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<SensorKey, SensorData, SensorStatistics> createHarness(
+            OneInputStreamOperator<SensorData, SensorStatistics> operator) throws Exception {
+        return new KeyedOneInputStreamOperatorTestHarness<>(operator,
+                new FlinkStreamingApplication.SensorDataKeySelector(), TypeInformation.of(SensorKey.class));
+    }
+
+    /**
+     * 与FlinkStreamingApplication中native引擎相同的窗口配置
+     */
+    @SuppressWarnings("unchecked")
+    private static OneInputStreamOperator<SensorData, SensorStatistics> createNativeWindowOperator(
+            long allowedLateness) {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        WindowedStream<SensorData, SensorKey, TimeWindow> windowedStream = env
+                .fromElements(SensorData.class, new SensorData())
+                .keyBy(new FlinkStreamingApplication.SensorDataKeySelector())
+                .window(SlidingEventTimeWindows.of(Time.milliseconds(SIZE), Time.milliseconds(SLIDE)))
+                .sideOutputLateData(LATE_TAG);
+        SingleOutputStreamOperator<SensorStatistics> windowed = allowedLateness > 0
+                ? windowedStream
+                        .allowedLateness(Time.milliseconds(allowedLateness))
+                        .trigger(new DeltaEventTimeTrigger())
+                        .aggregate(new SensorStatisticsAggregateFunction(), new DeltaStatisticsWindowFunction())
+                : windowedStream
+                        .aggregate(new SensorStatisticsAggregateFunction(),
+                                new FlinkStreamingApplication.StatisticsWindowFunction());
+        OneInputTransformation<SensorData, SensorStatistics> transformation =
+                (OneInputTransformation<SensorData, SensorStatistics>) windowed.getTransformation();
+        return (OneInputStreamOperator<SensorData, SensorStatistics>)
+                ((SimpleOperatorFactory<SensorStatistics>) transformation.getOperatorFactory()).getOperator();
+    }
+
+    /**
+     * 3个设备的乱序数据：大部分记录在水印之内，约5%迟到1~3个滑动间隔，约3%迟到超过一个窗口。
+     * 时间戳取整到秒，水印经常恰好等于窗口的最大时间戳或允许延迟的截止时间，覆盖边界情况
+     */
+    private static List<SensorData> generateInput() {
+        Random random = new Random(7);
+        List<SensorData> input = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            long timestamp = i * 250L + random.nextInt(5_000);
+            int lateness = random.nextInt(100);
+            if (lateness < 5) {
+                timestamp -= SLIDE + random.nextInt((int) (2 * SLIDE));
+            } else if (lateness < 8) {
+                timestamp -= SIZE + random.nextInt((int) SIZE);
+            }
+            // 取0.25的整数倍，两种合并顺序得到的和完全相同
+            Double value = random.nextInt(10) == 0 ? null : random.nextInt(400) / 4.0;
+            timestamp = Math.max(0, timestamp) / 1000 * 1000;
+            input.add(new SensorData("t1", "d" + random.nextInt(3), value, timestamp, "l1", "ok"));
+        }
+        return input;
+    }
+
+    /**
+     * 取出算子新输出的统计结果，同一步内的输出按内容排序
+     */
+    private static List<String> drain(KeyedOneInputStreamOperatorTestHarness<?, ?, SensorStatistics> harness) {
+        List<String> rows = new ArrayList<>();
+        for (SensorStatistics statistics : harness.extractOutputValues()) {
+            rows.add(format(statistics));
+        }
+        harness.getOutput().clear();
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static List<String> lateRecords(KeyedOneInputStreamOperatorTestHarness<?, ?, ?> harness) {
+        List<String> records = new ArrayList<>();
+        Queue<StreamRecord<SensorData>> sideOutput = harness.getSideOutput(LATE_TAG);
+        if (sideOutput != null) {
+            for (StreamRecord<SensorData> record : sideOutput) {
+                records.add(record.getValue().getDeviceId() + "@" + record.getTimestamp());
+            }
+        }
+        return records;
+    }
+
+    private static String format(SensorStatistics statistics) {
+        return String.format("%s|%s|%d-%d|%s|%d|%d|%s|%s|%s|%s|%s",
+                statistics.getTemplateId(), statistics.getDeviceId(),
+                statistics.getWindowStart(), statistics.getWindowEnd(), statistics.isDelta() ? "delta" : "full",
+                statistics.getDataCount(), statistics.getValueCount(), statistics.getSumValue(),
+                statistics.getMinValue(), statistics.getMaxValue(), round(statistics.getAvgValue()),
+                round(statistics.getVarianceValue()));
+    }
+
+    private static String round(Double value) {
+        return value == null ? "null" : String.format("%.6f", value);
+    }
+}
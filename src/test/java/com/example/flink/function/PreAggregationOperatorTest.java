@@ -0,0 +1,335 @@
+package com.example.flink.function;
+
+import com.example.flink.FlinkStreamingApplication;
+import com.example.flink.model.PreAggregatedStatistics;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 本地预聚合算子测试：缓冲在批量大小、刷新定时器、水印和检查点屏障前输出，窗格对齐的部分统计落入正确的滑动窗口，
+ * 两阶段聚合的结果与逐条聚合一致
+ */
+public class PreAggregationOperatorTest {
+
+    private static final long WINDOW_SIZE = 50_000;
+
+    /**
+     * 与窗口大小的最大公约数为10秒，即窗格大小
+     */
+    private static final long WINDOW_SLIDE = 30_000;
+
+    private static final long INTERVAL = 1_000;
+
+    private OneInputStreamOperatorTestHarness<SensorData, PreAggregatedStatistics> harness;
+
+    @After
+    public void tearDown() throws Exception {
+        if (harness != null) {
+            harness.close();
+        }
+    }
+
+    @Test
+    public void flushesWhenBatchSizeIsReached() throws Exception {
+        harness = createHarness(3);
+        process("d1", 1_000, 1.0);
+        process("d1", 2_000, 2.0);
+        assertTrue(harness.extractOutputValues().isEmpty());
+
+        process("d2", 3_000, 4.0);
+        List<PreAggregatedStatistics> output = harness.extractOutputValues();
+        assertEquals(2, output.size());
+        assertEquals(3, totalDataCount(output));
+    }
+
+    @Test
+    public void flushesBeforeForwardingWatermark() throws Exception {
+        harness = createHarness(100);
+        process("d1", 1_000, 1.0);
+        process("d1", 12_000, 2.0);
+        harness.processWatermark(new Watermark(15_000));
+
+        List<Object> output = new ArrayList<>(harness.getOutput());
+        assertEquals(3, output.size());
+        assertTrue(output.get(0) instanceof StreamRecord);
+        assertTrue(output.get(1) instanceof StreamRecord);
+        assertEquals(new Watermark(15_000), output.get(2));
+    }
+
+    @Test
+    public void flushesOnProcessingTimeTimer() throws Exception {
+        harness = createHarness(100);
+        process("d1", 1_000, 1.0);
+        harness.setProcessingTime(INTERVAL - 1);
+        assertTrue(harness.extractOutputValues().isEmpty());
+
+        harness.setProcessingTime(INTERVAL);
+        assertEquals(1, harness.extractOutputValues().size());
+
+        // 定时器重新注册，下一个间隔继续输出
+        process("d1", 2_000, 2.0);
+        harness.setProcessingTime(2 * INTERVAL);
+        assertEquals(2, harness.extractOutputValues().size());
+    }
+
+    @Test
+    public void bufferIsEmptyWhenCheckpointBarrierIsEmitted() throws Exception {
+        harness = createHarness(100);
+        process("d1", 1_000, 1.0);
+        process("d2", 2_000, 2.0);
+
+        harness.prepareSnapshotPreBarrier(1);
+        assertEquals(2, harness.extractOutputValues().size());
+        OperatorSubtaskState snapshot = harness.snapshot(1, 0);
+        harness.close();
+
+        // 从检查点恢复后没有缓冲的数据需要重新输出
+        harness = createHarness(100, snapshot);
+        harness.processWatermark(new Watermark(Long.MAX_VALUE));
+        assertTrue(harness.extractOutputValues().isEmpty());
+    }
+
+    @Test
+    public void partialsKeepRecordsOfOneDeviceAndPane() throws Exception {
+        harness = createHarness(100);
+        process("d1", 10_000, 1.0);
+        process("d1", 19_999, 3.0);
+        process("d1", 20_000, 5.0);
+        process("d2", 10_000, null);
+        harness.processWatermark(new Watermark(30_000));
+
+        List<String> partials = new ArrayList<>();
+        for (StreamRecord<? extends PreAggregatedStatistics> record : harness.extractOutputStreamRecords()) {
+            PreAggregatedStatistics partial = record.getValue();
+            assertEquals(partial.getPaneStart(), record.getTimestamp());
+            SensorStatisticsAccumulator accumulator = partial.getAccumulator();
+            partials.add(partial.getDeviceId() + "@" + partial.getPaneStart() + " " + accumulator.getDataCount()
+                    + " " + accumulator.getValueCount() + " " + accumulator.getSum());
+        }
+        Collections.sort(partials);
+        assertEquals(Arrays.asList("d1@10000 2 2 4.0", "d1@20000 1 1 5.0", "d2@10000 1 0 0.0"), partials);
+    }
+
+    @Test
+    public void paneStartIsAssignedToSameSlidingWindowsAsRecord() throws Exception {
+        harness = createHarness(1);
+        SlidingEventTimeWindows assigner = SlidingEventTimeWindows.of(
+                Time.milliseconds(WINDOW_SIZE), Time.milliseconds(WINDOW_SLIDE));
+        for (long timestamp = -95_000; timestamp < 200_000; timestamp += 777) {
+            process("d1", timestamp, 1.0);
+            List<StreamRecord<? extends PreAggregatedStatistics>> output = harness.extractOutputStreamRecords();
+            long paneTimestamp = output.get(output.size() - 1).getTimestamp();
+            assertTrue(paneTimestamp <= timestamp && timestamp - paneTimestamp < 10_000);
+            assertEquals("timestamp: " + timestamp, assigner.assignWindows(null, timestamp, null),
+                    assigner.assignWindows(null, paneTimestamp, null));
+        }
+    }
+
+    @Test
+    public void aggregateFunctionMergesPartials() {
+        PreAggregatedStatisticsAggregateFunction function = new PreAggregatedStatisticsAggregateFunction();
+        SensorStatisticsAccumulator first = function.add(partial(1.0, 2.0), function.createAccumulator());
+        first = function.add(partial((Double) null), first);
+        SensorStatisticsAccumulator second = function.add(partial(6.0, -3.0), function.createAccumulator());
+
+        SensorStatisticsAccumulator merged = function.getResult(function.merge(first, second));
+
+        SensorStatisticsAccumulator expected = partial(1.0, 2.0, null, 6.0, -3.0).getAccumulator();
+        assertEquals(expected.getDataCount(), merged.getDataCount());
+        assertEquals(expected.getValueCount(), merged.getValueCount());
+        assertEquals(expected.getSum(), merged.getSum(), 1e-12);
+        assertEquals(expected.getMin(), merged.getMin(), 0.0);
+        assertEquals(expected.getMax(), merged.getMax(), 0.0);
+        assertEquals(expected.getMean(), merged.getMean(), 1e-12);
+        assertEquals(expected.getM2(), merged.getM2(), 1e-9);
+    }
+
+    @Test
+    public void twoPhaseAggregationMatchesPerRecordAggregation() throws Exception {
+        harness = createHarness(7);
+        try (KeyedOneInputStreamOperatorTestHarness<SensorKey, PreAggregatedStatistics, SensorStatistics> twoPhase =
+                     new KeyedOneInputStreamOperatorTestHarness<>(
+                             createWindowOperator(PreAggregatedStatistics.class,
+                                     new FlinkStreamingApplication.PreAggregatedKeySelector(),
+                                     new PreAggregatedStatisticsAggregateFunction()),
+                             new FlinkStreamingApplication.PreAggregatedKeySelector(),
+                             TypeInformation.of(SensorKey.class));
+             KeyedOneInputStreamOperatorTestHarness<SensorKey, SensorData, SensorStatistics> perRecord =
+                     new KeyedOneInputStreamOperatorTestHarness<>(
+                             createWindowOperator(SensorData.class,
+                                     new FlinkStreamingApplication.SensorDataKeySelector(),
+                                     new SensorStatisticsAggregateFunction()),
+                             new FlinkStreamingApplication.SensorDataKeySelector(),
+                             TypeInformation.of(SensorKey.class))) {
+            twoPhase.open();
+            perRecord.open();
+
+            Random random = new Random(11);
+            long maxTimestamp = 0;
+            for (int i = 0; i < 5000; i++) {
+                // 70%的记录属于同一个热点设备，时间戳乱序，少量超过水印
+                String deviceId = random.nextInt(10) < 7 ? "hot" : "d" + random.nextInt(5);
+                long timestamp = Math.max(0, i * 100L + random.nextInt(4_000) - (random.nextInt(50) == 0 ? 30_000 : 0));
+                Double value = random.nextInt(10) == 0 ? null : random.nextInt(400) / 4.0;
+                SensorData data = new SensorData("t1", deviceId, value, timestamp, "l1", "ok");
+
+                harness.processElement(new StreamRecord<>(data, timestamp));
+                perRecord.processElement(new StreamRecord<>(data, timestamp));
+                maxTimestamp = Math.max(maxTimestamp, timestamp);
+                if (i % 10 == 9) {
+                    harness.processWatermark(new Watermark(maxTimestamp - 5_000));
+                    perRecord.processWatermark(new Watermark(maxTimestamp - 5_000));
+                }
+                forward(twoPhase);
+            }
+            harness.processWatermark(new Watermark(Long.MAX_VALUE));
+            perRecord.processWatermark(new Watermark(Long.MAX_VALUE));
+            forward(twoPhase);
+
+            List<SensorStatistics> expected = sorted(perRecord.extractOutputValues());
+            List<SensorStatistics> actual = sorted(twoPhase.extractOutputValues());
+            assertTrue(expected.size() > 100);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertStatistics(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    /**
+     * 把预聚合算子的输出（部分统计和水印）按顺序交给下游窗口算子
+     */
+    private void forward(KeyedOneInputStreamOperatorTestHarness<SensorKey, PreAggregatedStatistics, SensorStatistics>
+                                 window) throws Exception {
+        for (Object output : harness.getOutput()) {
+            if (output instanceof Watermark) {
+                window.processWatermark((Watermark) output);
+            } else {
+                @SuppressWarnings("unchecked")
+                StreamRecord<PreAggregatedStatistics> record = (StreamRecord<PreAggregatedStatistics>) output;
+                window.processElement(record);
+            }
+        }
+        harness.getOutput().clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <IN> OneInputStreamOperator<IN, SensorStatistics> createWindowOperator(
+            Class<IN> inputType, KeySelector<IN, SensorKey> keySelector,
+            AggregateFunction<IN, SensorStatisticsAccumulator, SensorStatisticsAccumulator> aggregateFunction)
+            throws Exception {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        SingleOutputStreamOperator<SensorStatistics> windowed = env
+                .fromElements(inputType, inputType.getDeclaredConstructor().newInstance())
+                .keyBy(keySelector)
+                .window(SlidingEventTimeWindows.of(Time.milliseconds(WINDOW_SIZE), Time.milliseconds(WINDOW_SLIDE)))
+                .aggregate(aggregateFunction, new FlinkStreamingApplication.StatisticsWindowFunction());
+        OneInputTransformation<IN, SensorStatistics> transformation =
+                (OneInputTransformation<IN, SensorStatistics>) windowed.getTransformation();
+        return (OneInputStreamOperator<IN, SensorStatistics>)
+                ((SimpleOperatorFactory<SensorStatistics>) transformation.getOperatorFactory()).getOperator();
+    }
+
+    private static OneInputStreamOperatorTestHarness<SensorData, PreAggregatedStatistics> createHarness(
+            int batchSize) throws Exception {
+        return createHarness(batchSize, null);
+    }
+
+    private static OneInputStreamOperatorTestHarness<SensorData, PreAggregatedStatistics> createHarness(
+            int batchSize, OperatorSubtaskState restoredState) throws Exception {
+        OneInputStreamOperatorTestHarness<SensorData, PreAggregatedStatistics> harness =
+                new OneInputStreamOperatorTestHarness<>(new PreAggregationOperator(
+                        WINDOW_SIZE, WINDOW_SLIDE, batchSize, INTERVAL, Long.MAX_VALUE));
+        harness.setProcessingTime(0);
+        if (restoredState != null) {
+            harness.initializeState(restoredState);
+        }
+        harness.open();
+        return harness;
+    }
+
+    private void process(String deviceId, long timestamp, Double value) throws Exception {
+        harness.processElement(new StreamRecord<>(
+                new SensorData("t1", deviceId, value, timestamp, "l1", "ok"), timestamp));
+    }
+
+    private static PreAggregatedStatistics partial(Double... values) {
+        PreAggregatedStatistics partial = new PreAggregatedStatistics("t1", "d1", 0);
+        for (Double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            partial.getAccumulator().add(data);
+        }
+        return partial;
+    }
+
+    private static long totalDataCount(List<PreAggregatedStatistics> partials) {
+        long count = 0;
+        for (PreAggregatedStatistics partial : partials) {
+            count += partial.getAccumulator().getDataCount();
+        }
+        return count;
+    }
+
+    /**
+     * 按设备和窗口排序，两条路径的输出顺序不必相同
+     */
+    private static List<SensorStatistics> sorted(List<SensorStatistics> rows) {
+        List<SensorStatistics> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(SensorStatistics::getDeviceId)
+                .thenComparingLong(SensorStatistics::getWindowStart));
+        return sorted;
+    }
+
+    /**
+     * 计数、和与最值精确相等；均值和方差由不同的合并顺序得到，允许舍入误差
+     */
+    private static void assertStatistics(SensorStatistics expected, SensorStatistics actual) {
+        String window = expected.getDeviceId() + "@" + expected.getWindowStart();
+        assertEquals(window, expected.getDeviceId(), actual.getDeviceId());
+        assertEquals(window, expected.getWindowStart(), actual.getWindowStart());
+        assertEquals(window, expected.getWindowEnd(), actual.getWindowEnd());
+        assertEquals(window, expected.getDataCount(), actual.getDataCount());
+        assertEquals(window, expected.getValueCount(), actual.getValueCount());
+        assertEquals(window, expected.getSumValue(), actual.getSumValue());
+        assertEquals(window, expected.getMinValue(), actual.getMinValue());
+        assertEquals(window, expected.getMaxValue(), actual.getMaxValue());
+        if (expected.getAvgValue() == null) {
+            assertNull(window, actual.getAvgValue());
+            assertNull(window, actual.getVarianceValue());
+            return;
+        }
+        assertEquals(window, expected.getAvgValue(), actual.getAvgValue(), 1e-9);
+        assertEquals(window, expected.getVarianceValue(), actual.getVarianceValue(), 1e-6);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.flink.function;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * RollupAggregateFunction逐级合并测试
+ */
+public class RollupAggregateFunctionTest {
+
+    private static final SensorKey KEY = new SensorKey("t1", "d1");
+
+    @Test
+    public void mergedWindowsEqualStatisticsOverAllValues() {
+        RollupAggregateFunction function = new RollupAggregateFunction();
+        SensorStatisticsAccumulator rollup = function.createAccumulator();
+        rollup = function.add(statistics(0, 1.0, 2.0, 6.0), rollup);
+        rollup = function.add(statistics(60_000, -3.0, 10.0), rollup);
+        rollup = function.add(statistics(120_000, null, 4.0), rollup);
+
+        assertStatistics(statistics(0, 1.0, 2.0, 6.0, -3.0, 10.0, null, 4.0),
+                function.getResult(rollup).toStatistics(KEY, 0, 3_600_000));
+    }
+
+    @Test
+    public void lateDeltasAddToEarlierResult() {
+        RollupAggregateFunction function = new RollupAggregateFunction();
+        SensorStatisticsAccumulator rollup = function.add(statistics(0, 1.0, 2.0), function.createAccumulator());
+        SensorStatisticsAccumulator delta = function.add(statistics(0, 8.0), function.createAccumulator());
+        delta = function.add(statistics(60_000, (Double) null), delta);
+
+        assertStatistics(statistics(0, 1.0, 2.0, 8.0, null),
+                function.merge(rollup, delta).toStatistics(KEY, 0, 3_600_000));
+    }
+
+    @Test
+    public void windowsWithoutValuesOnlyAddDataCount() {
+        RollupAggregateFunction function = new RollupAggregateFunction();
+        SensorStatisticsAccumulator rollup = function.add(statistics(0, null, null), function.createAccumulator());
+
+        SensorStatistics result = function.getResult(rollup).toStatistics(KEY, 0, 3_600_000);
+        assertEquals(Long.valueOf(2), result.getDataCount());
+        assertEquals(Long.valueOf(0), result.getValueCount());
+        assertNull(result.getAvgValue());
+        assertNull(result.getVarianceValue());
+    }
+
+    private static void assertStatistics(SensorStatistics expected, SensorStatistics actual) {
+        assertEquals(expected.getDataCount(), actual.getDataCount());
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(expected.getSumValue(), actual.getSumValue(), 1e-9);
+        assertEquals(expected.getMinValue(), actual.getMinValue(), 0.0);
+        assertEquals(expected.getMaxValue(), actual.getMaxValue(), 0.0);
+        assertEquals(expected.getAvgValue(), actual.getAvgValue(), 1e-9);
+        assertEquals(expected.getVarianceValue(), actual.getVarianceValue(), 1e-9);
+    }
+
+    private static SensorStatistics statistics(long windowStart, Double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (Double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            accumulator.add(data);
+        }
+        return accumulator.toStatistics(KEY, windowStart, windowStart + 60_000);
+    }
+}
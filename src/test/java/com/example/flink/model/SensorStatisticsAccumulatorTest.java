@@ -0,0 +1,152 @@
+package com.example.flink.model;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 窗口统计累加器测试 - 单次遍历的方差、Chan合并，以及空值和非有限数值
+ */
+public class SensorStatisticsAccumulatorTest {
+
+    private static final SensorKey KEY = new SensorKey("t1", "d1");
+
+    @Test
+    public void addComputesCountSumMinMaxMeanAndVariance() {
+        SensorStatisticsAccumulator accumulator = accumulate(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0);
+
+        SensorStatistics statistics = accumulator.toStatistics(KEY, 0, 60_000);
+        assertEquals(Long.valueOf(8), statistics.getDataCount());
+        assertEquals(Long.valueOf(8), statistics.getValueCount());
+        assertEquals(40.0, statistics.getSumValue(), 1e-12);
+        assertEquals(2.0, statistics.getMinValue(), 0.0);
+        assertEquals(9.0, statistics.getMaxValue(), 0.0);
+        assertEquals(5.0, statistics.getAvgValue(), 1e-12);
+        assertEquals(4.0, statistics.getVarianceValue(), 1e-12);
+    }
+
+    @Test
+    public void varianceIsStableForLargeOffsets() {
+        // 朴素的 E[x²] - E[x]² 在这里会丢失全部有效位
+        SensorStatisticsAccumulator accumulator = accumulate(1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16);
+
+        assertEquals(1e9 + 10, accumulator.getMean(), 1e-6);
+        assertEquals(22.5, accumulator.getVariance(), 1e-6);
+    }
+
+    @Test
+    public void mergeEqualsAddingAllValues() {
+        Random random = new Random(42);
+        Double[] values = new Double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(10) == 0 ? null : 1000 + random.nextGaussian() * 50;
+        }
+        SensorStatisticsAccumulator expected = accumulate(values);
+
+        // 切分成大小不等的几段分别累加，再按Chan的并行方差公式合并
+        int[] bounds = {0, 1, 10, 400, 999, 1000};
+        SensorStatisticsAccumulator merged = new SensorStatisticsAccumulator();
+        for (int i = 1; i < bounds.length; i++) {
+            SensorStatisticsAccumulator part = new SensorStatisticsAccumulator();
+            for (int j = bounds[i - 1]; j < bounds[i]; j++) {
+                part.add(data(values[j]));
+            }
+            merged.merge(part);
+        }
+
+        assertAccumulator(expected, merged);
+    }
+
+    @Test
+    public void mergeWithEmptyAccumulatorKeepsValues() {
+        SensorStatisticsAccumulator values = accumulate(1.0, 3.0);
+        SensorStatisticsAccumulator empty = accumulate((Double) null);
+
+        SensorStatisticsAccumulator left = accumulate(1.0, 3.0);
+        left.merge(empty);
+        SensorStatisticsAccumulator right = accumulate((Double) null);
+        right.merge(values);
+
+        SensorStatisticsAccumulator expected = accumulate(1.0, 3.0, null);
+        assertAccumulator(expected, left);
+        assertAccumulator(expected, right);
+        assertEquals(1.0, right.getVariance(), 1e-12);
+    }
+
+    @Test
+    public void emptyAccumulatorHasNoValueStatistics() {
+        SensorStatistics statistics = new SensorStatisticsAccumulator().toStatistics(KEY, 0, 60_000);
+
+        assertEquals(Long.valueOf(0), statistics.getDataCount());
+        assertEquals(Long.valueOf(0), statistics.getValueCount());
+        assertNull(statistics.getSumValue());
+        assertNull(statistics.getMinValue());
+        assertNull(statistics.getMaxValue());
+        assertNull(statistics.getAvgValue());
+        assertNull(statistics.getVarianceValue());
+        assertNull(new SensorStatisticsAccumulator().getVariance());
+    }
+
+    @Test
+    public void nullAndNonFiniteValuesOnlyCountData() {
+        SensorStatisticsAccumulator accumulator = accumulate(
+                null, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+        SensorStatistics statistics = accumulator.toStatistics(KEY, 0, 60_000);
+        assertEquals(Long.valueOf(4), statistics.getDataCount());
+        assertEquals(Long.valueOf(0), statistics.getValueCount());
+        assertNull(statistics.getAvgValue());
+
+        accumulator.add(data(2.0));
+        accumulator.add(data(Double.NaN));
+        accumulator.add(data(4.0));
+        statistics = accumulator.toStatistics(KEY, 0, 60_000);
+        assertEquals(Long.valueOf(7), statistics.getDataCount());
+        assertEquals(Long.valueOf(2), statistics.getValueCount());
+        assertEquals(6.0, statistics.getSumValue(), 0.0);
+        assertEquals(2.0, statistics.getMinValue(), 0.0);
+        assertEquals(4.0, statistics.getMaxValue(), 0.0);
+        assertEquals(3.0, statistics.getAvgValue(), 0.0);
+        assertEquals(1.0, statistics.getVarianceValue(), 0.0);
+    }
+
+    @Test
+    public void fromStatisticsRestoresMergeableAccumulator() {
+        SensorStatisticsAccumulator first = accumulate(1.0, 2.0, null);
+        SensorStatisticsAccumulator second = accumulate(6.0, -3.0);
+
+        SensorStatisticsAccumulator restored = SensorStatisticsAccumulator.fromStatistics(
+                first.toStatistics(KEY, 0, 60_000));
+        restored.merge(SensorStatisticsAccumulator.fromStatistics(second.toStatistics(KEY, 0, 60_000)));
+
+        assertAccumulator(accumulate(1.0, 2.0, null, 6.0, -3.0), restored);
+        assertAccumulator(accumulate((Double) null),
+                SensorStatisticsAccumulator.fromStatistics(accumulate((Double) null).toStatistics(KEY, 0, 60_000)));
+    }
+
+    private static void assertAccumulator(SensorStatisticsAccumulator expected, SensorStatisticsAccumulator actual) {
+        assertEquals(expected.getDataCount(), actual.getDataCount());
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        assertEquals(expected.getSum(), actual.getSum(), 1e-6);
+        assertEquals(expected.getMin(), actual.getMin(), 0.0);
+        assertEquals(expected.getMax(), actual.getMax(), 0.0);
+        assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+        assertEquals(expected.getM2(), actual.getM2(), Math.abs(expected.getM2()) * 1e-9);
+    }
+
+    private static SensorStatisticsAccumulator accumulate(Double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (Double value : values) {
+            accumulator.add(data(value));
+        }
+        return accumulator;
+    }
+
+    private static SensorData data(Double value) {
+        SensorData data = new SensorData();
+        data.setSensorValue(value);
+        return data;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.flink.serialization;
+
+import com.example.flink.model.DeadLetterRecord;
+import com.example.flink.model.SensorData;
+import com.example.flink.util.DateTimeCodec;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Either;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.SimpleUserCodeClassLoader;
+import org.apache.flink.util.UserCodeClassLoader;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kafka消息反序列化测试 - 解析失败的消息输出为死信而不是被丢弃
+ */
+public class SensorDataDeserializationSchemaTest {
+
+    private SensorDataDeserializationSchema schema;
+
+    @Before
+    public void setUp() throws Exception {
+        schema = new SensorDataDeserializationSchema();
+        schema.open(new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return new UnregisteredMetricsGroup();
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return SimpleUserCodeClassLoader.create(getClass().getClassLoader());
+            }
+        });
+    }
+
+    @Test
+    public void validRecordIsEmittedAsRight() throws Exception {
+        List<Either<DeadLetterRecord, SensorData>> out = deserialize(
+                "{\"template_id\":\"t1\",\"device_id\":\"d1\",\"sensor_value\":25.6}");
+
+        assertEquals(1, out.size());
+        assertTrue(out.get(0).isRight());
+        SensorData sensorData = out.get(0).right();
+        assertEquals("d1", sensorData.getDeviceId());
+        // 消息中没有timestamp时使用Kafka记录时间戳
+        assertEquals(1701424800000L, sensorData.getTimestamp());
+    }
+
+    @Test
+    public void timestampIsParsedIntoEpochMillis() throws Exception {
+        long expected = DateTimeCodec.parse("2023-12-01 10:00:00");
+        assertEquals(expected, parseTimestamp("\"2023-12-01 10:00:00\""));
+        assertEquals(expected, parseTimestamp("\" 2023-12-01 10:00:00 \""));
+        // null和空字符串视为没有时间，使用Kafka记录时间戳
+        assertEquals(1701424800000L, parseTimestamp("null"));
+        assertEquals(1701424800000L, parseTimestamp("\"  \""));
+        assertDeadLetter("{\"timestamp\":1701424800000}", DeadLetterRecord.ErrorType.INVALID_FIELD);
+    }
+
+    @Test
+    public void invalidRecordsAreEmittedAsDeadLetters() throws Exception {
+        assertDeadLetter("{\"device_id\":", DeadLetterRecord.ErrorType.MALFORMED_JSON);
+        assertDeadLetter("not json", DeadLetterRecord.ErrorType.MALFORMED_JSON);
+        assertDeadLetter("{\"timestamp\":\"2023-12-01T10:00:00\"}", DeadLetterRecord.ErrorType.INVALID_FIELD);
+        assertDeadLetter("{\"sensor_value\":\"abc\"}", DeadLetterRecord.ErrorType.INVALID_FIELD);
+        // 合法的JSON，但不是对象
+        assertDeadLetter("null", DeadLetterRecord.ErrorType.INVALID_FIELD);
+        assertDeadLetter(" null\n", DeadLetterRecord.ErrorType.INVALID_FIELD);
+        assertDeadLetter("42", DeadLetterRecord.ErrorType.INVALID_FIELD);
+    }
+
+    @Test
+    public void blankRecordIsDropped() throws Exception {
+        assertTrue(deserialize("  ").isEmpty());
+        assertTrue(deserialize(null).isEmpty());
+    }
+
+    private void assertDeadLetter(String payload, DeadLetterRecord.ErrorType errorType) throws Exception {
+        List<Either<DeadLetterRecord, SensorData>> out = deserialize(payload);
+
+        assertEquals(1, out.size());
+        assertTrue(payload, out.get(0).isLeft());
+        DeadLetterRecord deadLetter = out.get(0).left();
+        assertEquals(payload, errorType, deadLetter.getErrorType());
+        assertEquals(payload, deadLetter.getPayload());
+        assertEquals("sensor_data", deadLetter.getTopic());
+        assertEquals(3, deadLetter.getPartition());
+        assertEquals(42L, deadLetter.getOffset());
+        assertTrue(deadLetter.getErrorMessage() != null && !deadLetter.getErrorMessage().isEmpty());
+    }
+
+    private long parseTimestamp(String timestamp) throws Exception {
+        List<Either<DeadLetterRecord, SensorData>> out = deserialize(
+                "{\"device_id\":\"d1\",\"timestamp\":" + timestamp + "}");
+        assertEquals(1, out.size());
+        assertTrue(timestamp, out.get(0).isRight());
+        return out.get(0).right().getTimestamp();
+    }
+
+    private List<Either<DeadLetterRecord, SensorData>> deserialize(String payload) throws Exception {
+        byte[] value = payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<byte[], byte[]> record = new ConsumerRecord<>("sensor_data", 3, 42L,
+                1701424800000L, TimestampType.CREATE_TIME,
+                0, value == null ? 0 : value.length, null, value,
+                new RecordHeaders(), Optional.empty());
+
+        List<Either<DeadLetterRecord, SensorData>> out = new ArrayList<>();
+        schema.deserialize(record, new Collector<Either<DeadLetterRecord, SensorData>>() {
+            @Override
+            public void collect(Either<DeadLetterRecord, SensorData> value) {
+                out.add(value);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return out;
+    }
+}
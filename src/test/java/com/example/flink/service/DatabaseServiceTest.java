@@ -0,0 +1,215 @@
+package com.example.flink.service;
+
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * DatabaseService写入测试，使用H2的MySQL兼容模式
+ */
+public class DatabaseServiceTest {
+
+    private static final AtomicInteger DATABASE_ID = new AtomicInteger();
+
+    private static final SensorKey KEY = new SensorKey("t1", "d1");
+
+    private FlinkProperties flinkProperties;
+    private HikariDataSource dataSource;
+    private DatabaseService databaseService;
+
+    @Before
+    public void setUp() {
+        flinkProperties = new FlinkProperties();
+        flinkProperties.getDatabase().setType("mysql");
+        FlinkProperties.Database.MySQL mysql = flinkProperties.getDatabase().getMysql();
+        mysql.setDriverClassName("org.h2.Driver");
+        mysql.setUrl("jdbc:h2:mem:database_service_" + DATABASE_ID.incrementAndGet()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        mysql.setUsername("sa");
+        mysql.setPassword("");
+        dataSource = DataSourceConfig.createDataSource(flinkProperties);
+        databaseService = new DatabaseService(dataSource, flinkProperties);
+        databaseService.initializeDatabase();
+        databaseService.initializeTransactionLog();
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void repeatedTransactionCommitIsSkipped() throws SQLException {
+        databaseService.commitTransaction("tx-1",
+                Collections.singletonList(statistics(0, false, 1.0, 2.0)), 10);
+        assertNotEquals(DatabaseService.ALREADY_COMMITTED, databaseService.commitTransaction("tx-2",
+                Collections.singletonList(statistics(0, true, 6.0)), 10));
+
+        // 恢复后重新提交已提交的增量事务
+        assertEquals(DatabaseService.ALREADY_COMMITTED, databaseService.commitTransaction("tx-2",
+                Collections.singletonList(statistics(0, true, 6.0)), 10));
+
+        assertEquals(Collections.singletonList(format(statistics(0, false, 1.0, 2.0, 6.0))), readRows());
+        assertEquals(2, count("SELECT COUNT(*) FROM " + DatabaseService.TRANSACTION_LOG_TABLE));
+    }
+
+    @Test
+    public void purgesOnlyExpiredTransactionIds() throws SQLException {
+        long now = System.currentTimeMillis();
+        databaseService.commitTransaction("tx-1", Collections.singletonList(statistics(0, false, 1.0)), 10);
+
+        assertEquals(0, databaseService.purgeTransactionLog(now - 60_000));
+        assertEquals(1, databaseService.purgeTransactionLog(System.currentTimeMillis() + 1));
+        assertEquals(0, count("SELECT COUNT(*) FROM " + DatabaseService.TRANSACTION_LOG_TABLE));
+    }
+
+    @Test
+    public void fullRowPlusDeltasEqualsStatisticsOverAllValues() throws SQLException {
+        databaseService.batchUpsertStatistics(Arrays.asList(
+                statistics(0, false, 1.0, 2.0, null), statistics(60_000, false, null, null)), 10);
+        databaseService.batchUpsertStatistics(Arrays.asList(
+                statistics(0, true, 6.0), statistics(60_000, true, -3.0, 4.5)), 10);
+        databaseService.batchUpsertStatistics(Collections.singletonList(statistics(0, true, null, -0.5)), 10);
+
+        assertEquals(Arrays.asList(
+                format(statistics(0, false, 1.0, 2.0, null, 6.0, null, -0.5)),
+                format(statistics(60_000, false, null, null, -3.0, 4.5))), readRows());
+    }
+
+    @Test
+    public void rowsOfOneBatchApplyInArrivalOrder() throws SQLException {
+        // 窗口0的完整结果和增量在同一批次中被重放一次，窗口60000的增量与其他窗口交错
+        List<SensorStatistics> rows = Arrays.asList(
+                statistics(0, false, 1.0, 2.0),
+                statistics(0, true, 3.0),
+                statistics(60_000, false, 5.0),
+                statistics(0, false, 1.0, 2.0),
+                statistics(60_000, true, 6.0, null),
+                statistics(0, true, 3.0),
+                statistics(0, true, 4.0));
+        List<String> expected = Arrays.asList(
+                format(statistics(0, false, 1.0, 2.0, 3.0, 4.0)),
+                format(statistics(60_000, false, 5.0, 6.0, null)));
+
+        for (int batchSize : new int[]{1, 2, 3, 100}) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM sensor_statistics");
+            }
+            databaseService.batchUpsertStatistics(rows, batchSize);
+            assertEquals("batchSize=" + batchSize, expected, readRows());
+        }
+    }
+
+    @Test
+    public void splitsWhereFullRowFollowsDeltaOfSameWindow() {
+        List<SensorStatistics> rows = Arrays.asList(
+                statistics(0, false, 1.0),
+                statistics(60_000, true, 2.0),
+                statistics(120_000, false, 3.0),
+                statistics(0, true, 4.0),
+                statistics(60_000, false, 5.0),
+                statistics(0, false, 1.0));
+
+        List<List<SensorStatistics>> segments = DatabaseService.splitAtRewrittenWindows(rows);
+        assertEquals(2, segments.size());
+        assertEquals(rows.subList(0, 4), segments.get(0));
+        assertEquals(rows.subList(4, 6), segments.get(1));
+        assertEquals(1, DatabaseService.splitAtRewrittenWindows(rows.subList(0, 4)).size());
+    }
+
+    @Test
+    public void tableWithoutStatisticsColumnsIsRejected() throws SQLException {
+        databaseService.verifyTableColumns();
+
+        // 旧版本的表结构，只有data_count
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE legacy_statistics (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "template_id VARCHAR(50) NOT NULL, device_id VARCHAR(50) NOT NULL, "
+                    + "data_count BIGINT NOT NULL DEFAULT 0, window_start DATETIME NOT NULL, "
+                    + "window_end DATETIME NOT NULL, created_time DATETIME NOT NULL, updated_time DATETIME NOT NULL)");
+        }
+        try {
+            new DatabaseService(dataSource, flinkProperties, "legacy_statistics").verifyTableColumns();
+            fail("缺少数值统计列的表应当被拒绝");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("scripts/migrate-mysql.sql"));
+        }
+    }
+
+    /**
+     * 按窗口顺序读出每行的 data_count value_count sum_value min_value max_value avg_value variance_value
+     */
+    private List<String> readRows() throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT data_count, value_count, sum_value, min_value, "
+                     + "max_value, avg_value, variance_value FROM sensor_statistics ORDER BY window_start")) {
+            while (resultSet.next()) {
+                rows.add(format(resultSet.getLong(1), resultSet.getLong(2), (Double) resultSet.getObject(3),
+                        (Double) resultSet.getObject(4), (Double) resultSet.getObject(5),
+                        (Double) resultSet.getObject(6), (Double) resultSet.getObject(7)));
+            }
+        }
+        return rows;
+    }
+
+    static String format(SensorStatistics statistics) {
+        return format(statistics.getDataCount(), statistics.getValueCount(), statistics.getSumValue(),
+                statistics.getMinValue(), statistics.getMaxValue(), statistics.getAvgValue(),
+                statistics.getVarianceValue());
+    }
+
+    private static String format(long dataCount, long valueCount, Double... values) {
+        StringBuilder builder = new StringBuilder().append(dataCount).append(' ').append(valueCount);
+        for (Double value : values) {
+            builder.append(' ').append(value == null ? "null" : String.format("%.9f", value));
+        }
+        return builder.toString();
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    static SensorStatistics statistics(long windowStart, boolean delta, Double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (Double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            accumulator.add(data);
+        }
+        SensorStatistics statistics = accumulator.toStatistics(KEY, windowStart, windowStart + 60_000);
+        statistics.setDelta(delta);
+        return statistics;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * LatestStatisticsIndex的最新结果选择和查询测试
+ */
+public class LatestStatisticsIndexTest {
+
+    @Test
+    public void laterWindowReplacesAndEarlierWindowIsIgnored() {
+        SensorStatistics first = statistics("d1", 0, false, 1.0);
+        SensorStatistics second = statistics("d1", 30_000, false, 2.0);
+
+        assertSame(first, LatestStatisticsIndex.latest(null, first));
+        assertSame(second, LatestStatisticsIndex.latest(first, second));
+        assertSame(second, LatestStatisticsIndex.latest(second, first));
+
+        SensorStatistics refired = statistics("d1", 30_000, false, 2.0, 3.0);
+        assertSame(refired, LatestStatisticsIndex.latest(second, refired));
+    }
+
+    @Test
+    public void deltaIsMergedOnlyIntoTheSameWindow() {
+        SensorStatistics current = statistics("d1", 30_000, false, 1.0, 2.0);
+        current.setCreatedTime(100);
+        SensorStatistics delta = statistics("d1", 30_000, true, 6.0);
+        delta.setUpdatedTime(500);
+
+        SensorStatistics merged = LatestStatisticsIndex.latest(current, delta);
+        SensorStatistics expected = statistics("d1", 30_000, false, 1.0, 2.0, 6.0);
+        assertFalse(merged.isDelta());
+        assertEquals(expected.getDataCount(), merged.getDataCount());
+        assertEquals(expected.getSumValue(), merged.getSumValue(), 1e-9);
+        assertEquals(expected.getMaxValue(), merged.getMaxValue(), 0.0);
+        assertEquals(expected.getVarianceValue(), merged.getVarianceValue(), 1e-9);
+        assertEquals(30_000, merged.getWindowStart());
+        assertEquals(90_000, merged.getWindowEnd());
+        assertEquals(100, merged.getCreatedTime());
+        assertEquals(500, merged.getUpdatedTime());
+        assertEquals(Long.valueOf(2), current.getDataCount());
+
+        assertSame(current, LatestStatisticsIndex.latest(current, statistics("d1", 0, true, 9.0)));
+        assertNull(LatestStatisticsIndex.latest(null, delta));
+    }
+
+    @Test
+    public void supportsPointLookupsAndOrderedTemplateScans() {
+        LatestStatisticsIndex index = new LatestStatisticsIndex();
+        index.put(statistics("d2", 0, false, 1.0));
+        index.put(statistics("d1", 0, false, 2.0));
+        SensorStatistics latest = statistics("d2", 30_000, false, 3.0);
+        index.put(latest);
+
+        assertSame(latest, index.get("t1", "d2"));
+        assertNull(index.get("t1", "d3"));
+        assertNull(index.get("t2", "d1"));
+        assertEquals(Arrays.asList("d1", "d2"), index.getTemplate("t1").stream()
+                .map(SensorStatistics::getDeviceId).collect(Collectors.toList()));
+        assertEquals(Collections.emptyList(), index.getTemplate("t2"));
+        assertEquals(2, index.size());
+    }
+
+    private static SensorStatistics statistics(String deviceId, long windowStart, boolean delta, double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            accumulator.add(data);
+        }
+        SensorStatistics statistics = accumulator.toStatistics(
+                new SensorKey("t1", deviceId), windowStart, windowStart + 60_000);
+        statistics.setDelta(delta);
+        return statistics;
+    }
+}
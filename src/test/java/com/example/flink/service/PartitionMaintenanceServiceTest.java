@@ -0,0 +1,64 @@
+package com.example.flink.service;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PartitionMaintenanceService的分区规划和语句生成测试
+ */
+public class PartitionMaintenanceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 12, 30);
+
+    @Test
+    public void createsCurrentAndFuturePartitionsAfterExistingOnes() {
+        assertEquals(Arrays.asList(TODAY, TODAY.plusDays(1), TODAY.plusDays(2)),
+                PartitionMaintenanceService.partitionsToCreate(Collections.emptyList(), TODAY, "day", 2));
+
+        List<LocalDate> existing = Arrays.asList(TODAY.minusDays(1), TODAY, TODAY.plusDays(1));
+        assertEquals(Collections.singletonList(TODAY.plusDays(2)),
+                PartitionMaintenanceService.partitionsToCreate(existing, TODAY, "day", 2));
+
+        assertEquals(Arrays.asList(LocalDate.of(2023, 12, 1), LocalDate.of(2024, 1, 1)),
+                PartitionMaintenanceService.partitionsToCreate(Collections.emptyList(), TODAY, "month", 1));
+    }
+
+    @Test
+    public void dropsPartitionsEndingBeforeRetention() {
+        List<LocalDate> existing = Arrays.asList(
+                LocalDate.of(2023, 12, 26), LocalDate.of(2023, 12, 27), LocalDate.of(2023, 12, 28), TODAY);
+
+        assertEquals(Arrays.asList(LocalDate.of(2023, 12, 26), LocalDate.of(2023, 12, 27)),
+                PartitionMaintenanceService.partitionsToDrop(existing, TODAY, "day", 2));
+        assertTrue(PartitionMaintenanceService.partitionsToDrop(existing, TODAY, "day", 0).isEmpty());
+        assertTrue(PartitionMaintenanceService.partitionsToDrop(
+                Collections.singletonList(LocalDate.of(2023, 12, 1)), TODAY, "month", 7).isEmpty());
+    }
+
+    @Test
+    public void parsesOnlyDatedPartitionNames() {
+        assertEquals(Arrays.asList(LocalDate.of(2023, 12, 1), LocalDate.of(2023, 12, 2)),
+                PartitionMaintenanceService.parsePartitionNames(Arrays.asList(
+                        "sensor_statistics_p20231202", "p20231201", "pmax", "sensor_statistics_default")));
+    }
+
+    @Test
+    public void generatesPartitionDdl() {
+        assertEquals("ALTER TABLE sensor_statistics REORGANIZE PARTITION pmax INTO ("
+                        + "PARTITION p20231230 VALUES LESS THAN ('2023-12-31 00:00:00'), "
+                        + "PARTITION p20231231 VALUES LESS THAN ('2024-01-01 00:00:00'), "
+                        + "PARTITION pmax VALUES LESS THAN (MAXVALUE))",
+                PartitionMaintenanceService.getMySqlReorganizeSql(
+                        Arrays.asList(TODAY, TODAY.plusDays(1)), "day"));
+        assertEquals("CREATE TABLE IF NOT EXISTS sensor_statistics_p20231201 PARTITION OF sensor_statistics "
+                        + "FOR VALUES FROM ('2023-12-01 00:00:00') TO ('2024-01-01 00:00:00')",
+                PartitionMaintenanceService.getPostgresCreateSql(LocalDate.of(2023, 12, 1), "month"));
+    }
+}
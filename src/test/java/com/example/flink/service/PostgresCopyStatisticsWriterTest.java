@@ -0,0 +1,127 @@
+package com.example.flink.service;
+
+import com.example.flink.config.DataSourceConfig;
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * PostgreSQL COPY写入测试，需要PostgreSQL实例，未指定 -Dtest.postgresql.url 时跳过，例如：
+ * <pre>
+ * mvn test -Dtest=PostgresCopyStatisticsWriterTest -Dtest.postgresql.url=jdbc:postgresql://localhost:5432/postgres
+ * </pre>
+ * 用户名和密码通过 test.postgresql.username（默认postgres）和 test.postgresql.password 指定
+ */
+public class PostgresCopyStatisticsWriterTest {
+
+    private static final String TABLE = "copy_writer_test_statistics";
+
+    private HikariDataSource dataSource;
+    private DatabaseService databaseService;
+
+    @Before
+    public void setUp() throws SQLException {
+        String url = System.getProperty("test.postgresql.url");
+        Assume.assumeTrue("未指定test.postgresql.url，跳过PostgreSQL测试", url != null && !url.isEmpty());
+
+        FlinkProperties flinkProperties = new FlinkProperties();
+        flinkProperties.getDatabase().setType("postgresql");
+        FlinkProperties.Database.PostgreSQL postgresql = flinkProperties.getDatabase().getPostgresql();
+        postgresql.setDriverClassName("org.postgresql.Driver");
+        postgresql.setUrl(url);
+        postgresql.setUsername(System.getProperty("test.postgresql.username", "postgres"));
+        postgresql.setPassword(System.getProperty("test.postgresql.password", ""));
+        postgresql.setWriteMode("copy");
+        dataSource = DataSourceConfig.createDataSource(flinkProperties);
+        dropTable();
+        databaseService = new DatabaseService(dataSource, flinkProperties, TABLE);
+        databaseService.initializeDatabase();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (dataSource != null) {
+            dropTable();
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void rewrittenWindowDoesNotMergeEarlierSegmentAgain() throws SQLException {
+        // 窗口0的完整结果在增量之后被重写，这次刷新在同一个事务内分两段COPY
+        List<SensorStatistics> rows = Arrays.asList(
+                DatabaseServiceTest.statistics(0, false, 1.0, 2.0),
+                DatabaseServiceTest.statistics(0, true, 3.0),
+                DatabaseServiceTest.statistics(60_000, false, 5.0),
+                DatabaseServiceTest.statistics(60_000, true, 6.0),
+                DatabaseServiceTest.statistics(0, false, 7.0));
+        assertEquals(2, DatabaseService.splitAtRewrittenWindows(rows).size());
+
+        databaseService.batchUpsertStatistics(rows, 100);
+
+        assertEquals(Arrays.asList(
+                DatabaseServiceTest.format(DatabaseServiceTest.statistics(0, false, 7.0)),
+                DatabaseServiceTest.format(DatabaseServiceTest.statistics(60_000, false, 5.0, 6.0))), readRows());
+    }
+
+    @Test
+    public void rowsOfOneBatchApplyInArrivalOrder() throws SQLException {
+        List<SensorStatistics> rows = Arrays.asList(
+                DatabaseServiceTest.statistics(0, false, 1.0, 2.0),
+                DatabaseServiceTest.statistics(0, true, 3.0),
+                DatabaseServiceTest.statistics(60_000, false, 5.0),
+                DatabaseServiceTest.statistics(0, false, 1.0, 2.0),
+                DatabaseServiceTest.statistics(60_000, true, 6.0, null),
+                DatabaseServiceTest.statistics(0, true, 3.0),
+                DatabaseServiceTest.statistics(0, true, 4.0));
+
+        databaseService.batchUpsertStatistics(rows, 2);
+
+        assertEquals(Arrays.asList(
+                DatabaseServiceTest.format(DatabaseServiceTest.statistics(0, false, 1.0, 2.0, 3.0, 4.0)),
+                DatabaseServiceTest.format(DatabaseServiceTest.statistics(60_000, false, 5.0, 6.0, null))),
+                readRows());
+    }
+
+    private List<String> readRows() throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT data_count, value_count, sum_value, min_value, "
+                     + "max_value, avg_value, variance_value FROM " + TABLE + " ORDER BY window_start")) {
+            while (resultSet.next()) {
+                SensorStatistics statistics = new SensorStatistics();
+                statistics.setDataCount(resultSet.getLong(1));
+                statistics.setValueCount(resultSet.getLong(2));
+                statistics.setSumValue((Double) resultSet.getObject(3));
+                statistics.setMinValue((Double) resultSet.getObject(4));
+                statistics.setMaxValue((Double) resultSet.getObject(5));
+                statistics.setAvgValue((Double) resultSet.getObject(6));
+                statistics.setVarianceValue((Double) resultSet.getObject(7));
+                rows.add(DatabaseServiceTest.format(statistics));
+            }
+        }
+        return rows;
+    }
+
+    private void dropTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+    }
+}
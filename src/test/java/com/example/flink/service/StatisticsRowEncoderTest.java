@@ -0,0 +1,80 @@
+package com.example.flink.service;
+
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.util.DateTimeCodec;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 制表符分隔文本编码测试
+ */
+public class StatisticsRowEncoderTest {
+
+    @Test
+    public void appendRowWritesTabSeparatedColumns() {
+        SensorStatistics statistics = new SensorStatistics("template_001", "device_001", 100L,
+                1701424800000L, 1701424860000L);
+        statistics.setValueCount(99L);
+        statistics.setSumValue(2560.5);
+        statistics.setMinValue(-20.25);
+        statistics.setMaxValue(1.0E20);
+        statistics.setAvgValue(25.6);
+        statistics.setVarianceValue(Double.NaN);
+        statistics.setCreatedTime(1701424861000L);
+        statistics.setUpdatedTime(1701424862500L);
+
+        StringBuilder builder = new StringBuilder();
+        StatisticsRowEncoder.appendRow(builder, 7, statistics, TimeZone.getDefault());
+
+        // 按JVM默认时区写出时窗口时间保持UTC墙上时间，创建/更新时间为本地时间
+        String expected = "7\ttemplate_001\tdevice_001\t100\t99\t2560.5\t-20.25\t1.0E20\t25.6\tNaN\t"
+                + "2023-12-01 10:00:00.000\t2023-12-01 10:01:00.000\t"
+                + localTime(1701424861000L) + ".000\t"
+                + localTime(1701424862500L) + ".500\n";
+        assertEquals(expected, builder.toString());
+    }
+
+    @Test
+    public void appendRowUsesGivenTimeZone() {
+        SensorStatistics statistics = new SensorStatistics("template_001", "device_001", 1L,
+                1701424800000L, 1701424860000L);
+        statistics.setCreatedTime(1701424861000L);
+        statistics.setUpdatedTime(1701424862500L);
+
+        StringBuilder builder = new StringBuilder();
+        StatisticsRowEncoder.appendRow(builder, 0, statistics, TimeZone.getTimeZone("Asia/Shanghai"));
+
+        String[] columns = builder.toString().trim().split("\t", -1);
+        long offset = TimeZone.getTimeZone("Asia/Shanghai").getOffset(1701424800000L)
+                - TimeZone.getDefault().getOffset(1701424800000L);
+        assertEquals(DateTimeCodec.format(1701424800000L + offset) + ".000", columns[10]);
+        assertEquals("2023-12-01 18:01:01.000", columns[12]);
+        assertEquals("2023-12-01 18:01:02.500", columns[13]);
+    }
+
+    @Test
+    public void appendRowEscapesTextAndWritesNulls() {
+        SensorStatistics statistics = new SensorStatistics(null, "dev\\ice\t0\n1\r", 0L,
+                1701424800000L, 1701424860000L);
+
+        StringBuilder builder = new StringBuilder();
+        StatisticsRowEncoder.appendRow(builder, 0, statistics, TimeZone.getDefault());
+
+        String[] columns = builder.toString().split("\t", -1);
+        assertEquals(14, columns.length);
+        assertEquals("\\N", columns[1]);
+        assertEquals("dev\\\\ice\\t0\\n1\\r", columns[2]);
+        assertEquals("0", columns[4]);
+        for (int i = 5; i <= 9; i++) {
+            assertEquals("\\N", columns[i]);
+        }
+        assertEquals(1, builder.toString().split("\n", -1).length - 1);
+    }
+
+    private static String localTime(long epochMillis) {
+        return DateTimeCodec.format(epochMillis + TimeZone.getDefault().getOffset(epochMillis));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.flink.sink;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService;
+import org.apache.flink.streaming.api.operators.StreamSink;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 缓冲数据库Sink测试 - 达到批量大小和检查点时写入、失败重试，以及失败时缓冲区保留到下一次写入
+ */
+public class BufferedDatabaseSinkFunctionTest {
+
+    private FlinkProperties flinkProperties;
+    private RecordingDatabaseService databaseService;
+
+    @Before
+    public void setUp() {
+        flinkProperties = new FlinkProperties();
+        flinkProperties.getFlink().getSink().setBatchSize(100);
+        // 关闭定时刷新，写入时机只由批量大小和检查点决定
+        flinkProperties.getFlink().getSink().setFlushInterval(0);
+        databaseService = new RecordingDatabaseService(flinkProperties);
+    }
+
+    @Test
+    public void flushesBufferOnCheckpoint() throws Exception {
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness()) {
+            harness.processElement(statistics("d1"), 0);
+            harness.processElement(statistics("d2"), 0);
+            assertTrue(databaseService.writes.isEmpty());
+
+            harness.snapshot(1, 1);
+            assertEquals(Collections.singletonList(Arrays.asList("d1@0", "d2@0")), databaseService.writes);
+
+            // 缓冲区已清空，下一个检查点不再写入
+            harness.snapshot(2, 2);
+            assertEquals(1, databaseService.writes.size());
+        }
+    }
+
+    @Test
+    public void flushesWhenBatchSizeIsReached() throws Exception {
+        flinkProperties.getFlink().getSink().setBatchSize(2);
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness()) {
+            harness.processElement(statistics("d1"), 0);
+            assertTrue(databaseService.writes.isEmpty());
+            harness.processElement(statistics("d2"), 0);
+            harness.processElement(statistics("d3"), 0);
+
+            assertEquals(Collections.singletonList(Arrays.asList("d1@0", "d2@0")), databaseService.writes);
+        }
+        // 关闭时写入剩余的数据
+        assertEquals(Arrays.asList("d3@0"), databaseService.writes.get(1));
+    }
+
+    @Test
+    public void retriesFailedWrite() throws Exception {
+        flinkProperties.getFlink().getSink().setMaxRetries(1);
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness()) {
+            harness.processElement(statistics("d1"), 0);
+            databaseService.remainingFailures = 1;
+
+            harness.snapshot(1, 1);
+            assertEquals(2, databaseService.attempts);
+            assertEquals(Collections.singletonList(Collections.singletonList("d1@0")), databaseService.writes);
+        }
+    }
+
+    @Test
+    public void failedCheckpointKeepsBufferedRows() throws Exception {
+        flinkProperties.getFlink().getSink().setMaxRetries(0);
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness()) {
+            harness.processElement(statistics("d1"), 0);
+            databaseService.remainingFailures = 1;
+            try {
+                harness.snapshot(1, 1);
+                fail("重试次数用尽后检查点应失败");
+            } catch (Exception expected) {
+                assertTrue(databaseService.writes.isEmpty());
+            }
+
+            harness.processElement(statistics("d2"), 0);
+            harness.snapshot(2, 2);
+            assertEquals(Collections.singletonList(Arrays.asList("d1@0", "d2@0")), databaseService.writes);
+        }
+    }
+
+    private OneInputStreamOperatorTestHarness<SensorStatistics, Object> createHarness() throws Exception {
+        RecordingDatabaseService service = databaseService;
+        BufferedDatabaseSinkFunction sink = new BufferedDatabaseSinkFunction(flinkProperties) {
+            @Override
+            DatabaseService createDatabaseService() {
+                return service;
+            }
+        };
+        OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness =
+                new OneInputStreamOperatorTestHarness<>(new StreamSink<>(sink));
+        harness.open();
+        return harness;
+    }
+
+    private static SensorStatistics statistics(String deviceId) {
+        return new SensorStatistics("t1", deviceId, 1L, 0L, 60_000L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.flink.sink;
+
+import com.example.flink.model.SensorData;
+import com.example.flink.model.SensorKey;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.model.SensorStatisticsAccumulator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * CoalescingStatisticsBuffer的覆盖与增量合并测试
+ */
+public class CoalescingStatisticsBufferTest {
+
+    private static final SensorKey KEY = new SensorKey("t1", "d1");
+
+    @Test
+    public void laterFullResultReplacesEarlierOne() {
+        CoalescingStatisticsBuffer buffer = new CoalescingStatisticsBuffer(16, true);
+        SensorStatistics first = statistics(0, false, 1.0, 2.0);
+        first.setCreatedTime(100);
+        SensorStatistics other = statistics(60_000, false, 5.0);
+        SensorStatistics second = statistics(0, false, 1.0, 2.0, 3.0);
+        second.setCreatedTime(300);
+        second.setUpdatedTime(400);
+
+        buffer.add(first);
+        buffer.add(other);
+        buffer.add(second);
+
+        assertEquals(3, buffer.getReceivedRows());
+        assertEquals(2, buffer.size());
+        SensorStatistics coalesced = buffer.getRows().get(0);
+        assertEquals(Long.valueOf(3), coalesced.getDataCount());
+        assertEquals(6.0, coalesced.getSumValue(), 0.0);
+        assertEquals(100, coalesced.getCreatedTime());
+        assertEquals(400, coalesced.getUpdatedTime());
+        assertSame(other, buffer.getRows().get(1));
+        assertEquals(100, first.getCreatedTime());
+        assertEquals(300, second.getCreatedTime());
+    }
+
+    @Test
+    public void deltasAreMergedLikeAccumulator() {
+        CoalescingStatisticsBuffer buffer = new CoalescingStatisticsBuffer(16, true);
+        buffer.add(statistics(0, false, 1.0, 2.0, 6.0));
+        buffer.add(statistics(0, true, 10.0));
+        buffer.add(statistics(0, true, -3.0, 4.0));
+
+        SensorStatistics expected = statistics(0, false, 1.0, 2.0, 6.0, 10.0, -3.0, 4.0);
+        SensorStatistics coalesced = buffer.getRows().get(0);
+        assertEquals(1, buffer.size());
+        assertFalse(coalesced.isDelta());
+        assertEquals(expected.getDataCount(), coalesced.getDataCount());
+        assertEquals(expected.getValueCount(), coalesced.getValueCount());
+        assertEquals(expected.getSumValue(), coalesced.getSumValue(), 1e-9);
+        assertEquals(expected.getMinValue(), coalesced.getMinValue(), 0.0);
+        assertEquals(expected.getMaxValue(), coalesced.getMaxValue(), 0.0);
+        assertEquals(expected.getAvgValue(), coalesced.getAvgValue(), 1e-9);
+        assertEquals(expected.getVarianceValue(), coalesced.getVarianceValue(), 1e-9);
+    }
+
+    @Test
+    public void deltaWithoutValuesOnlyAddsDataCount() {
+        CoalescingStatisticsBuffer buffer = new CoalescingStatisticsBuffer(16, true);
+        SensorStatistics delta = statistics(0, true);
+        delta.setDataCount(2L);
+        buffer.add(delta);
+        buffer.add(statistics(0, true, 7.0));
+
+        SensorStatistics coalesced = buffer.getRows().get(0);
+        assertNotSame(delta, coalesced);
+        assertEquals(true, coalesced.isDelta());
+        assertEquals(Long.valueOf(3), coalesced.getDataCount());
+        assertEquals(Long.valueOf(1), coalesced.getValueCount());
+        assertEquals(7.0, coalesced.getAvgValue(), 0.0);
+        assertEquals(0.0, coalesced.getVarianceValue(), 0.0);
+        assertEquals(Long.valueOf(2), delta.getDataCount());
+    }
+
+    @Test
+    public void disabledBufferKeepsEveryRow() {
+        CoalescingStatisticsBuffer buffer = new CoalescingStatisticsBuffer(16, false);
+        buffer.add(statistics(0, false, 1.0));
+        buffer.add(statistics(0, false, 2.0));
+
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.getReceivedRows());
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getReceivedRows());
+    }
+
+    private static SensorStatistics statistics(long windowStart, boolean delta, double... values) {
+        SensorStatisticsAccumulator accumulator = new SensorStatisticsAccumulator();
+        for (double value : values) {
+            SensorData data = new SensorData();
+            data.setSensorValue(value);
+            accumulator.add(data);
+        }
+        SensorStatistics statistics = accumulator.toStatistics(KEY, windowStart, windowStart + 60_000);
+        statistics.setDelta(delta);
+        return statistics;
+    }
+}
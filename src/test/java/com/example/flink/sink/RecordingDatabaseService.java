@@ -0,0 +1,75 @@
+package com.example.flink.sink;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 不连接数据库的DatabaseService，记录每次批量写入的行，可以让接下来的若干次写入失败
+ */
+class RecordingDatabaseService extends DatabaseService {
+
+    /**
+     * 每次成功写入的行，按写入顺序
+     */
+    final List<List<String>> writes = new ArrayList<>();
+
+    /**
+     * 已提交的事务ID，按提交顺序
+     */
+    final List<String> committedTransactions = new ArrayList<>();
+
+    private final Set<String> transactionLog = new HashSet<>();
+
+    int attempts;
+
+    int remainingFailures;
+
+    RecordingDatabaseService(FlinkProperties flinkProperties) {
+        super(null, flinkProperties);
+    }
+
+    @Override
+    public void verifyTableColumns() {
+    }
+
+    @Override
+    public int batchUpsertStatistics(Iterable<SensorStatistics> statisticsList, int batchSize) {
+        return write(statisticsList);
+    }
+
+    @Override
+    public int commitTransaction(String transactionId, Iterable<SensorStatistics> statisticsList, int batchSize) {
+        if (transactionLog.contains(transactionId)) {
+            return ALREADY_COMMITTED;
+        }
+        int affectedRows = write(statisticsList);
+        transactionLog.add(transactionId);
+        committedTransactions.add(transactionId);
+        return affectedRows;
+    }
+
+    @Override
+    public int purgeTransactionLog(long committedBefore) {
+        return 0;
+    }
+
+    private int write(Iterable<SensorStatistics> statisticsList) {
+        attempts++;
+        if (remainingFailures > 0) {
+            remainingFailures--;
+            throw new RuntimeException("模拟写入失败");
+        }
+        List<String> rows = new ArrayList<>();
+        for (SensorStatistics statistics : statisticsList) {
+            rows.add(statistics.getDeviceId() + "@" + statistics.getWindowStart());
+        }
+        writes.add(rows);
+        return rows.size();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.flink.sink;
+
+import com.example.flink.config.FlinkProperties;
+import com.example.flink.model.SensorStatistics;
+import com.example.flink.service.DatabaseService;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.operators.StreamSink;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 精确一次数据库Sink测试 - 预提交、检查点完成后提交、恢复时重新提交和丢弃事务的顺序，
+ * 以及重新提交已提交的事务时不重复写入
+ */
+public class TransactionalDatabaseSinkFunctionTest {
+
+    private FlinkProperties flinkProperties;
+    private RecordingDatabaseService databaseService;
+
+    /**
+     * 两阶段提交各步骤的调用记录，事务按开始顺序编号为tx0、tx1……
+     */
+    private List<String> events;
+    private List<String> transactionIds;
+
+    @Before
+    public void setUp() {
+        flinkProperties = new FlinkProperties();
+        databaseService = new RecordingDatabaseService(flinkProperties);
+        events = new ArrayList<>();
+        transactionIds = new ArrayList<>();
+    }
+
+    @Test
+    public void commitsTransactionAfterCheckpointCompletes() throws Exception {
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(null)) {
+            harness.processElement(statistics("d1"), 0);
+            harness.processElement(statistics("d2"), 0);
+
+            harness.snapshot(1, 1);
+            harness.processElement(statistics("d3"), 0);
+            assertEquals(Arrays.asList("begin tx0", "preCommit tx0", "begin tx1"), events);
+            assertEquals(0, databaseService.attempts);
+
+            harness.notifyOfCompletedCheckpoint(1);
+            assertEquals(Collections.singletonList(Arrays.asList("d1@0", "d2@0")), databaseService.writes);
+
+            harness.snapshot(2, 2);
+            harness.notifyOfCompletedCheckpoint(2);
+            assertEquals(Arrays.asList("d3@0"), databaseService.writes.get(1));
+            assertEquals(Arrays.asList(id(0), id(1)), databaseService.committedTransactions);
+        }
+        assertEquals(Arrays.asList("begin tx0", "preCommit tx0", "begin tx1", "commit tx0",
+                "preCommit tx1", "begin tx2", "commit tx1", "abort tx2"), events);
+    }
+
+    @Test
+    public void restoreCommitsPendingTransactionAndAbortsOpenTransaction() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(null)) {
+            harness.processElement(statistics("d1"), 0);
+            snapshot = harness.snapshot(1, 1);
+            // 检查点完成前作业失败，tx1中的数据由上游重放
+            harness.processElement(statistics("d2"), 0);
+        }
+        events.clear();
+
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(snapshot)) {
+            assertEquals(Arrays.asList("commit tx0", "abort tx1", "begin tx2"), events);
+            assertEquals(Collections.singletonList(Collections.singletonList("d1@0")), databaseService.writes);
+        }
+    }
+
+    @Test
+    public void recommittingCommittedTransactionDoesNotWriteAgain() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(null)) {
+            harness.processElement(statistics("d1"), 0);
+            snapshot = harness.snapshot(1, 1);
+            harness.notifyOfCompletedCheckpoint(1);
+        }
+
+        // 提交成功后、下一个检查点之前失败，恢复时tx0会被再次提交
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(snapshot)) {
+            assertEquals(2, Collections.frequency(events, "commit tx0"));
+            assertEquals(Collections.singletonList(Collections.singletonList("d1@0")), databaseService.writes);
+            assertEquals(Collections.singletonList(id(0)), databaseService.committedTransactions);
+        }
+    }
+
+    @Test
+    public void retriesFailedCommit() throws Exception {
+        flinkProperties.getFlink().getSink().setMaxRetries(1);
+        try (OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness = createHarness(null)) {
+            harness.processElement(statistics("d1"), 0);
+            harness.snapshot(1, 1);
+            databaseService.remainingFailures = 1;
+
+            harness.notifyOfCompletedCheckpoint(1);
+            assertEquals(2, databaseService.attempts);
+            assertEquals(Collections.singletonList(Collections.singletonList("d1@0")), databaseService.writes);
+        }
+    }
+
+    private OneInputStreamOperatorTestHarness<SensorStatistics, Object> createHarness(
+            OperatorSubtaskState restoredState) throws Exception {
+        RecordingDatabaseService service = databaseService;
+        List<String> events = this.events;
+        List<String> transactionIds = this.transactionIds;
+        TransactionalDatabaseSinkFunction sink = new TransactionalDatabaseSinkFunction(flinkProperties) {
+            @Override
+            DatabaseService createDatabaseService() {
+                return service;
+            }
+
+            @Override
+            protected StatisticsTransaction beginTransaction() {
+                StatisticsTransaction transaction = super.beginTransaction();
+                transactionIds.add(transaction.getTransactionId());
+                events.add("begin " + label(transaction));
+                return transaction;
+            }
+
+            @Override
+            protected void preCommit(StatisticsTransaction transaction) {
+                events.add("preCommit " + label(transaction));
+                super.preCommit(transaction);
+            }
+
+            @Override
+            protected void commit(StatisticsTransaction transaction) {
+                events.add("commit " + label(transaction));
+                super.commit(transaction);
+            }
+
+            @Override
+            protected void abort(StatisticsTransaction transaction) {
+                events.add("abort " + label(transaction));
+                super.abort(transaction);
+            }
+
+            private String label(StatisticsTransaction transaction) {
+                return "tx" + transactionIds.indexOf(transaction.getTransactionId());
+            }
+        };
+        OneInputStreamOperatorTestHarness<SensorStatistics, Object> harness =
+                new OneInputStreamOperatorTestHarness<>(new StreamSink<>(sink));
+        if (restoredState != null) {
+            harness.initializeState(restoredState);
+        }
+        harness.open();
+        return harness;
+    }
+
+    private String id(int index) {
+        return transactionIds.get(index);
+    }
+
+    private static SensorStatistics statistics(String deviceId) {
+        return new SensorStatistics("t1", deviceId, 1L, 0L, 60_000L);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.flink.util;
+
+import com.example.flink.model.SensorData;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * DateTimeCodec与Jackson按 @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") 解析LocalDateTime的等价性测试
+ */
+public class DateTimeCodecTest {
+
+    private static final ObjectMapper objectMapper = JsonUtils.getObjectMapper();
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 修改前的时间字段定义，作为对照
+     */
+    static class JacksonTime {
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        public LocalDateTime timestamp;
+    }
+
+    @Test
+    public void parseMatchesJackson() throws Exception {
+        String[] values = {
+                "2023-12-01 10:00:00",
+                "1970-01-01 00:00:00",
+                "1969-12-31 23:59:59",
+                "2000-02-29 12:34:56",
+                "2024-02-29 23:59:59",
+                "1900-03-01 00:00:00",
+                "0001-01-01 00:00:00",
+                "9999-12-31 23:59:59",
+                // SMART解析：超过当月天数时取当月最后一天
+                "2023-02-29 10:00:00",
+                "2023-04-31 10:00:00",
+                "1900-02-29 10:00:00",
+                "2023-12-01 24:00:00",
+                "2023-12-31 24:00:00",
+                // Jackson会去掉首尾空白
+                "  2023-12-01 10:00:00 ",
+        };
+
+        for (String value : values) {
+            assertEquals(value, jacksonMillis(value), sensorDataMillis(value));
+        }
+    }
+
+    @Test
+    public void rejectsWhatJacksonRejects() {
+        String[] values = {
+                // JsonTimeTest中使用的ISO格式
+                "2023-12-01T10:00:00",
+                "2023-12-01 10:00",
+                "2023-12-01 10:00:00.123",
+                "2023-13-01 10:00:00",
+                "2023-00-01 10:00:00",
+                "2023-12-00 10:00:00",
+                "2023-12-32 10:00:00",
+                "2023-12-01 24:00:01",
+                "2023-12-01 25:00:00",
+                "2023-12-01 10:60:00",
+                "2023-12-01 10:00:60",
+                "0000-01-01 00:00:00",
+                "2023/12/01 10:00:00",
+                "2023-1a-01 10:00:00",
+                "abc",
+        };
+
+        for (String value : values) {
+            assertJacksonRejects(value);
+            try {
+                DateTimeCodec.parse(value);
+                fail("应当解析失败: " + value);
+            } catch (DateTimeParseException expected) {
+                // expected
+            }
+            try {
+                JsonUtils.fromJson(json(value), SensorData.class);
+                fail("应当解析失败: " + value);
+            } catch (Exception expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void emptyAndMissingTimestamp() throws Exception {
+        assertFalse(JsonUtils.fromJson("{\"device_id\":\"d1\"}", SensorData.class).hasTimestamp());
+        assertFalse(JsonUtils.fromJson("{\"timestamp\":null}", SensorData.class).hasTimestamp());
+        assertFalse(JsonUtils.fromJson("{\"timestamp\":\"\"}", SensorData.class).hasTimestamp());
+        assertEquals(null, objectMapper.readValue("{\"timestamp\":\"\"}", JacksonTime.class).timestamp);
+    }
+
+    @Test
+    public void randomRoundTrip() throws Exception {
+        Random random = new Random(42);
+        long min = LocalDateTime.of(1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long max = LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+
+        for (int i = 0; i < 100_000; i++) {
+            long epochSecond = min + (long) (random.nextDouble() * (max - min));
+            long millis = epochSecond * 1000 + random.nextInt(1000);
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            String expected = dateTime.format(FORMATTER);
+
+            assertEquals(expected, DateTimeCodec.format(millis));
+            assertEquals(expected, DateTimeCodec.parse(expected) / 1000, epochSecond);
+        }
+    }
+
+    @Test
+    public void serializationMatchesJackson() throws Exception {
+        String value = "2023-12-01 10:00:00";
+        JacksonTime jacksonTime = objectMapper.readValue(json(value), JacksonTime.class);
+        SensorData sensorData = JsonUtils.fromJson(json(value), SensorData.class);
+
+        String expected = objectMapper.writeValueAsString(jacksonTime);
+        String actual = objectMapper.readTree(JsonUtils.toJson(sensorData)).get("timestamp").toString();
+        assertEquals(objectMapper.readTree(expected).get("timestamp").toString(), actual);
+    }
+
+    @Test
+    public void sqlTimestampMatchesTimestampValueOf() {
+        long millis = DateTimeCodec.parse("2023-12-01 10:00:00");
+        LocalDateTime dateTime = LocalDateTime.of(2023, 12, 1, 10, 0, 0);
+        assertEquals(java.sql.Timestamp.valueOf(dateTime), DateTimeCodec.toSqlTimestamp(millis));
+    }
+
+    private static long jacksonMillis(String value) throws Exception {
+        return objectMapper.readValue(json(value), JacksonTime.class)
+                .timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long sensorDataMillis(String value) throws Exception {
+        return JsonUtils.fromJson(json(value), SensorData.class).getTimestamp();
+    }
+
+    private static void assertJacksonRejects(String value) {
+        try {
+            objectMapper.readValue(json(value), JacksonTime.class);
+            fail("Jackson应当解析失败: " + value);
+        } catch (Exception expected) {
+            // expected
+        }
+    }
+
+    private static String json(String value) {
+        return "{\"timestamp\":\"" + value + "\"}";
+    }
+}
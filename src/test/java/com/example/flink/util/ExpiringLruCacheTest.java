@@ -0,0 +1,40 @@
+package com.example.flink.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * ExpiringLruCache的容量淘汰和过期测试
+ */
+public class ExpiringLruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyAccessed() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, 1000);
+        cache.put("a", "A", 0);
+        cache.put("b", "B", 0);
+        assertEquals("A", cache.get("a", 1));
+
+        cache.put("c", "C", 2);
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a", 3));
+        assertNull(cache.get("b", 3));
+        assertEquals("C", cache.get("c", 3));
+    }
+
+    @Test
+    public void expiresAfterTtl() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1000);
+        cache.put("a", "A", 0);
+
+        assertEquals("A", cache.get("a", 999));
+        assertNull(cache.get("a", 1000));
+        assertEquals(0, cache.size());
+
+        cache.put("a", "A2", 1500);
+        assertEquals("A2", cache.get("a", 2000));
+    }
+}